@@ -18,6 +18,8 @@
  */
 package co.elastic.apm.android.common;
 
+import java.util.Locale;
+
 public class ApmInfo {
     public static String KEY_SERVICE_VERSION = "service.version";
     public static String KEY_SERVICE_NAME = "service.name";
@@ -26,4 +28,18 @@ public class ApmInfo {
     public static String KEY_SERVICE_ENVIRONMENT = "service.deployment_environment";
     public static String KEY_SCOPE_OKHTTP_VERSION = "scope.okhttp.version";
     public static String ASSET_FILE_NAME = "co_elastic_apm_android.properties";
+    /**
+     * Name of the class generated at build time with the same values as the asset file, as
+     * static final String fields, so that they can be read without any I/O. It's a literal, rather
+     * than derived from this class' name, as this class might get renamed when the app is minified.
+     */
+    public static final String GENERATED_CLASS_NAME = "co.elastic.apm.android.common.Generated_ApmInfo";
+
+    /**
+     * @param key One of this class' KEY_ values.
+     * @return The name of the generated class' field that holds the key's value.
+     */
+    public static String getGeneratedFieldName(String key) {
+        return key.toUpperCase(Locale.ROOT).replace('.', '_');
+    }
 }
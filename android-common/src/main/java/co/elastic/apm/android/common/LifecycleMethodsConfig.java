@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Carries the lifecycle methods configured through the Gradle plugin's DSL over to the build-time
+ * instrumentation, by storing them in a resource that's added to the instrumentation classpath,
+ * so that changing them invalidates the instrumented classes.
+ * Each method is described by a Java-like signature with fully qualified type names, e.g.
+ * "void onStart()" or "android.view.View onCreateView(android.view.LayoutInflater, android.view.ViewGroup, android.os.Bundle)".
+ */
+public final class LifecycleMethodsConfig {
+    public static final String TYPE_ACTIVITY = "activity";
+    public static final String TYPE_FRAGMENT = "fragment";
+    public static final String RESOURCE_NAME = "co/elastic/apm/android/lifecycle_methods.properties";
+    private static final String REPLACEMENT_SUFFIX = ".methods";
+    private static final String EXTRA_SUFFIX = ".extraMethods";
+    private static final String SEPARATOR = ";";
+    private final Properties properties;
+
+    public LifecycleMethodsConfig() {
+        this(new Properties());
+    }
+
+    private LifecycleMethodsConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Reads the config resource from the given class loader, returns an empty config if it's not there.
+     */
+    public static LifecycleMethodsConfig load(ClassLoader classLoader) {
+        try (InputStream inputStream = classLoader.getResourceAsStream(RESOURCE_NAME)) {
+            if (inputStream == null) {
+                return new LifecycleMethodsConfig();
+            }
+            return load(inputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + RESOURCE_NAME, e);
+        }
+    }
+
+    public static LifecycleMethodsConfig load(InputStream inputStream) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        return new LifecycleMethodsConfig(properties);
+    }
+
+    public void store(OutputStream outputStream) throws IOException {
+        StringWriter writer = new StringWriter();
+        properties.store(writer, null);
+        StringBuilder content = new StringBuilder();
+        for (String line : writer.toString().split("\\R")) {
+            // Drops the timestamp comment, so that the same config always has the same content.
+            if (!line.startsWith("#")) {
+                content.append(line).append('\n');
+            }
+        }
+        outputStream.write(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param replacementMethods Methods to instrument instead of the default ones, empty to keep the defaults.
+     * @param extraMethods       Methods to instrument after the default, or replacement, ones.
+     */
+    public void setMethods(String type, List<String> replacementMethods, List<String> extraMethods) {
+        setProperty(type + REPLACEMENT_SUFFIX, replacementMethods);
+        setProperty(type + EXTRA_SUFFIX, extraMethods);
+    }
+
+    public List<String> getReplacementMethods(String type) {
+        return getProperty(type + REPLACEMENT_SUFFIX);
+    }
+
+    public List<String> getExtraMethods(String type) {
+        return getProperty(type + EXTRA_SUFFIX);
+    }
+
+    private void setProperty(String key, List<String> methods) {
+        if (methods.isEmpty()) {
+            properties.remove(key);
+        } else {
+            properties.setProperty(key, String.join(SEPARATOR, methods));
+        }
+    }
+
+    private List<String> getProperty(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> methods = new ArrayList<>();
+        for (String method : value.split(SEPARATOR)) {
+            if (!method.trim().isEmpty()) {
+                methods.add(method.trim());
+            }
+        }
+        return methods;
+    }
+}
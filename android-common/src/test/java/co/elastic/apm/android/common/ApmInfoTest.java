@@ -0,0 +1,37 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.common;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ApmInfoTest {
+
+    @Test
+    public void generatedClassName_isInThisClassPackage() {
+        assertEquals(ApmInfo.class.getPackage().getName() + ".Generated_" + ApmInfo.class.getSimpleName(),
+                ApmInfo.GENERATED_CLASS_NAME);
+    }
+
+    @Test
+    public void generatedFieldName_isTheUppercaseKey() {
+        assertEquals("SERVICE_DEPLOYMENT_ENVIRONMENT", ApmInfo.getGeneratedFieldName(ApmInfo.KEY_SERVICE_ENVIRONMENT));
+    }
+}
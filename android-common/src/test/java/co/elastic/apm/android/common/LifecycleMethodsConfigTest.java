@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class LifecycleMethodsConfigTest {
+
+    @Test
+    public void whenStoredAndLoaded_keepTheMethodsOfEachType() throws IOException {
+        List<String> activityMethods = Arrays.asList("void onCreate(android.os.Bundle)", "void onStart()");
+        List<String> extraFragmentMethods = Collections.singletonList("void onStart()");
+        LifecycleMethodsConfig config = new LifecycleMethodsConfig();
+        config.setMethods(LifecycleMethodsConfig.TYPE_ACTIVITY, activityMethods, Collections.emptyList());
+        config.setMethods(LifecycleMethodsConfig.TYPE_FRAGMENT, Collections.emptyList(), extraFragmentMethods);
+
+        LifecycleMethodsConfig loaded = LifecycleMethodsConfig.load(new ByteArrayInputStream(store(config)));
+
+        assertEquals(activityMethods, loaded.getReplacementMethods(LifecycleMethodsConfig.TYPE_ACTIVITY));
+        assertTrue(loaded.getExtraMethods(LifecycleMethodsConfig.TYPE_ACTIVITY).isEmpty());
+        assertTrue(loaded.getReplacementMethods(LifecycleMethodsConfig.TYPE_FRAGMENT).isEmpty());
+        assertEquals(extraFragmentMethods, loaded.getExtraMethods(LifecycleMethodsConfig.TYPE_FRAGMENT));
+    }
+
+    @Test
+    public void whenStoringTheSameConfig_produceTheSameContent() throws IOException {
+        LifecycleMethodsConfig config = new LifecycleMethodsConfig();
+        config.setMethods(LifecycleMethodsConfig.TYPE_ACTIVITY, Collections.singletonList("void onStart()"), Collections.emptyList());
+
+        assertEquals(new String(store(config)), new String(store(config)));
+    }
+
+    @Test
+    public void whenTheResourceIsMissing_provideNoMethods() {
+        ClassLoader emptyClassLoader = new ClassLoader(null) {
+        };
+
+        LifecycleMethodsConfig config = LifecycleMethodsConfig.load(emptyClassLoader);
+
+        assertTrue(config.getReplacementMethods(LifecycleMethodsConfig.TYPE_ACTIVITY).isEmpty());
+        assertTrue(config.getExtraMethods(LifecycleMethodsConfig.TYPE_FRAGMENT).isEmpty());
+    }
+
+    private static byte[] store(LifecycleMethodsConfig config) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        config.store(outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.database;
+
+import net.bytebuddy.asm.Advice;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.database.DatabaseSpan;
+
+public class RoomDaoMethodAdvice {
+
+    @Advice.OnMethodEnter
+    public static DatabaseSpan.DaoMethodSpan onMethodEnter(
+            @Advice.Origin("#t") String daoImplName,
+            @Advice.Origin("#m") String methodName) {
+        return DatabaseSpan.onDaoMethodEnter(daoImplName, methodName);
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void onMethodExit(@Advice.Enter DatabaseSpan.DaoMethodSpan daoMethodSpan, @Advice.Thrown Throwable thrown) {
+        DatabaseSpan.onDaoMethodExit(daoMethodSpan, thrown);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.database;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.build.AndroidDescriptor;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.io.IOException;
+
+/**
+ * Instruments the DAO implementations generated by Room so that the statements run by each DAO
+ * method are grouped under its span. Suspend functions, as well as the methods returning observable,
+ * reactive, future or paged results, return before their statements run, so they're left out.
+ */
+public class RoomDaoPlugin implements Plugin {
+    private static final ElementMatcher.Junction<TypeDescription> DAO_TYPE = ElementMatchers.isAnnotatedWith(ElementMatchers.named("androidx.room.Dao"));
+    private final AndroidDescriptor androidDescriptor;
+
+    public RoomDaoPlugin(AndroidDescriptor androidDescriptor) {
+        this.androidDescriptor = androidDescriptor;
+    }
+
+    @Override
+    public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder,
+                                        TypeDescription typeDescription,
+                                        ClassFileLocator classFileLocator) {
+        ElementMatcher.Junction<MethodDescription> daoMethods = ElementMatchers.<MethodDescription>isPublic()
+                .and(ElementMatchers.isMethod())
+                .and(ElementMatchers.not(ElementMatchers.isStatic()))
+                .and(ElementMatchers.not(ElementMatchers.isSynthetic()))
+                .and(ElementMatchers.not(ElementMatchers.hasParameters(ElementMatchers.whereAny(
+                        ElementMatchers.<ParameterDescription>hasType(ElementMatchers.named("kotlin.coroutines.Continuation"))
+                ))))
+                .and(ElementMatchers.not(ElementMatchers.returns(ElementMatchers.namedOneOf(
+                        "androidx.lifecycle.LiveData",
+                        "kotlinx.coroutines.flow.Flow",
+                        "io.reactivex.Observable",
+                        "io.reactivex.Flowable",
+                        "io.reactivex.Single",
+                        "io.reactivex.Maybe",
+                        "io.reactivex.Completable",
+                        "io.reactivex.rxjava3.core.Observable",
+                        "io.reactivex.rxjava3.core.Flowable",
+                        "io.reactivex.rxjava3.core.Single",
+                        "io.reactivex.rxjava3.core.Maybe",
+                        "io.reactivex.rxjava3.core.Completable",
+                        "com.google.common.util.concurrent.ListenableFuture",
+                        "androidx.paging.PagingSource",
+                        "androidx.paging.DataSource$Factory"
+                ))))
+                .and(ElementMatchers.isOverriddenFrom(DAO_TYPE));
+        return builder.visit(Advice.to(RoomDaoMethodAdvice.class).on(daoMethods));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // No operation.
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        if (androidDescriptor.getTypeScope(target) == AndroidDescriptor.TypeScope.EXTERNAL) {
+            return false;
+        }
+        return !target.isInterface() && !target.isAbstract() && ElementMatchers.hasSuperType(DAO_TYPE).matches(target);
+    }
+}
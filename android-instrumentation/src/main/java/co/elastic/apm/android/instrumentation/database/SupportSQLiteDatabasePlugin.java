@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.database;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.io.IOException;
+
+/**
+ * Instruments the framework implementation of SupportSQLiteDatabase, which is the one Room uses.
+ * Its query(String) methods delegate to the query(SupportSQLiteQuery) ones, so only the latter
+ * are instrumented.
+ */
+public class SupportSQLiteDatabasePlugin implements Plugin {
+
+    @Override
+    public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder,
+                                        TypeDescription typeDescription,
+                                        ClassFileLocator classFileLocator) {
+        return builder.visit(Advice.to(SupportSQLiteQueryAdvice.class)
+                        .on(ElementMatchers.named("query")
+                                .and(ElementMatchers.takesArgument(0, ElementMatchers.named("androidx.sqlite.db.SupportSQLiteQuery")))
+                        ))
+                .visit(Advice.to(SqlStatementAdvice.class)
+                        .on(ElementMatchers.named("execSQL")
+                                .and(ElementMatchers.takesArgument(0, String.class))
+                        ))
+                .visit(Advice.to(SupportSQLiteTableOperationAdvice.class)
+                        .on(ElementMatchers.namedOneOf("insert", "update", "delete")
+                                .and(ElementMatchers.takesArgument(0, String.class))
+                        ));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // No operation.
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        return target.getTypeName().equals("androidx.sqlite.db.framework.FrameworkSQLiteDatabase");
+    }
+}
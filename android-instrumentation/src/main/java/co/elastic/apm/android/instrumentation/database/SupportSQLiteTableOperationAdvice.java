@@ -0,0 +1,41 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.database;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.database.DatabaseSpan;
+import io.opentelemetry.api.trace.Span;
+
+public class SupportSQLiteTableOperationAdvice {
+
+    @Advice.OnMethodEnter
+    public static Span onMethodEnter(@Advice.Origin("#m") String methodName, @Advice.AllArguments Object[] args) {
+        return DatabaseSpan.startSupportTableOperation(methodName, args);
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void onMethodExit(
+            @Advice.Enter Span span,
+            @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object result,
+            @Advice.Thrown Throwable thrown) {
+        DatabaseSpan.end(span, result, thrown);
+    }
+}
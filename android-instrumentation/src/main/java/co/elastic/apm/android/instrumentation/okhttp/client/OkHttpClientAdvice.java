@@ -21,19 +21,29 @@ package co.elastic.apm.android.instrumentation.okhttp.client;
 import net.bytebuddy.asm.Advice;
 
 import co.elastic.apm.android.common.okhttp.eventlistener.CompositeEventListenerFactory;
+import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OkHttpClientMetrics;
 import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OkHttpContextStore;
 import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OtelOkHttpEventListener;
 import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OtelOkHttpInterceptor;
+import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OtelOkHttpTimingInterceptor;
 import okhttp3.OkHttpClient;
 
 public class OkHttpClientAdvice {
 
     @SuppressWarnings("KotlinInternalInJava")
     @Advice.OnMethodEnter
-    public static void enter(@Advice.Argument(0) OkHttpClient.Builder builder) {
+    public static OkHttpClientMetrics.Client enter(@Advice.Argument(0) OkHttpClient.Builder builder) {
+        OkHttpClientMetrics.Client client = OkHttpClientMetrics.Client.create();
         OkHttpContextStore contextStore = new OkHttpContextStore();
-        OtelOkHttpEventListener.Factory otelFactory = new OtelOkHttpEventListener.Factory(contextStore);
+        OtelOkHttpEventListener.Factory otelFactory = new OtelOkHttpEventListener.Factory(contextStore, client);
         builder.eventListenerFactory(new CompositeEventListenerFactory(otelFactory, builder.getEventListenerFactory$okhttp()));
         builder.interceptors().add(0, new OtelOkHttpInterceptor(contextStore));
+        builder.interceptors().add(new OtelOkHttpTimingInterceptor(otelFactory));
+        return client;
     }
-}
\ No newline at end of file
+
+    @Advice.OnMethodExit
+    public static void exit(@Advice.This OkHttpClient okHttpClient, @Advice.Enter OkHttpClientMetrics.Client client) {
+        OkHttpClientMetrics.register(okHttpClient, client);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.traced;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.build.AndroidDescriptor;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.MethodList;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.io.IOException;
+
+import co.elastic.apm.android.sdk.traces.annotations.Traced;
+
+public class TracedMethodPlugin implements Plugin {
+    private static final ElementMatcher.Junction<MethodDescription> TRACED_METHOD = ElementMatchers.<MethodDescription>isAnnotatedWith(Traced.class)
+            .and(ElementMatchers.not(ElementMatchers.isAbstract()));
+    private final AndroidDescriptor androidDescriptor;
+
+    public TracedMethodPlugin(AndroidDescriptor androidDescriptor) {
+        this.androidDescriptor = androidDescriptor;
+    }
+
+    @Override
+    public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder,
+                                        TypeDescription typeDescription,
+                                        ClassFileLocator classFileLocator) {
+        MethodList<MethodDescription.InDefinedShape> tracedMethods = typeDescription.getDeclaredMethods().filter(TRACED_METHOD);
+        for (MethodDescription.InDefinedShape method : tracedMethods) {
+            builder = builder.visit(createAdvice(typeDescription, method).on(ElementMatchers.is(method)));
+        }
+        return builder;
+    }
+
+    /**
+     * Binds the annotation's values as constants of the advice, so that they don't have to be
+     * resolved at runtime.
+     */
+    private static Advice createAdvice(TypeDescription typeDescription, MethodDescription method) {
+        Traced traced = method.getDeclaredAnnotations().ofType(Traced.class).load();
+        String spanName = traced.name();
+        if (spanName.isEmpty()) {
+            spanName = typeDescription.getSimpleName() + "." + method.getName();
+        }
+        return Advice.withCustomMapping()
+                .bind(TracedSpanName.class, spanName)
+                .bind(TracedMinDuration.class, Math.max(0, traced.minDurationMs()))
+                .to(TracedMethodAdvice.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // No operation.
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        if (androidDescriptor.getTypeScope(target) == AndroidDescriptor.TypeScope.EXTERNAL) {
+            return false;
+        }
+        return !target.getDeclaredMethods().filter(TRACED_METHOD).isEmpty();
+    }
+}
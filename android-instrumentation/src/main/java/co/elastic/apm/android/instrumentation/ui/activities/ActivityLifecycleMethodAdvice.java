@@ -20,27 +20,28 @@ package co.elastic.apm.android.instrumentation.ui.activities;
 
 import net.bytebuddy.asm.Advice;
 
-import java.lang.reflect.Method;
-
+import co.elastic.apm.android.instrumentation.ui.common.IsLastMethod;
 import co.elastic.apm.android.sdk.internal.instrumentation.LifecycleMultiMethodSpan;
+import co.elastic.apm.android.sdk.internal.instrumentation.SpanWithScope;
 import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
 
 public class ActivityLifecycleMethodAdvice {
 
     @Advice.OnMethodEnter
     public static void onMethodEnter(
+            @Advice.This Object owner,
             @Advice.Origin("#t") String ownerName,
             @Advice.Origin("#m") String methodName,
-            @Advice.Local("elasticSpanWithScope") LifecycleMultiMethodSpan.SpanWithScope spanWithScope) {
-        spanWithScope = LifecycleMultiMethodSpan.onMethodEnter(ownerName, methodName, ElasticTracer.androidActivity());
+            @Advice.Local("elasticSpanWithScope") SpanWithScope spanWithScope) {
+        spanWithScope = LifecycleMultiMethodSpan.onMethodEnter(owner, ownerName, methodName, ElasticTracer.androidActivity());
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class)
     public static void onMethodExit(
             @Advice.This Object owner,
-            @Advice.Origin Method method,
-            @Advice.Local("elasticSpanWithScope") LifecycleMultiMethodSpan.SpanWithScope spanWithScope,
+            @IsLastMethod boolean isLastMethod,
+            @Advice.Local("elasticSpanWithScope") SpanWithScope spanWithScope,
             @Advice.Thrown Throwable thrown) {
-        LifecycleMultiMethodSpan.onMethodExit(owner, spanWithScope, thrown, method.isAnnotationPresent(LifecycleMultiMethodSpan.LastMethod.class));
+        LifecycleMultiMethodSpan.onMethodExit(owner, spanWithScope, thrown, isLastMethod);
     }
 }
@@ -29,6 +29,7 @@ import net.bytebuddy.description.type.TypeDescription;
 import java.util.ArrayList;
 import java.util.List;
 
+import co.elastic.apm.android.common.LifecycleMethodsConfig;
 import co.elastic.apm.android.instrumentation.ui.common.BaseLifecycleMethodsPlugin;
 
 /**
@@ -37,6 +38,7 @@ import co.elastic.apm.android.instrumentation.ui.common.BaseLifecycleMethodsPlug
  * - {@link Activity#onStart()}
  * - {@link Activity#onResume()}
  * To create a root span covering them all, as well as method-specific spans for each.
+ * The methods can be replaced or extended through the Gradle plugin's lifecycleMethods config.
  */
 public class ActivityLifecyclePlugin extends BaseLifecycleMethodsPlugin {
     private final AndroidDescriptor androidDescriptor;
@@ -60,7 +62,12 @@ public class ActivityLifecyclePlugin extends BaseLifecycleMethodsPlugin {
     }
 
     @Override
-    protected List<BaseLifecycleMethodsPlugin.MethodIdentity> provideOrderedTargetMethods() {
+    protected String getLifecycleMethodsConfigType() {
+        return LifecycleMethodsConfig.TYPE_ACTIVITY;
+    }
+
+    @Override
+    protected List<MethodIdentity> provideDefaultTargetMethods() {
         List<MethodIdentity> methods = new ArrayList<>();
         methods.add(MethodIdentity.create("onCreate", void.class, Bundle.class));
         methods.add(MethodIdentity.create("onStart", void.class));
@@ -19,63 +19,125 @@
 package co.elastic.apm.android.instrumentation.ui.common;
 
 import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.not;
 import static net.bytebuddy.matcher.ElementMatchers.returns;
 import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
 import androidx.annotation.NonNull;
 
 import net.bytebuddy.asm.Advice;
-import net.bytebuddy.asm.AsmVisitorWrapper;
-import net.bytebuddy.asm.MemberAttributeExtension;
 import net.bytebuddy.build.Plugin;
-import net.bytebuddy.description.annotation.AnnotationDescription;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.dynamic.DynamicType;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import co.elastic.apm.android.sdk.internal.instrumentation.LifecycleMultiMethodSpan;
+import co.elastic.apm.android.common.LifecycleMethodsConfig;
 
 public abstract class BaseLifecycleMethodsPlugin implements Plugin {
     private List<MethodIdentity> cachedTargetMethods = null;
+    private Map<String, List<MethodIdentity>> cachedTargetMethodsByName = null;
     private Junction<MethodDescription> cachedMatcher = null;
+    private Junction<MethodDescription>[] cachedLastMethodMatchers = null;
+    private Junction<MethodDescription>[] cachedNotLastMethodMatchers = null;
+    private Advice cachedLastMethodAdvice = null;
+    private Advice cachedNotLastMethodAdvice = null;
 
     @Override
     public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder,
                                         TypeDescription typeDescription,
                                         ClassFileLocator classFileLocator) {
-        Junction<MethodDescription> lastLifecycleMethodAvailable = getLastLifecycleMethodMatcher(typeDescription);
-        if (lastLifecycleMethodAvailable == null) {
+        int lastLifecycleMethodIndex = getLastLifecycleMethodIndex(typeDescription);
+        if (lastLifecycleMethodIndex == -1) {
             // No Operation.
             return builder;
         }
 
-        AnnotationDescription lastMethodAnnotation = AnnotationDescription.Builder.ofType(LifecycleMultiMethodSpan.LastMethod.class).build();
-        AsmVisitorWrapper annotator = new MemberAttributeExtension.ForMethod().annotateMethod(lastMethodAnnotation).on(lastLifecycleMethodAvailable);
-
         return builder
-                .visit(annotator)
-                .visit(Advice.to(getAdviceClass()).on(getMethodsMatcher()));
+                .visit(getLastMethodAdvice().on(getLastMethodMatcher(lastLifecycleMethodIndex)))
+                .visit(getNotLastMethodAdvice().on(getNotLastMethodMatcher(lastLifecycleMethodIndex)));
     }
 
     @NonNull
     protected abstract Class<?> getAdviceClass();
 
     /**
-     * Must return the list of lifecycle target methods in the order they are supposed to be
-     * called.
+     * Must return the list of default lifecycle target methods in the order they are supposed to
+     * be called.
+     */
+    protected abstract List<MethodIdentity> provideDefaultTargetMethods();
+
+    /**
+     * The type name used to look up the methods configured for this plugin in {@link LifecycleMethodsConfig}.
      */
-    protected abstract List<MethodIdentity> provideOrderedTargetMethods();
+    protected abstract String getLifecycleMethodsConfigType();
+
+    /**
+     * Returns the default target methods, or the ones that replace them from the Gradle plugin's
+     * config, followed by the extra ones set in there, in the order they are supposed to be called.
+     */
+    protected List<MethodIdentity> provideOrderedTargetMethods() {
+        String configType = getLifecycleMethodsConfigType();
+        LifecycleMethodsConfig config = LifecycleMethodsConfig.load(getClass().getClassLoader());
+        List<MethodIdentity> methods = new ArrayList<>();
+        List<String> replacementMethods = config.getReplacementMethods(configType);
+        if (replacementMethods.isEmpty()) {
+            methods.addAll(provideDefaultTargetMethods());
+        } else {
+            for (String signature : replacementMethods) {
+                methods.add(MethodIdentity.parse(signature));
+            }
+        }
+        for (String signature : config.getExtraMethods(configType)) {
+            MethodIdentity method = MethodIdentity.parse(signature);
+            if (!methods.contains(method)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
 
     @Override
     public void close() {
         cachedMatcher = null;
         cachedTargetMethods = null;
+        cachedTargetMethodsByName = null;
+        cachedLastMethodMatchers = null;
+        cachedNotLastMethodMatchers = null;
+        cachedLastMethodAdvice = null;
+        cachedNotLastMethodAdvice = null;
+    }
+
+    private Advice getLastMethodAdvice() {
+        if (cachedLastMethodAdvice == null) {
+            cachedLastMethodAdvice = createAdvice(true);
+        }
+        return cachedLastMethodAdvice;
+    }
+
+    private Advice getNotLastMethodAdvice() {
+        if (cachedNotLastMethodAdvice == null) {
+            cachedNotLastMethodAdvice = createAdvice(false);
+        }
+        return cachedNotLastMethodAdvice;
+    }
+
+    /**
+     * Binds whether the instrumented method is the last lifecycle one as a constant into the
+     * advice's {@link IsLastMethod} parameter, so that it doesn't have to be resolved at runtime.
+     */
+    private Advice createAdvice(boolean isLastMethod) {
+        return Advice.withCustomMapping()
+                .bind(IsLastMethod.class, isLastMethod)
+                .to(getAdviceClass());
     }
 
     private Junction<MethodDescription> getMethodsMatcher() {
@@ -99,32 +161,58 @@ public abstract class BaseLifecycleMethodsPlugin implements Plugin {
         return named(method.name).and(takesArguments(method.argumentTypes)).and(returns(method.returnType));
     }
 
-    private Junction<MethodDescription> getLastLifecycleMethodMatcher(TypeDescription typeDescription) {
-        int foundMethodsCount = 0;
-        List<MethodIdentity> foundMethods = new ArrayList<>();
+    /**
+     * The matchers only depend on which target method is the last one available, so they're
+     * created once per target method and reused for every instrumented type.
+     */
+    private Junction<MethodDescription> getLastMethodMatcher(int targetMethodIndex) {
+        ensureIndexedMatchersCreated();
+        if (cachedLastMethodMatchers[targetMethodIndex] == null) {
+            cachedLastMethodMatchers[targetMethodIndex] = getMethodMatcher(getTargetMethods().get(targetMethodIndex));
+        }
+        return cachedLastMethodMatchers[targetMethodIndex];
+    }
+
+    private Junction<MethodDescription> getNotLastMethodMatcher(int targetMethodIndex) {
+        ensureIndexedMatchersCreated();
+        if (cachedNotLastMethodMatchers[targetMethodIndex] == null) {
+            cachedNotLastMethodMatchers[targetMethodIndex] = getMethodsMatcher().and(not(getLastMethodMatcher(targetMethodIndex)));
+        }
+        return cachedNotLastMethodMatchers[targetMethodIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ensureIndexedMatchersCreated() {
+        if (cachedLastMethodMatchers == null) {
+            int size = getTargetMethods().size();
+            cachedLastMethodMatchers = new Junction[size];
+            cachedNotLastMethodMatchers = new Junction[size];
+        }
+    }
+
+    /**
+     * Returns the index, within the target methods, of the last lifecycle method declared by the
+     * given type, or -1 if it declares none. Declared methods whose names don't belong to any
+     * target method are skipped without inspecting their signatures.
+     */
+    private int getLastLifecycleMethodIndex(TypeDescription typeDescription) {
+        Map<String, List<MethodIdentity>> targetMethodsByName = getTargetMethodsByName();
         List<MethodIdentity> targetMethods = getTargetMethods();
-        int maxMethods = targetMethods.size();
+        int lastIndex = -1;
         for (MethodDescription.InDefinedShape declaredMethod : typeDescription.getDeclaredMethods()) {
-            MethodIdentity methodIdentity = convert(declaredMethod);
-            if (targetMethods.contains(methodIdentity)) {
-                foundMethods.add(methodIdentity);
-                foundMethodsCount++;
-            }
-            if (foundMethodsCount == maxMethods) {
-                break;
+            List<MethodIdentity> candidates = targetMethodsByName.get(declaredMethod.getName());
+            if (candidates == null) {
+                continue;
             }
-        }
-
-        // Looping backwards to get the last lifecycle methods first.
-        for (int i = targetMethods.size() - 1; i >= 0; i--) {
-            MethodIdentity method = targetMethods.get(i);
-            if (foundMethods.contains(method)) {
-                return getMethodMatcher(method);
+            MethodIdentity methodIdentity = convert(declaredMethod);
+            if (candidates.contains(methodIdentity)) {
+                lastIndex = Math.max(lastIndex, targetMethods.indexOf(methodIdentity));
+                if (lastIndex == targetMethods.size() - 1) {
+                    break;
+                }
             }
         }
-
-        // No lifecycle methods defined in the target class.
-        return null;
+        return lastIndex;
     }
 
     private MethodIdentity convert(MethodDescription.InDefinedShape methodDescription) {
@@ -142,6 +230,22 @@ public abstract class BaseLifecycleMethodsPlugin implements Plugin {
         return cachedTargetMethods;
     }
 
+    private Map<String, List<MethodIdentity>> getTargetMethodsByName() {
+        if (cachedTargetMethodsByName == null) {
+            Map<String, List<MethodIdentity>> methodsByName = new HashMap<>();
+            for (MethodIdentity method : getTargetMethods()) {
+                List<MethodIdentity> methods = methodsByName.get(method.name);
+                if (methods == null) {
+                    methods = new ArrayList<>();
+                    methodsByName.put(method.name, methods);
+                }
+                methods.add(method);
+            }
+            cachedTargetMethodsByName = methodsByName;
+        }
+        return cachedTargetMethodsByName;
+    }
+
     protected static class MethodIdentity {
         public final String name;
         public final TypeDescription returnType;
@@ -155,6 +259,58 @@ public abstract class BaseLifecycleMethodsPlugin implements Plugin {
             return new MethodIdentity(name, TypeDescription.ForLoadedType.of(returnType), arguments);
         }
 
+        /**
+         * Parses a Java-like method signature such as "void onViewCreated(android.view.View, android.os.Bundle)".
+         * The types don't need to be loadable by the build, since they're matched by name.
+         */
+        public static MethodIdentity parse(String signature) {
+            int argumentsStart = signature.indexOf('(');
+            int argumentsEnd = signature.lastIndexOf(')');
+            if (argumentsStart == -1 || argumentsEnd < argumentsStart) {
+                throw new IllegalArgumentException("Invalid lifecycle method signature: " + signature);
+            }
+            String[] returnTypeAndName = signature.substring(0, argumentsStart).trim().split("\\s+");
+            if (returnTypeAndName.length != 2) {
+                throw new IllegalArgumentException("Invalid lifecycle method signature: " + signature);
+            }
+            List<TypeDescription> arguments = new ArrayList<>();
+            String argumentsDescription = signature.substring(argumentsStart + 1, argumentsEnd).trim();
+            if (!argumentsDescription.isEmpty()) {
+                for (String argument : argumentsDescription.split(",")) {
+                    arguments.add(parseType(argument.trim()));
+                }
+            }
+            return new MethodIdentity(returnTypeAndName[1], parseType(returnTypeAndName[0]), arguments);
+        }
+
+        private static TypeDescription parseType(String typeName) {
+            if (typeName.endsWith("[]")) {
+                return TypeDescription.ArrayProjection.of(parseType(typeName.substring(0, typeName.length() - 2).trim()));
+            }
+            switch (typeName) {
+                case "void":
+                    return TypeDescription.ForLoadedType.of(void.class);
+                case "boolean":
+                    return TypeDescription.ForLoadedType.of(boolean.class);
+                case "byte":
+                    return TypeDescription.ForLoadedType.of(byte.class);
+                case "char":
+                    return TypeDescription.ForLoadedType.of(char.class);
+                case "short":
+                    return TypeDescription.ForLoadedType.of(short.class);
+                case "int":
+                    return TypeDescription.ForLoadedType.of(int.class);
+                case "long":
+                    return TypeDescription.ForLoadedType.of(long.class);
+                case "float":
+                    return TypeDescription.ForLoadedType.of(float.class);
+                case "double":
+                    return TypeDescription.ForLoadedType.of(double.class);
+                default:
+                    return new TypeDescription.Latent(typeName, Visibility.PUBLIC.getMask(), TypeDescription.Generic.OBJECT);
+            }
+        }
+
         private MethodIdentity(String name, TypeDescription returnType, List<TypeDescription> argumentTypes) {
             this.name = name;
             this.returnType = returnType;
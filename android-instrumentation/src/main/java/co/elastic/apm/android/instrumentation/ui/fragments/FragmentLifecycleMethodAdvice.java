@@ -18,35 +18,44 @@
  */
 package co.elastic.apm.android.instrumentation.ui.fragments;
 
+import android.view.View;
+
+import androidx.fragment.app.Fragment;
+
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.implementation.bytecode.assign.Assigner;
 
-import java.lang.reflect.Method;
-
+import co.elastic.apm.android.instrumentation.ui.common.IsLastMethod;
 import co.elastic.apm.android.sdk.internal.instrumentation.LifecycleMultiMethodSpan;
+import co.elastic.apm.android.sdk.internal.instrumentation.SpanWithScope;
 import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
 
 public class FragmentLifecycleMethodAdvice {
 
     @Advice.OnMethodEnter
     public static void onMethodEnter(
+            @Advice.This Object owner,
             @Advice.Origin("#t") String ownerName,
             @Advice.Origin("#m") String methodName,
-            @Advice.Local("elasticSpanWithScope") LifecycleMultiMethodSpan.SpanWithScope spanWithScope) {
-        spanWithScope = LifecycleMultiMethodSpan.onMethodEnter(ownerName, methodName, ElasticTracer.androidFragment());
+            @Advice.Local("elasticSpanWithScope") SpanWithScope spanWithScope) {
+        spanWithScope = LifecycleMultiMethodSpan.onMethodEnter(owner, ownerName, methodName, ElasticTracer.androidFragment());
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class)
     public static void onMethodExit(
             @Advice.This Object owner,
-            @Advice.Origin Method method,
+            @Advice.Origin("#r") String returnType,
+            @IsLastMethod boolean isLastMethod,
             @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
-            @Advice.Local("elasticSpanWithScope") LifecycleMultiMethodSpan.SpanWithScope spanWithScope,
+            @Advice.Local("elasticSpanWithScope") SpanWithScope spanWithScope,
             @Advice.Thrown Throwable thrown) {
         boolean endRoot = false;
-        if (!method.getReturnType().equals(void.class)) {
+        if (returnType.equals("android.view.View")) {
+            // A null view means that the fragment is viewless.
             endRoot = returned == null;
         }
-        LifecycleMultiMethodSpan.onMethodExit(owner, spanWithScope, thrown, endRoot || method.isAnnotationPresent(LifecycleMultiMethodSpan.LastMethod.class));
+        // The fragment's view isn't set yet when onCreateView returns.
+        View view = returned instanceof View ? (View) returned : ((Fragment) owner).getView();
+        LifecycleMultiMethodSpan.onMethodExit(owner, spanWithScope, thrown, endRoot || isLastMethod, view);
     }
 }
@@ -32,6 +32,7 @@ import net.bytebuddy.description.type.TypeDescription;
 import java.util.ArrayList;
 import java.util.List;
 
+import co.elastic.apm.android.common.LifecycleMethodsConfig;
 import co.elastic.apm.android.instrumentation.ui.common.BaseLifecycleMethodsPlugin;
 
 /**
@@ -40,6 +41,7 @@ import co.elastic.apm.android.instrumentation.ui.common.BaseLifecycleMethodsPlug
  * - {@link Fragment#onCreateView(LayoutInflater, ViewGroup, Bundle)}
  * - {@link Fragment#onViewCreated(View, Bundle)}
  * To create a root span covering them all, as well as method-specific spans for each.
+ * The methods can be replaced or extended through the Gradle plugin's lifecycleMethods config.
  */
 public class FragmentLifecyclePlugin extends BaseLifecycleMethodsPlugin {
     private final AndroidDescriptor androidDescriptor;
@@ -55,7 +57,12 @@ public class FragmentLifecyclePlugin extends BaseLifecycleMethodsPlugin {
     }
 
     @Override
-    protected List<MethodIdentity> provideOrderedTargetMethods() {
+    protected String getLifecycleMethodsConfigType() {
+        return LifecycleMethodsConfig.TYPE_FRAGMENT;
+    }
+
+    @Override
+    protected List<MethodIdentity> provideDefaultTargetMethods() {
         List<MethodIdentity> methods = new ArrayList<>();
         methods.add(MethodIdentity.create("onCreate", void.class, Bundle.class));
         methods.add(MethodIdentity.create("onCreateView", View.class, LayoutInflater.class, ViewGroup.class, Bundle.class));
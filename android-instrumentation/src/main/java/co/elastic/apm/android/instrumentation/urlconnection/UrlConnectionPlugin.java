@@ -0,0 +1,89 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.urlconnection;
+
+import static net.bytebuddy.matcher.ElementMatchers.isConstructor;
+import static net.bytebuddy.matcher.ElementMatchers.isDeclaredBy;
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.isTypeInitializer;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+import net.bytebuddy.asm.MemberSubstitution;
+import net.bytebuddy.build.AndroidDescriptor;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.Proxy;
+import java.net.URL;
+
+import co.elastic.apm.android.sdk.traces.http.impl.urlconnection.UrlConnectionInstrumentation;
+
+/**
+ * Replaces the {@link URL#openConnection()} and {@link URL#openConnection(Proxy)} call sites with
+ * {@link UrlConnectionInstrumentation}'s, so that the returned {@link java.net.HttpURLConnection}s
+ * get traced. Methods, constructors and static initializers are all processed, as connections
+ * are often opened from field initializers. Only the project's own classes are processed, the
+ * ones from its dependencies are left as they are.
+ */
+public class UrlConnectionPlugin implements Plugin {
+    private static final String AGENT_PACKAGE_PREFIX = "co.elastic.apm.android.";
+    private final AndroidDescriptor androidDescriptor;
+
+    public UrlConnectionPlugin(AndroidDescriptor androidDescriptor) {
+        this.androidDescriptor = androidDescriptor;
+    }
+
+    @Override
+    public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder,
+                                        TypeDescription typeDescription,
+                                        ClassFileLocator classFileLocator) {
+        return builder.visit(MemberSubstitution.relaxed()
+                .method(named("openConnection").and(isDeclaredBy(URL.class)).and(takesArguments(0)))
+                .replaceWith(getReplacement(URL.class))
+                .method(named("openConnection").and(isDeclaredBy(URL.class)).and(takesArguments(Proxy.class)))
+                .replaceWith(getReplacement(URL.class, Proxy.class))
+                .on(isMethod().or(isConstructor()).or(isTypeInitializer())));
+    }
+
+    private static Method getReplacement(Class<?>... parameterTypes) {
+        try {
+            return UrlConnectionInstrumentation.class.getMethod("openConnection", parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // No operation.
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        if (androidDescriptor.getTypeScope(target) == AndroidDescriptor.TypeScope.EXTERNAL) {
+            return false;
+        }
+        return !target.getTypeName().startsWith(AGENT_PACKAGE_PREFIX);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.instrumentation.ui.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import co.elastic.apm.android.instrumentation.ui.common.BaseLifecycleMethodsPlugin.MethodIdentity;
+
+public class MethodIdentityTest {
+
+    @Test
+    public void whenParsingAMethodWithoutArguments_matchTheCreatedOne() {
+        MethodIdentity parsed = MethodIdentity.parse("void onStart()");
+
+        assertEquals("onStart", parsed.name);
+        assertTrue(parsed.argumentTypes.isEmpty());
+        assertEquals(MethodIdentity.create("onStart", void.class), parsed);
+    }
+
+    @Test
+    public void whenParsingArguments_matchThemByTypeName() {
+        MethodIdentity parsed = MethodIdentity.parse("java.lang.String  describe( int , java.lang.Object[], long[][] )");
+
+        assertEquals(MethodIdentity.create("describe", String.class, int.class, Object[].class, long[][].class), parsed);
+    }
+
+    @Test
+    public void whenTypesAreNotLoadable_parseThemAnyway() {
+        MethodIdentity parsed = MethodIdentity.parse("com.example.Missing onLoad(com.example.Other)");
+
+        assertEquals("com.example.Missing", parsed.returnType.getName());
+        assertEquals("com.example.Other", parsed.argumentTypes.get(0).getName());
+    }
+
+    @Test
+    public void whenTheSignatureDiffers_doNotMatch() {
+        assertNotEquals(MethodIdentity.create("onStart", void.class), MethodIdentity.parse("void onStart(int)"));
+        assertNotEquals(MethodIdentity.create("onStart", void.class), MethodIdentity.parse("int onStart()"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenTheReturnTypeIsMissing_fail() {
+        MethodIdentity.parse("onStart()");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenTheArgumentsAreMissing_fail() {
+        MethodIdentity.parse("void onStart");
+    }
+}
@@ -33,6 +33,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Properties;
 
 import co.elastic.apm.android.common.ApmInfo;
@@ -258,6 +260,33 @@ public class CompilationConfigTest extends BaseFunctionalTest {
         assertEquals(serverUrl, properties.getProperty(ApmInfo.KEY_SERVER_URL));
     }
 
+    @Test
+    public void compileConfig_generateApmInfoClass() throws Exception {
+        String serverUrl = "http://server.url";
+        getDefaultElasticBlockBuilder().setServerUrl(serverUrl);
+        setUpProject();
+
+        runGradle("assembleDebug");
+
+        verifyTaskIsSuccessful(":debugGenerateApmInfo");
+        Class<?> apmInfoClass = loadGeneratedClass("debugGenerateApmInfoClasses");
+        assertEquals(getAndroidAppId(), getGeneratedValue(apmInfoClass, ApmInfo.KEY_SERVICE_NAME));
+        assertEquals("1.0", getGeneratedValue(apmInfoClass, ApmInfo.KEY_SERVICE_VERSION));
+        assertEquals("debug", getGeneratedValue(apmInfoClass, ApmInfo.KEY_SERVICE_ENVIRONMENT));
+        assertEquals(serverUrl, getGeneratedValue(apmInfoClass, ApmInfo.KEY_SERVER_URL));
+        assertNull(getGeneratedValue(apmInfoClass, ApmInfo.KEY_SERVER_SECRET_TOKEN));
+    }
+
+    private Class<?> loadGeneratedClass(String outputDirName) throws Exception {
+        URL[] urls = {getBuildDirFile(outputDirName).toURI().toURL()};
+        ClassLoader classLoader = new URLClassLoader(urls, null);
+        return Class.forName(ApmInfo.GENERATED_CLASS_NAME, true, classLoader);
+    }
+
+    private static Object getGeneratedValue(Class<?> apmInfoClass, String key) throws Exception {
+        return apmInfoClass.getField(ApmInfo.getGeneratedFieldName(key)).get(null);
+    }
+
     private File getGeneratedPropertiesFile(String taskName) {
         return getBuildDirFile("intermediates/assets/debug/" + taskName + "/" + ApmInfo.ASSET_FILE_NAME);
     }
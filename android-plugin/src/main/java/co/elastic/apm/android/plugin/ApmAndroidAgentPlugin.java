@@ -42,9 +42,11 @@ import org.gradle.api.tasks.TaskProvider;
 
 import co.elastic.apm.android.common.internal.logging.Elog;
 import co.elastic.apm.android.plugin.extensions.ElasticApmExtension;
+import co.elastic.apm.android.plugin.extensions.LifecycleMethodsExtension;
 import co.elastic.apm.android.plugin.instrumentation.ElasticLocalInstrumentationFactory;
 import co.elastic.apm.android.plugin.logging.GradleLoggerFactory;
 import co.elastic.apm.android.plugin.tasks.ApmInfoGenerator;
+import co.elastic.apm.android.plugin.tasks.LifecycleMethodsConfigGenerator;
 import co.elastic.apm.android.plugin.tasks.OkHttpEventlistenerGenerator;
 import co.elastic.apm.generated.BuildConfig;
 import kotlin.Unit;
@@ -64,6 +66,7 @@ class ApmAndroidAgentPlugin implements Plugin<Project> {
         addBytebuddyPlugin();
         addSdkDependency();
         addInstrumentationDependency();
+        addLifecycleMethodsConfig();
         addTasks();
     }
 
@@ -92,6 +95,25 @@ class ApmAndroidAgentPlugin implements Plugin<Project> {
         project.getDependencies().add("byteBuddy", BuildConfig.INSTRUMENTATION_DEPENDENCY_URI);
     }
 
+    /**
+     * The configured lifecycle methods are stored in a generated jar added to the instrumentation
+     * classpath, which is an input of the class transforms, so changing them invalidates the
+     * instrumented classes.
+     */
+    private void addLifecycleMethodsConfig() {
+        LifecycleMethodsExtension lifecycleMethods = defaultExtension.getLifecycleMethods();
+        TaskProvider<LifecycleMethodsConfigGenerator> taskProvider =
+                project.getTasks().register("generateElasticLifecycleMethodsConfig", LifecycleMethodsConfigGenerator.class);
+        taskProvider.configure(task -> {
+            task.getActivityMethods().set(lifecycleMethods.getActivity());
+            task.getExtraActivityMethods().set(lifecycleMethods.getExtraActivity());
+            task.getFragmentMethods().set(lifecycleMethods.getFragment());
+            task.getExtraFragmentMethods().set(lifecycleMethods.getExtraFragment());
+            task.getOutputJar().set(project.getLayout().getBuildDirectory().file(task.getName() + "/lifecycle-methods.jar"));
+        });
+        project.getDependencies().add("byteBuddy", project.files(taskProvider.flatMap(LifecycleMethodsConfigGenerator::getOutputJar)));
+    }
+
     private void addTasks() {
         ExtensionContainer extensions = project.getExtensions();
         ApplicationAndroidComponentsExtension extension = extensions.getByType(ApplicationAndroidComponentsExtension.class);
@@ -140,12 +162,17 @@ class ApmAndroidAgentPlugin implements Plugin<Project> {
             apmInfoGenerator.getSecretToken().set(defaultExtension.getSecretToken());
             apmInfoGenerator.getVariantName().set(variantName);
             apmInfoGenerator.getOutputDir().set(project.getLayout().getBuildDirectory().dir(apmInfoGenerator.getName()));
+            apmInfoGenerator.getClassesOutputDir().set(project.getLayout().getBuildDirectory().dir(apmInfoGenerator.getName() + "Classes"));
+            apmInfoGenerator.getJvmTargetVersion().set(androidExtension.getCompileOptions().getTargetCompatibility().toString());
             apmInfoGenerator.getOkHttpVersion().set(getOkhttpVersion(component));
         });
 
         applicationVariant.getArtifacts().use(taskProvider)
                 .wiredWith(ApmInfoGenerator::getOutputDir)
                 .toAppendTo(MultipleArtifact.ASSETS.INSTANCE);
+        applicationVariant.getArtifacts().use(taskProvider)
+                .wiredWith(ApmInfoGenerator::getClassesOutputDir)
+                .toAppendTo(MultipleArtifact.ALL_CLASSES_DIRS.INSTANCE);
     }
 
     private Provider<String> getOkhttpVersion(ComponentImpl component) {
@@ -18,7 +18,9 @@
  */
 package co.elastic.apm.android.plugin.extensions;
 
+import org.gradle.api.Action;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Nested;
 
 public abstract class ElasticApmExtension {
     public abstract Property<String> getServiceName();
@@ -28,4 +30,11 @@ public abstract class ElasticApmExtension {
     public abstract Property<String> getServerUrl();
 
     public abstract Property<String> getSecretToken();
+
+    @Nested
+    public abstract LifecycleMethodsExtension getLifecycleMethods();
+
+    public void lifecycleMethods(Action<? super LifecycleMethodsExtension> action) {
+        action.execute(getLifecycleMethods());
+    }
 }
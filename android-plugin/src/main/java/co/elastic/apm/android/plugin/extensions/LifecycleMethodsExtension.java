@@ -0,0 +1,48 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.extensions;
+
+import org.gradle.api.provider.ListProperty;
+
+/**
+ * Lifecycle methods to instrument, described by Java-like signatures with fully qualified type
+ * names, e.g. "void onStart()". They must be listed in the order they're called, the last one
+ * available in each class ends its root span.
+ */
+public abstract class LifecycleMethodsExtension {
+    /**
+     * Replaces the default Activity methods: onCreate, onStart and onResume.
+     */
+    public abstract ListProperty<String> getActivity();
+
+    /**
+     * Activity methods instrumented after the default, or replacement, ones.
+     */
+    public abstract ListProperty<String> getExtraActivity();
+
+    /**
+     * Replaces the default Fragment methods: onCreate, onCreateView and onViewCreated.
+     */
+    public abstract ListProperty<String> getFragment();
+
+    /**
+     * Fragment methods instrumented after the default, or replacement, ones.
+     */
+    public abstract ListProperty<String> getExtraFragment();
+}
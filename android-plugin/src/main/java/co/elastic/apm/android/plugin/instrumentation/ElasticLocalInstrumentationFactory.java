@@ -25,13 +25,19 @@ import com.android.build.api.instrumentation.InstrumentationParameters;
 
 import org.objectweb.asm.ClassVisitor;
 
+import co.elastic.apm.android.plugin.instrumentation.remapping.ContextPropagationRemapper;
 import co.elastic.apm.android.plugin.instrumentation.remapping.CoroutineBuilderRemapper;
+import co.elastic.apm.android.plugin.instrumentation.remapping.FlowOperatorRemapper;
+import co.elastic.apm.android.plugin.instrumentation.remapping.SQLiteDatabaseRemapper;
 
 public abstract class ElasticLocalInstrumentationFactory implements AsmClassVisitorFactory<InstrumentationParameters.None> {
 
     @Override
     public ClassVisitor createClassVisitor(ClassContext classContext, ClassVisitor classVisitor) {
-        return new CoroutineBuilderRemapper(classVisitor);
+        ClassVisitor remapper = new SQLiteDatabaseRemapper(classVisitor);
+        remapper = new ContextPropagationRemapper(remapper, classContext);
+        remapper = new FlowOperatorRemapper(remapper, classContext);
+        return new CoroutineBuilderRemapper(remapper);
     }
 
     @Override
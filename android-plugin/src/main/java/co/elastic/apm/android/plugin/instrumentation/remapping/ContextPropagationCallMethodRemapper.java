@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.instrumentation.remapping;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redirects the calls that hand tasks over to other threads (executors, handlers and new threads)
+ * to the agent's ContextPropagation helpers, so that the tasks run within the caller's context.
+ */
+public class ContextPropagationCallMethodRemapper extends MethodVisitor {
+    private static final String HELPER_OWNER = "co/elastic/apm/android/sdk/internal/instrumentation/ContextPropagation";
+    private static final String THREAD = "java/lang/Thread";
+    private static final String RUNNABLE = "Ljava/lang/Runnable;";
+    private static final Map<String, Target> TARGETS = new HashMap<>();
+    private final ContextPropagationRemapper classRemapper;
+
+    static {
+        String executor = "java/util/concurrent/Executor";
+        String executorService = "java/util/concurrent/ExecutorService";
+        String scheduledExecutorService = "java/util/concurrent/ScheduledExecutorService";
+        String handler = "android/os/Handler";
+        addTarget(executor, "execute", "(Ljava/lang/Runnable;)V");
+        addTarget(executorService, "submit", "(Ljava/lang/Runnable;)Ljava/util/concurrent/Future;");
+        addTarget(executorService, "submit", "(Ljava/lang/Runnable;Ljava/lang/Object;)Ljava/util/concurrent/Future;");
+        addTarget(executorService, "submit", "(Ljava/util/concurrent/Callable;)Ljava/util/concurrent/Future;");
+        addTarget(scheduledExecutorService, "schedule", "(Ljava/lang/Runnable;JLjava/util/concurrent/TimeUnit;)Ljava/util/concurrent/ScheduledFuture;");
+        addTarget(scheduledExecutorService, "schedule", "(Ljava/util/concurrent/Callable;JLjava/util/concurrent/TimeUnit;)Ljava/util/concurrent/ScheduledFuture;");
+        addTarget(handler, "post", "(Ljava/lang/Runnable;)Z");
+        addTarget(handler, "postDelayed", "(Ljava/lang/Runnable;J)Z");
+        addTarget(handler, "postDelayed", "(Ljava/lang/Runnable;Ljava/lang/Object;J)Z");
+        addTarget(handler, "postAtTime", "(Ljava/lang/Runnable;J)Z");
+        addTarget(handler, "postAtTime", "(Ljava/lang/Runnable;Ljava/lang/Object;J)Z");
+        addTarget(handler, "postAtFrontOfQueue", "(Ljava/lang/Runnable;)Z");
+        addTarget(handler, "removeCallbacks", "(Ljava/lang/Runnable;)V");
+        addTarget(handler, "removeCallbacks", "(Ljava/lang/Runnable;Ljava/lang/Object;)V");
+        addTarget(handler, "hasCallbacks", "(Ljava/lang/Runnable;)Z");
+    }
+
+    protected ContextPropagationCallMethodRemapper(MethodVisitor methodVisitor, ContextPropagationRemapper classRemapper) {
+        super(Opcodes.ASM9, methodVisitor);
+        this.classRemapper = classRemapper;
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        if (opcode == Opcodes.INVOKESPECIAL && owner.equals(THREAD) && name.equals("<init>")) {
+            wrapThreadRunnable(descriptor);
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+            return;
+        }
+        Target target = (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE) ? TARGETS.get(name + descriptor) : null;
+        if (target != null && classRemapper.isSubtypeOf(owner, target.receiverType)) {
+            super.visitMethodInsn(Opcodes.INVOKESTATIC, HELPER_OWNER, name, target.helperDescriptor, false);
+        } else {
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+        }
+    }
+
+    /**
+     * Wraps the Runnable argument right before it's passed to the Thread constructor, whenever
+     * it's on top of the operand stack or right below a single-slot argument.
+     */
+    private void wrapThreadRunnable(String descriptor) {
+        switch (descriptor) {
+            case "(Ljava/lang/Runnable;)V":
+            case "(Ljava/lang/ThreadGroup;Ljava/lang/Runnable;)V":
+                visitWrapRunnable();
+                break;
+            case "(Ljava/lang/Runnable;Ljava/lang/String;)V":
+            case "(Ljava/lang/ThreadGroup;Ljava/lang/Runnable;Ljava/lang/String;)V":
+                super.visitInsn(Opcodes.SWAP);
+                visitWrapRunnable();
+                super.visitInsn(Opcodes.SWAP);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void visitWrapRunnable() {
+        super.visitMethodInsn(Opcodes.INVOKESTATIC, HELPER_OWNER, "wrap", "(" + RUNNABLE + ")" + RUNNABLE, false);
+    }
+
+    private static void addTarget(String receiverType, String name, String descriptor) {
+        TARGETS.put(name + descriptor, new Target(receiverType, "(L" + receiverType + ";" + descriptor.substring(1)));
+    }
+
+    private static class Target {
+        private final String receiverType;
+        private final String helperDescriptor;
+
+        private Target(String receiverType, String helperDescriptor) {
+            this.receiverType = receiverType;
+            this.helperDescriptor = helperDescriptor;
+        }
+    }
+}
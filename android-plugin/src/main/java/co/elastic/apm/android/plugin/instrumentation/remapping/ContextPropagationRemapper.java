@@ -0,0 +1,74 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.instrumentation.remapping;
+
+import com.android.build.api.instrumentation.ClassContext;
+import com.android.build.api.instrumentation.ClassData;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ContextPropagationRemapper extends ClassVisitor {
+    private final ClassContext classContext;
+    private final Map<String, ClassData> hierarchyCache = new HashMap<>();
+
+    public ContextPropagationRemapper(ClassVisitor classVisitor, ClassContext classContext) {
+        super(Opcodes.ASM9, classVisitor);
+        this.classContext = classContext;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        return new ContextPropagationCallMethodRemapper(super.visitMethod(access, name, descriptor, signature, exceptions), this);
+    }
+
+    /**
+     * Checks whether the given type is, or extends/implements, the target type. Both are internal
+     * names. Only called for the call sites whose name and descriptor match a remapping target.
+     */
+    boolean isSubtypeOf(String internalName, String targetInternalName) {
+        if (internalName.equals(targetInternalName)) {
+            return true;
+        }
+        ClassData classData = loadClassData(internalName);
+        if (classData == null) {
+            return false;
+        }
+        String target = targetInternalName.replace('/', '.');
+        return classData.getSuperClasses().contains(target) || classData.getInterfaces().contains(target);
+    }
+
+    private ClassData loadClassData(String internalName) {
+        if (hierarchyCache.containsKey(internalName)) {
+            return hierarchyCache.get(internalName);
+        }
+        ClassData classData;
+        try {
+            classData = classContext.loadClassData(internalName.replace('/', '.'));
+        } catch (RuntimeException e) {
+            classData = null;
+        }
+        hierarchyCache.put(internalName, classData);
+        return classData;
+    }
+}
@@ -21,24 +21,38 @@ package co.elastic.apm.android.plugin.instrumentation.remapping;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
-public class CoroutineLaunchCallMethodRemapper extends MethodVisitor {
-    private final String elasticLaunchOwner;
+import java.util.HashSet;
+import java.util.Set;
 
-    protected CoroutineLaunchCallMethodRemapper(MethodVisitor methodVisitor) {
+public class CoroutineBuilderCallMethodRemapper extends MethodVisitor {
+    private static final Set<String> BUILDER_NAMES = new HashSet<>();
+    private final String elasticBuildersOwner;
+
+    static {
+        BUILDER_NAMES.add("launch");
+        BUILDER_NAMES.add("launch$default");
+        BUILDER_NAMES.add("async");
+        BUILDER_NAMES.add("async$default");
+        BUILDER_NAMES.add("withContext");
+        BUILDER_NAMES.add("runBlocking");
+        BUILDER_NAMES.add("runBlocking$default");
+    }
+
+    protected CoroutineBuilderCallMethodRemapper(MethodVisitor methodVisitor) {
         super(Opcodes.ASM9, methodVisitor);
-        elasticLaunchOwner = "co/elastic/apm/android/sdk/instrumentation/CoroutineExtensionsKt";
+        elasticBuildersOwner = "co/elastic/apm/android/sdk/instrumentation/CoroutineExtensionsKt";
     }
 
     @Override
     public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
-        if (isCoroutineLaunchCall(owner, name)) {
-            super.visitMethodInsn(opcode, elasticLaunchOwner, name, descriptor, isInterface);
+        if (isCoroutineBuilderCall(owner, name)) {
+            super.visitMethodInsn(opcode, elasticBuildersOwner, name, descriptor, isInterface);
         } else {
             super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
         }
     }
 
-    private boolean isCoroutineLaunchCall(String owner, String name) {
-        return owner.equals("kotlinx/coroutines/BuildersKt") && (name.equals("launch") || name.equals("launch$default"));
+    private boolean isCoroutineBuilderCall(String owner, String name) {
+        return owner.equals("kotlinx/coroutines/BuildersKt") && BUILDER_NAMES.contains(name);
     }
 }
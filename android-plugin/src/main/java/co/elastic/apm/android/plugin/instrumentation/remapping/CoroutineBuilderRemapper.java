@@ -30,6 +30,6 @@ public class CoroutineBuilderRemapper extends ClassVisitor {
 
     @Override
     public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-        return new CoroutineLaunchCallMethodRemapper(super.visitMethod(access, name, descriptor, signature, exceptions));
+        return new CoroutineBuilderCallMethodRemapper(super.visitMethod(access, name, descriptor, signature, exceptions));
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.instrumentation.remapping;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Redirects the calls to the Flow terminal operators that get traced, which are either the
+ * collect member of Flow, or extension functions of FlowKt, to their replacements in
+ * FlowExtensions.kt. The collect calls on shared and state flows are left untouched, as they never
+ * complete.
+ */
+public class FlowOperatorCallMethodRemapper extends MethodVisitor {
+    private static final String FLOW = "kotlinx/coroutines/flow/Flow";
+    private static final String COLLECT_DESCRIPTOR = "(Lkotlinx/coroutines/flow/FlowCollector;Lkotlin/coroutines/Continuation;)Ljava/lang/Object;";
+    private static final Set<String> EXTENSION_NAMES = new HashSet<>();
+    private final String elasticFlowOwner;
+
+    static {
+        EXTENSION_NAMES.add("first");
+        EXTENSION_NAMES.add("toList");
+        EXTENSION_NAMES.add("toList$default");
+    }
+
+    protected FlowOperatorCallMethodRemapper(MethodVisitor methodVisitor) {
+        super(Opcodes.ASM9, methodVisitor);
+        elasticFlowOwner = "co/elastic/apm/android/sdk/instrumentation/FlowExtensionsKt";
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        if (opcode == Opcodes.INVOKEINTERFACE && owner.equals(FLOW) && name.equals("collect") && descriptor.equals(COLLECT_DESCRIPTOR)) {
+            super.visitMethodInsn(Opcodes.INVOKESTATIC, elasticFlowOwner, name, "(L" + FLOW + ";" + descriptor.substring(1), false);
+        } else if (opcode == Opcodes.INVOKESTATIC && owner.equals("kotlinx/coroutines/flow/FlowKt") && EXTENSION_NAMES.contains(name)) {
+            super.visitMethodInsn(opcode, elasticFlowOwner, name, descriptor, isInterface);
+        } else {
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+        }
+    }
+}
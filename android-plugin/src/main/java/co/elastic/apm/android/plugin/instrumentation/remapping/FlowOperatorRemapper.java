@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.instrumentation.remapping;
+
+import com.android.build.api.instrumentation.ClassContext;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+/**
+ * Only remaps the terminal call sites of flows. The ones within flows or collectors, such as the
+ * bodies of intermediate operators, including those inlined from kotlinx.coroutines like map, and
+ * the lambdas of flow builders, collect their upstream flow on behalf of their own collector, so
+ * they're left untouched to avoid creating a span for each operator of a chain.
+ */
+public class FlowOperatorRemapper extends ClassVisitor {
+    private static final String FLOW = "kotlinx.coroutines.flow.Flow";
+    private static final String FLOW_COLLECTOR = "kotlinx.coroutines.flow.FlowCollector";
+    private static final String FLOW_COLLECTOR_TYPE = "Lkotlinx/coroutines/flow/FlowCollector";
+    private final ClassContext classContext;
+    private boolean withinFlowOperator;
+
+    public FlowOperatorRemapper(ClassVisitor classVisitor, ClassContext classContext) {
+        super(Opcodes.ASM9, classVisitor);
+        this.classContext = classContext;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        List<String> allInterfaces = classContext.getCurrentClassData().getInterfaces();
+        // Lambdas that receive a FlowCollector, such as the ones passed to flow {} or transform {}.
+        withinFlowOperator = allInterfaces.contains(FLOW) || allInterfaces.contains(FLOW_COLLECTOR)
+                || (signature != null && signature.contains(FLOW_COLLECTOR_TYPE));
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        MethodVisitor methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+        if (withinFlowOperator || descriptor.contains(FLOW_COLLECTOR_TYPE)) {
+            return methodVisitor;
+        }
+        return new FlowOperatorCallMethodRemapper(methodVisitor);
+    }
+}
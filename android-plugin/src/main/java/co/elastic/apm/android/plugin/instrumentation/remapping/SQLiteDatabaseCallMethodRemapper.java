@@ -0,0 +1,61 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.instrumentation.remapping;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Redirects the calls to the framework's SQLiteDatabase that run statements to the agent's
+ * SQLiteDatabaseCalls helpers, which trace them.
+ */
+public class SQLiteDatabaseCallMethodRemapper extends MethodVisitor {
+    private static final String SQLITE_DATABASE = "android/database/sqlite/SQLiteDatabase";
+    private static final String HELPER_OWNER = "co/elastic/apm/android/sdk/internal/instrumentation/database/SQLiteDatabaseCalls";
+    private static final Set<String> TARGETS = new HashSet<>();
+
+    static {
+        TARGETS.add("rawQuery(Ljava/lang/String;[Ljava/lang/String;)Landroid/database/Cursor;");
+        TARGETS.add("rawQuery(Ljava/lang/String;[Ljava/lang/String;Landroid/os/CancellationSignal;)Landroid/database/Cursor;");
+        TARGETS.add("query(Ljava/lang/String;[Ljava/lang/String;Ljava/lang/String;[Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)Landroid/database/Cursor;");
+        TARGETS.add("query(Ljava/lang/String;[Ljava/lang/String;Ljava/lang/String;[Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)Landroid/database/Cursor;");
+        TARGETS.add("execSQL(Ljava/lang/String;)V");
+        TARGETS.add("execSQL(Ljava/lang/String;[Ljava/lang/Object;)V");
+        TARGETS.add("insert(Ljava/lang/String;Ljava/lang/String;Landroid/content/ContentValues;)J");
+        TARGETS.add("update(Ljava/lang/String;Landroid/content/ContentValues;Ljava/lang/String;[Ljava/lang/String;)I");
+        TARGETS.add("delete(Ljava/lang/String;Ljava/lang/String;[Ljava/lang/String;)I");
+    }
+
+    protected SQLiteDatabaseCallMethodRemapper(MethodVisitor methodVisitor) {
+        super(Opcodes.ASM9, methodVisitor);
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        // SQLiteDatabase is final, so its calls always have it as their owner.
+        if (opcode == Opcodes.INVOKEVIRTUAL && owner.equals(SQLITE_DATABASE) && TARGETS.contains(name + descriptor)) {
+            super.visitMethodInsn(Opcodes.INVOKESTATIC, HELPER_OWNER, name, "(L" + SQLITE_DATABASE + ";" + descriptor.substring(1), false);
+        } else {
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+        }
+    }
+}
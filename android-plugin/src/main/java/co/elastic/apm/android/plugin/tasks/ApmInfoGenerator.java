@@ -18,6 +18,15 @@
  */
 package co.elastic.apm.android.plugin.tasks;
 
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Ownership;
+import net.bytebuddy.description.modifier.TypeManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.internal.provider.MissingValueException;
@@ -32,6 +41,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import co.elastic.apm.android.common.ApmInfo;
@@ -60,9 +72,15 @@ public abstract class ApmInfoGenerator extends DefaultTask {
     @Input
     public abstract Property<String> getOkHttpVersion();
 
+    @Input
+    public abstract Property<String> getJvmTargetVersion();
+
     @OutputDirectory
     public abstract DirectoryProperty getOutputDir();
 
+    @OutputDirectory
+    public abstract DirectoryProperty getClassesOutputDir();
+
 
     private static final String SERVICE_NAME_ENVIRONMENT_VARIABLE = "ELASTIC_APM_SERVICE_NAME";
     private static final String SERVICE_VERSION_ENVIRONMENT_VARIABLE = "ELASTIC_APM_SERVICE_VERSION";
@@ -71,20 +89,25 @@ public abstract class ApmInfoGenerator extends DefaultTask {
 
     @TaskAction
     public void execute() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(ApmInfo.KEY_SERVICE_NAME, provideServiceName());
+        values.put(ApmInfo.KEY_SERVICE_VERSION, provideServiceVersion());
+        values.put(ApmInfo.KEY_SERVER_URL, provideServerUrl());
+        values.put(ApmInfo.KEY_SERVICE_ENVIRONMENT, getVariantName().get());
+        values.put(ApmInfo.KEY_SERVER_SECRET_TOKEN, provideSecretToken());
+        values.put(ApmInfo.KEY_SCOPE_OKHTTP_VERSION, getOkHttpVersion().getOrNull());
+
+        storePropertiesFile(values);
+        storeGeneratedClass(values);
+    }
+
+    private void storePropertiesFile(Map<String, String> values) {
         File propertiesFile = new File(getOutputDir().get().getAsFile(), ApmInfo.ASSET_FILE_NAME);
         Properties properties = new Properties();
-        properties.put(ApmInfo.KEY_SERVICE_NAME, provideServiceName());
-        properties.put(ApmInfo.KEY_SERVICE_VERSION, provideServiceVersion());
-        properties.put(ApmInfo.KEY_SERVER_URL, provideServerUrl());
-        properties.put(ApmInfo.KEY_SERVICE_ENVIRONMENT, getVariantName().get());
-
-        String secretToken = provideSecretToken();
-        if (secretToken != null) {
-            properties.put(ApmInfo.KEY_SERVER_SECRET_TOKEN, secretToken);
-        }
-        String okhttpVersion = getOkHttpVersion().getOrNull();
-        if (okhttpVersion != null) {
-            properties.put(ApmInfo.KEY_SCOPE_OKHTTP_VERSION, okhttpVersion);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                properties.put(entry.getKey(), entry.getValue());
+            }
         }
 
         try (OutputStream outputStream = new FileOutputStream(propertiesFile)) {
@@ -94,6 +117,35 @@ public abstract class ApmInfoGenerator extends DefaultTask {
         }
     }
 
+    /**
+     * Generates a class with a static final field per value, which are read by the agent at
+     * runtime instead of the properties file. Missing optional values get null fields.
+     */
+    private void storeGeneratedClass(Map<String, String> values) {
+        String name = ApmInfo.GENERATED_CLASS_NAME;
+        ClassFileVersion classFileVersion = ClassFileVersion.ofJavaVersionString(getJvmTargetVersion().get());
+        DynamicType.Builder<Object> builder = new ByteBuddy(classFileVersion)
+                .subclass(Object.class, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+                .name(name)
+                .modifiers(Visibility.PUBLIC, TypeManifestation.FINAL);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            DynamicType.Builder.FieldDefinition.Optional.Valuable<Object> field = builder.defineField(
+                    ApmInfo.getGeneratedFieldName(entry.getKey()), String.class,
+                    Visibility.PUBLIC, Ownership.STATIC, FieldManifestation.FINAL);
+            builder = (entry.getValue() != null) ? field.value(entry.getValue()) : field;
+        }
+
+        File file = new File(getClassesOutputDir().get().getAsFile(), name.replace('.', '/') + ".class");
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new RuntimeException("Could not create dirs for " + file);
+        }
+        try {
+            Files.write(file.toPath(), builder.make().getBytes());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private String provideSecretToken() {
         return provideOptionalValue("secretToken", SECRET_TOKEN_ENVIRONMENT_VARIABLE, getSecretToken());
     }
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.plugin.tasks;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import co.elastic.apm.android.common.LifecycleMethodsConfig;
+
+/**
+ * Stores the lifecycle methods configured in the elasticApm extension into a jar that's added to
+ * the instrumentation classpath, where the lifecycle plugins read them from.
+ */
+public abstract class LifecycleMethodsConfigGenerator extends DefaultTask {
+
+    @Input
+    public abstract ListProperty<String> getActivityMethods();
+
+    @Input
+    public abstract ListProperty<String> getExtraActivityMethods();
+
+    @Input
+    public abstract ListProperty<String> getFragmentMethods();
+
+    @Input
+    public abstract ListProperty<String> getExtraFragmentMethods();
+
+    @OutputFile
+    public abstract RegularFileProperty getOutputJar();
+
+    @TaskAction
+    public void execute() {
+        LifecycleMethodsConfig config = new LifecycleMethodsConfig();
+        config.setMethods(LifecycleMethodsConfig.TYPE_ACTIVITY, getActivityMethods().get(), getExtraActivityMethods().get());
+        config.setMethods(LifecycleMethodsConfig.TYPE_FRAGMENT, getFragmentMethods().get(), getExtraFragmentMethods().get());
+
+        File jar = getOutputJar().get().getAsFile();
+        try (JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            ZipEntry entry = new ZipEntry(LifecycleMethodsConfig.RESOURCE_NAME);
+            // Keeps the jar's content stable across builds with the same config.
+            entry.setTime(0);
+            outputStream.putNextEntry(entry);
+            config.store(outputStream);
+            outputStream.closeEntry();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -18,16 +18,30 @@
  */
 package co.elastic.apm.android.sdk.instrumentation
 
+import co.elastic.apm.android.sdk.internal.instrumentation.coroutines.CoroutineMeasurement
 import co.elastic.apm.android.sdk.internal.otel.SpanUtilities
 import io.opentelemetry.context.Context
 import io.opentelemetry.extension.kotlin.asContextElement
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.currentCoroutineContext
 import kotlinx.coroutines.launch
+import kotlin.coroutines.ContinuationInterceptor
 import kotlin.coroutines.CoroutineContext
 import kotlin.coroutines.EmptyCoroutineContext
+import kotlinx.coroutines.runBlocking as coroutinesRunBlocking
+import kotlinx.coroutines.withContext as coroutinesWithContext
 
+/*
+ * Replacements for the kotlinx.coroutines builders, which are remapped at build time by the
+ * Gradle plugin. Each of them has the same JVM signature as the builder it replaces, including
+ * the synthetic "$default" ones generated for their default parameters, which might receive
+ * nulls for the parameters that weren't provided. Except for runBlocking, which doesn't get
+ * dispatched, they're also measured through CoroutineMeasurement.
+ */
 
 fun launch(
     scope: CoroutineScope,
@@ -38,10 +52,66 @@ fun launch(
     val context = providedContext ?: EmptyCoroutineContext
     val start = providedStart ?: CoroutineStart.DEFAULT
 
+    val measurement = CoroutineMeasurement.start(context[ContinuationInterceptor] ?: scope.coroutineContext[ContinuationInterceptor])
+        ?: return scope.launch(withCurrentSpanContext(context), start, block)
+
+    val job = scope.launch(measurement.contextFor(context), start, measurement.wrap(block))
+    measurement.endSpanOnCompletion(job)
+    return job
+}
+
+fun <T> async(
+    scope: CoroutineScope,
+    providedContext: CoroutineContext? = EmptyCoroutineContext,
+    providedStart: CoroutineStart? = CoroutineStart.DEFAULT,
+    block: suspend CoroutineScope.() -> T
+): Deferred<T> {
+    val context = providedContext ?: EmptyCoroutineContext
+    val start = providedStart ?: CoroutineStart.DEFAULT
+
+    val measurement = CoroutineMeasurement.start(context[ContinuationInterceptor] ?: scope.coroutineContext[ContinuationInterceptor])
+        ?: return scope.async(withCurrentSpanContext(context), start, block)
+
+    val deferred = scope.async(measurement.contextFor(context), start, measurement.wrap(block))
+    measurement.endSpanOnCompletion(deferred)
+    return deferred
+}
+
+suspend fun <T> withContext(
+    context: CoroutineContext,
+    block: suspend CoroutineScope.() -> T
+): T {
+    val measurement = CoroutineMeasurement.start(context[ContinuationInterceptor] ?: currentCoroutineContext()[ContinuationInterceptor])
+        ?: return coroutinesWithContext(withCurrentSpanContext(context), block)
+
+    var error: Throwable? = null
+    try {
+        return coroutinesWithContext(measurement.contextFor(context), measurement.wrap(block))
+    } catch (t: Throwable) {
+        error = t
+        throw t
+    } finally {
+        measurement.endSpan(error)
+    }
+}
+
+fun <T> runBlocking(
+    providedContext: CoroutineContext? = EmptyCoroutineContext,
+    block: suspend CoroutineScope.() -> T
+): T {
+    val context = providedContext ?: EmptyCoroutineContext
+
+    return coroutinesRunBlocking(withCurrentSpanContext(context), block)
+}
+
+/**
+ * Only adds the current OpenTelemetry context when there's a span in progress, so that no context
+ * element is allocated otherwise.
+ */
+private fun withCurrentSpanContext(context: CoroutineContext): CoroutineContext {
     return if (SpanUtilities.runningSpanFound()) {
-        val spanContext = Context.current().asContextElement()
-        scope.launch(context + spanContext, start, block)
+        context + Context.current().asContextElement()
     } else {
-        scope.launch(context, start, block)
+        context
     }
 }
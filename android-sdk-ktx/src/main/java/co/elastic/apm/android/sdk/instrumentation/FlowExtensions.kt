@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.instrumentation
+
+import co.elastic.apm.android.sdk.ElasticApmAgent
+import co.elastic.apm.android.sdk.internal.instrumentation.coroutines.MeasuredFlow
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.toList
+
+/*
+ * Replacements for the Flow terminal operators, which are remapped at build time by the Gradle
+ * plugin. Each of them has the same JVM signature as the operator it replaces, with the receiver
+ * as its first parameter. Flows are only measured when flow tracing is enabled. Shared and state
+ * flows referenced as plain flows are only measured by first, as their collect and toList never
+ * complete.
+ */
+
+suspend fun <T> collect(flow: Flow<T>, collector: FlowCollector<T>) {
+    if (!isFlowTracingEnabled() || flow is SharedFlow<*>) {
+        return flow.collect(collector)
+    }
+    val measuredFlow = MeasuredFlow(flow, "collect")
+    measure(measuredFlow) { measuredFlow.collect(collector) }
+}
+
+suspend fun <T> first(flow: Flow<T>): T {
+    if (!isFlowTracingEnabled()) {
+        return flow.first()
+    }
+    val measuredFlow = MeasuredFlow(flow, "first")
+    return measure(measuredFlow) { measuredFlow.first() }
+}
+
+suspend fun <T> first(flow: Flow<T>, predicate: suspend (T) -> Boolean): T {
+    if (!isFlowTracingEnabled()) {
+        return flow.first(predicate)
+    }
+    val measuredFlow = MeasuredFlow(flow, "first")
+    return measure(measuredFlow) { measuredFlow.first(predicate) }
+}
+
+suspend fun <T> toList(flow: Flow<T>, providedDestination: MutableList<T>? = ArrayList()): List<T> {
+    val destination = providedDestination ?: ArrayList()
+    if (!isFlowTracingEnabled() || flow is SharedFlow<*>) {
+        return flow.toList(destination)
+    }
+    val measuredFlow = MeasuredFlow(flow, "toList")
+    return measure(measuredFlow) { measuredFlow.toList(destination) }
+}
+
+private inline fun <R> measure(measuredFlow: MeasuredFlow<*>, collection: () -> R): R {
+    var error: Throwable? = null
+    try {
+        return collection()
+    } catch (t: Throwable) {
+        error = t
+        throw t
+    } finally {
+        measuredFlow.end(error)
+    }
+}
+
+private fun isFlowTracingEnabled(): Boolean {
+    return ElasticApmAgent.isInitialized() && ElasticApmAgent.get().configuration.flowTracingEnabled
+}
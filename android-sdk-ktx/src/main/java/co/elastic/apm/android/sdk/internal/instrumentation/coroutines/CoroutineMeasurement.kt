@@ -0,0 +1,169 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.coroutines
+
+import co.elastic.apm.android.sdk.ElasticApmAgent
+import co.elastic.apm.android.sdk.internal.otel.SpanUtilities
+import co.elastic.apm.android.sdk.metrics.common.tools.ElasticMeters
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+import io.opentelemetry.api.common.AttributeKey
+import io.opentelemetry.api.common.Attributes
+import io.opentelemetry.api.metrics.DoubleHistogram
+import io.opentelemetry.api.trace.Span
+import io.opentelemetry.api.trace.StatusCode
+import io.opentelemetry.context.Context
+import io.opentelemetry.extension.kotlin.asContextElement
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.ContinuationInterceptor
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Measures how long a coroutine waits for its dispatcher, from the moment it's launched until it
+ * first runs, as well as how long it takes from then until it completes, including the time it
+ * spends suspended. Both are recorded into per-dispatcher histograms and, when coroutine spans are
+ * enabled and there's a span in progress, into a child span that covers the whole coroutine.
+ */
+internal class CoroutineMeasurement private constructor(
+    private val dispatcherAttributes: Attributes,
+    private val span: Span?
+) {
+    private val launchedAtNanos = System.nanoTime()
+
+    fun contextFor(context: CoroutineContext): CoroutineContext {
+        return when {
+            span != null -> context + Context.current().with(span).asContextElement()
+            SpanUtilities.runningSpanFound() -> context + Context.current().asContextElement()
+            else -> context
+        }
+    }
+
+    fun <T> wrap(block: suspend CoroutineScope.() -> T): suspend CoroutineScope.() -> T {
+        return {
+            val startedAtNanos = System.nanoTime()
+            val queueTimeNanos = startedAtNanos - launchedAtNanos
+            histograms?.queueTime?.record(toMillis(queueTimeNanos), dispatcherAttributes)
+            span?.setAttribute(QUEUE_TIME, TimeUnit.NANOSECONDS.toMillis(queueTimeNanos))
+            try {
+                block()
+            } finally {
+                histograms?.executionTime?.record(toMillis(System.nanoTime() - startedAtNanos), dispatcherAttributes)
+            }
+        }
+    }
+
+    /**
+     * Ends the span once the job completes, even if it gets cancelled before it starts.
+     */
+    fun endSpanOnCompletion(job: Job) {
+        if (span != null) {
+            job.invokeOnCompletion(::endSpan)
+        }
+    }
+
+    fun endSpan(cause: Throwable?) {
+        if (span == null) {
+            return
+        }
+        if (cause != null && cause !is CancellationException) {
+            span.recordException(cause)
+            span.setStatus(StatusCode.ERROR)
+        }
+        span.end()
+    }
+
+    companion object {
+        private val DISPATCHER = AttributeKey.stringKey("coroutine.dispatcher")
+        private val QUEUE_TIME = AttributeKey.longKey("coroutine.queue_time_ms")
+        private val attributesByDispatcher = ConcurrentHashMap<String, Attributes>()
+        @Volatile
+        private var readyHistograms: Histograms? = null
+
+        /**
+         * Null until the agent is ready, as histograms created before then would stay no-op. For
+         * the same reason, they're created again if the agent is.
+         */
+        private val histograms: Histograms?
+            get() {
+                if (!ElasticApmAgent.isReady()) {
+                    return null
+                }
+                val agent = ElasticApmAgent.get()
+                val current = readyHistograms
+                if (current != null && current.agent === agent) {
+                    return current
+                }
+                return Histograms(agent).also { readyHistograms = it }
+            }
+
+        /**
+         * Returns null until the agent is initialized, in which case coroutines aren't measured.
+         *
+         * @param interceptor The dispatcher the coroutine runs on, which is the one passed to its
+         * builder or, if none was, the one of its scope.
+         */
+        fun start(interceptor: ContinuationInterceptor?): CoroutineMeasurement? {
+            if (!ElasticApmAgent.isInitialized()) {
+                return null
+            }
+            val dispatcherName = getDispatcherName(interceptor)
+            val attributes = attributesByDispatcher.getOrPut(dispatcherName) {
+                Attributes.of(DISPATCHER, dispatcherName)
+            }
+            var span: Span? = null
+            if (ElasticApmAgent.get().configuration.coroutineSpansEnabled && SpanUtilities.runningSpanFound()) {
+                span = ElasticTracer.coroutine().spanBuilder("Coroutine on $dispatcherName")
+                    .setAttribute(DISPATCHER, dispatcherName)
+                    .startSpan()
+            }
+            return CoroutineMeasurement(attributes, span)
+        }
+
+        /**
+         * Keeps the names of custom dispatchers, whose string representation usually contains
+         * their instance hash, to their class name.
+         */
+        private fun getDispatcherName(interceptor: ContinuationInterceptor?): String {
+            if (interceptor == null) {
+                return "Dispatchers.Default"
+            }
+            val name = interceptor.toString()
+            return if (name.startsWith("Dispatchers.")) name else interceptor.javaClass.simpleName
+        }
+
+        private fun toMillis(nanos: Long): Double {
+            return nanos / 1_000_000.0
+        }
+    }
+
+    private class Histograms(val agent: ElasticApmAgent) {
+        private val meter = ElasticMeters.create("Kotlin Coroutine")
+        val queueTime: DoubleHistogram = meter.histogramBuilder("coroutine.dispatcher.queue_time")
+            .setDescription("Time coroutines wait for their dispatcher before they first run")
+            .setUnit("ms")
+            .build()
+        val executionTime: DoubleHistogram = meter.histogramBuilder("coroutine.execution_time")
+            .setDescription("Time from the moment coroutines first run until they complete")
+            .setUnit("ms")
+            .build()
+    }
+}
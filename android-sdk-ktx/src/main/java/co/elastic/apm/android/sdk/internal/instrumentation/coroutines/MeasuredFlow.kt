@@ -0,0 +1,74 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.coroutines
+
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+import io.opentelemetry.api.common.AttributeKey
+import io.opentelemetry.api.trace.Span
+import io.opentelemetry.api.trace.StatusCode
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import java.util.concurrent.TimeUnit
+
+/**
+ * Wraps a flow for a single collection, in order to create a span that covers it, containing the
+ * time it took to emit its first value and the amount of values it emitted. Emissions are only
+ * counted, so they don't allocate anything.
+ */
+internal class MeasuredFlow<T>(private val upstream: Flow<T>, operator: String) : Flow<T> {
+    private val startNanos = System.nanoTime()
+    private val span: Span = ElasticTracer.coroutine().spanBuilder("Flow.$operator")
+        .setAttribute(FLOW_CLASS, upstream.javaClass.name)
+        .startSpan()
+    private var emissions = 0L
+    private var firstEmissionNanos = -1L
+
+    override suspend fun collect(collector: FlowCollector<T>) {
+        upstream.collect(CountingCollector(collector))
+    }
+
+    fun end(error: Throwable?) {
+        span.setAttribute(EMISSIONS, emissions)
+        if (firstEmissionNanos != -1L) {
+            span.setAttribute(TIME_TO_FIRST_EMISSION, TimeUnit.NANOSECONDS.toMillis(firstEmissionNanos - startNanos))
+        }
+        if (error != null && error !is CancellationException) {
+            span.recordException(error)
+            span.setStatus(StatusCode.ERROR)
+        }
+        span.end()
+    }
+
+    private inner class CountingCollector(private val downstream: FlowCollector<T>) : FlowCollector<T> {
+
+        override suspend fun emit(value: T) {
+            if (emissions++ == 0L) {
+                firstEmissionNanos = System.nanoTime()
+            }
+            downstream.emit(value)
+        }
+    }
+
+    companion object {
+        private val FLOW_CLASS = AttributeKey.stringKey("flow.class")
+        private val EMISSIONS = AttributeKey.longKey("flow.emissions")
+        private val TIME_TO_FIRST_EMISSION = AttributeKey.longKey("flow.time_to_first_emission_ms")
+    }
+}
@@ -0,0 +1,4 @@
+# Generated by the Gradle plugin and only read through reflection by ApmMetadataService.
+-keep class co.elastic.apm.android.common.Generated_ApmInfo {
+    public static java.lang.String *;
+}
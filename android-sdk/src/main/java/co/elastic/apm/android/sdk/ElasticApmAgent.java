@@ -18,36 +18,63 @@
  */
 package co.elastic.apm.android.sdk;
 
+import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
 
 import co.elastic.apm.android.common.internal.logging.Elog;
 import co.elastic.apm.android.sdk.attributes.AttributesCompose;
+import co.elastic.apm.android.sdk.internal.attributes.GlobalAttributesCache;
+import co.elastic.apm.android.sdk.internal.instrumentation.FirstFrameSpanEnder;
+import co.elastic.apm.android.sdk.internal.instrumentation.LifecycleMultiMethodSpan;
+import co.elastic.apm.android.sdk.internal.instrumentation.frames.FrameMetricsTracker;
+import co.elastic.apm.android.sdk.internal.instrumentation.profiler.ScreenLoadProfiler;
+import co.elastic.apm.android.sdk.internal.instrumentation.stall.MainThreadWatchdog;
+import co.elastic.apm.android.sdk.internal.instrumentation.startup.AppStartupTracker;
 import co.elastic.apm.android.sdk.internal.logging.AndroidLoggerFactory;
+import co.elastic.apm.android.sdk.internal.otel.deferred.DeferredOpenTelemetry;
 import co.elastic.apm.android.sdk.internal.services.Service;
 import co.elastic.apm.android.sdk.internal.services.ServiceManager;
+import co.elastic.apm.android.sdk.internal.services.devicestate.DeviceStateService;
+import co.elastic.apm.android.sdk.internal.services.devicestate.ThrottlingSampler;
 import co.elastic.apm.android.sdk.internal.services.metadata.ApmMetadataService;
 import co.elastic.apm.android.sdk.internal.services.network.NetworkService;
 import co.elastic.apm.android.sdk.internal.services.permissions.AndroidPermissionService;
+import co.elastic.apm.android.sdk.metrics.common.tools.ElasticMeters;
 import co.elastic.apm.android.sdk.providers.Provider;
 import co.elastic.apm.android.sdk.providers.SimpleProvider;
 import co.elastic.apm.android.sdk.traces.connectivity.Connectivity;
+import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OkHttpClientMetrics;
 import co.elastic.apm.android.sdk.traces.otel.processor.ElasticSpanProcessor;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.OpenTelemetrySdkBuilder;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
 import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 
 public final class ElasticApmAgent {
 
     public final ElasticApmConfiguration configuration;
-    private static ElasticApmAgent instance;
+    private static volatile ElasticApmAgent instance;
+    private final Context appContext;
     private final Provider<Connectivity> connectivityProvider;
     private final ServiceManager serviceManager;
     private final AttributesCompose globalAttributes;
+    private DeviceStateService deviceStateService;
+    private MainThreadWatchdog mainThreadWatchdog;
+    private DeferredOpenTelemetry deferredOpenTelemetry;
+    private volatile boolean ready = false;
 
     public static ElasticApmAgent get() {
         verifyInitialization();
@@ -70,6 +97,7 @@ public final class ElasticApmAgent {
         if (instance != null) {
             throw new IllegalStateException("Already initialized");
         }
+        long initializationStartNanos = System.nanoTime();
         Elog.init(new AndroidLoggerFactory());
         Provider<Connectivity> connectivityProvider;
         if (connectivity != null) {
@@ -84,10 +112,39 @@ public final class ElasticApmAgent {
             apmConfiguration = ElasticApmConfiguration.getDefault();
         }
         instance = new ElasticApmAgent(context, connectivityProvider, apmConfiguration);
-        instance.onInitializationFinished();
+        if (apmConfiguration.asyncInitializationEnabled) {
+            instance.initializeInBackground(initializationStartNanos);
+        } else {
+            instance.onInitializationFinished();
+            AppStartupTracker.get().onAgentInitialized(initializationStartNanos, System.nanoTime());
+        }
         return instance;
     }
 
+    public static boolean isInitialized() {
+        return instance != null;
+    }
+
+    /**
+     * @return Whether the OpenTelemetry SDK is set up. It only differs from {@link #isInitialized()}
+     * when {@link ElasticApmConfiguration.Builder#setAsyncInitializationEnabled(boolean)} is enabled,
+     * in which case the SDK is set up on a background thread.
+     */
+    public static boolean isReady() {
+        ElasticApmAgent agent = instance;
+        return agent != null && agent.ready;
+    }
+
+    /**
+     * Reports that the given activity is fully displayed, meaning that its asynchronously loaded
+     * content is shown too. Creates a span measuring the time to full display, starting along
+     * with the activity's " - View appearing" span. It also calls {@link Activity#reportFullyDrawn()}.
+     */
+    public static void reportFullyDrawn(Activity activity) {
+        activity.reportFullyDrawn();
+        LifecycleMultiMethodSpan.onReportFullyDrawn(activity);
+    }
+
     private static void verifyInitialization() {
         if (instance == null) {
             throw new IllegalStateException("ElasticApmAgent hasn't been initialized");
@@ -95,6 +152,11 @@ public final class ElasticApmAgent {
     }
 
     public void destroy() {
+        if (mainThreadWatchdog != null) {
+            mainThreadWatchdog.stop();
+        }
+        ScreenLoadProfiler.uninstall();
+        OkHttpClientMetrics.reset();
         serviceManager.stop();
         instance = null;
     }
@@ -104,37 +166,124 @@ public final class ElasticApmAgent {
     }
 
     ElasticApmAgent(Context context, Provider<Connectivity> connectivityProvider, ElasticApmConfiguration configuration) {
-        Context appContext = context.getApplicationContext();
+        appContext = context.getApplicationContext();
         this.connectivityProvider = connectivityProvider;
         this.configuration = configuration;
         serviceManager = new ServiceManager();
-        serviceManager.addService(new NetworkService(appContext));
-        serviceManager.addService(new AndroidPermissionService(appContext));
+        AndroidPermissionService permissionService = new AndroidPermissionService(appContext);
+        serviceManager.addService(permissionService);
+        serviceManager.addService(new NetworkService(appContext, permissionService));
         serviceManager.addService(new ApmMetadataService(appContext));
+        if (configuration.deviceStateThrottlingEnabled) {
+            deviceStateService = new DeviceStateService(appContext);
+            serviceManager.addService(deviceStateService);
+        }
         globalAttributes = AttributesCompose.global(appContext, configuration.serviceName, configuration.serviceVersion);
+        if (appContext instanceof Application) {
+            if (configuration.startupTracingEnabled) {
+                AppStartupTracker.get().start((Application) appContext);
+            } else {
+                AppStartupTracker.get().stop();
+            }
+            if (configuration.frameMetricsEnabled) {
+                FrameMetricsTracker.get().start((Application) appContext);
+            }
+            FirstFrameSpanEnder.start((Application) appContext);
+            if (configuration.mainThreadStallThresholdMillis > 0) {
+                mainThreadWatchdog = new MainThreadWatchdog(configuration.mainThreadStallThresholdMillis);
+                mainThreadWatchdog.start((Application) appContext);
+            }
+        }
+    }
+
+    /**
+     * Registers a global OpenTelemetry instance that buffers the spans started until the actual
+     * one is built, so that everything else can be done off the caller's thread.
+     */
+    private void initializeInBackground(long initializationStartNanos) {
+        deferredOpenTelemetry = new DeferredOpenTelemetry(getContextPropagator());
+        GlobalOpenTelemetry.set(deferredOpenTelemetry);
+        Thread thread = new Thread(() -> {
+            try {
+                onInitializationFinished();
+                AppStartupTracker.get().onAgentInitialized(initializationStartNanos, System.nanoTime());
+            } catch (RuntimeException e) {
+                Elog.getLogger().error("Could not initialize the agent", e);
+            }
+        }, "elastic-apm-initialization");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void onInitializationFinished() {
         serviceManager.start();
         initializeOpentelemetry();
+        Meter agentMeter = ElasticMeters.create("Elastic APM Agent");
+        serviceManager.onMetricsReady(agentMeter);
+        if (deviceStateService != null) {
+            deviceStateService.onMetricsReady(agentMeter);
+        }
+        if (configuration.screenLoadProfilingIntervalMillis > 0) {
+            ScreenLoadProfiler.install(configuration.screenLoadProfilingIntervalMillis, configuration.screenLoadProfilingThresholdMillis);
+        }
+        ready = true;
     }
 
     private void initializeOpentelemetry() {
-        OpenTelemetrySdk.builder()
-                .setTracerProvider(getTracerProvider())
-                .setPropagators(getContextPropagator())
-                .buildAndRegisterGlobal();
+        Resource resource = Resource.getDefault()
+                .merge(Resource.create(getGlobalAttributes()));
+        OpenTelemetrySdkBuilder builder = OpenTelemetrySdk.builder()
+                .setTracerProvider(getTracerProvider(resource))
+                .setPropagators(getContextPropagator());
+        MetricReader metricReader = connectivityProvider.get().getMetricReader();
+        if (metricReader != null) {
+            builder.setMeterProvider(getMeterProvider(resource, metricReader));
+        }
+        if (deferredOpenTelemetry != null) {
+            deferredOpenTelemetry.onReady(builder.build());
+        } else {
+            builder.buildAndRegisterGlobal();
+        }
     }
 
-    private SdkTracerProvider getTracerProvider() {
-        Resource resource = Resource.getDefault()
-                .merge(globalAttributes.provideAsResource());
+    /**
+     * The global attributes are cached, as they rarely change between launches and computing them
+     * needs disk I/O. The cache is written from a background thread, but on a cache miss they're
+     * computed on the initializing one, which is only off the main thread with the asynchronous
+     * initialization, as the SDK's resource can't be built without them.
+     */
+    private Attributes getGlobalAttributes() {
+        GlobalAttributesCache cache = GlobalAttributesCache.create(appContext, configuration.serviceName, configuration.serviceVersion);
+        Attributes attributes = cache.read();
+        if (attributes != null) {
+            return attributes;
+        }
+        Attributes computed = globalAttributes.provide();
+        Thread thread = new Thread(() -> cache.write(computed), "elastic-global-attributes-cache");
+        thread.setDaemon(true);
+        thread.start();
+        return computed;
+    }
 
+    private SdkTracerProvider getTracerProvider(Resource resource) {
         ElasticSpanProcessor processor = getProcessor();
         processor.addAllExclusionRules(configuration.httpTraceConfiguration.exclusionRules);
 
-        return SdkTracerProvider.builder()
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
                 .addSpanProcessor(processor)
+                .setResource(resource);
+        if (deferredOpenTelemetry != null) {
+            builder.setIdGenerator(deferredOpenTelemetry.getIdGenerator());
+        }
+        if (deviceStateService != null) {
+            builder.setSampler(Sampler.parentBased(new ThrottlingSampler()));
+        }
+        return builder.build();
+    }
+
+    private SdkMeterProvider getMeterProvider(Resource resource, MetricReader metricReader) {
+        return SdkMeterProvider.builder()
+                .registerMetricReader(metricReader)
                 .setResource(resource)
                 .build();
     }
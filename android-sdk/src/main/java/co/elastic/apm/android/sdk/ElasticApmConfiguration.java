@@ -27,6 +27,15 @@ public final class ElasticApmConfiguration {
     public final String serviceName;
     public final String serviceVersion;
     public final SessionIdProvider sessionIdProvider;
+    public final boolean startupTracingEnabled;
+    public final boolean frameMetricsEnabled;
+    public final long mainThreadStallThresholdMillis;
+    public final long screenLoadProfilingIntervalMillis;
+    public final long screenLoadProfilingThresholdMillis;
+    public final boolean coroutineSpansEnabled;
+    public final boolean flowTracingEnabled;
+    public final boolean asyncInitializationEnabled;
+    public final boolean deviceStateThrottlingEnabled;
 
     public static Builder builder() {
         return new Builder();
@@ -41,6 +50,15 @@ public final class ElasticApmConfiguration {
         serviceName = builder.serviceName;
         serviceVersion = builder.serviceVersion;
         sessionIdProvider = builder.sessionIdProvider;
+        startupTracingEnabled = builder.startupTracingEnabled;
+        frameMetricsEnabled = builder.frameMetricsEnabled;
+        mainThreadStallThresholdMillis = builder.mainThreadStallThresholdMillis;
+        screenLoadProfilingIntervalMillis = builder.screenLoadProfilingIntervalMillis;
+        screenLoadProfilingThresholdMillis = builder.screenLoadProfilingThresholdMillis;
+        coroutineSpansEnabled = builder.coroutineSpansEnabled;
+        flowTracingEnabled = builder.flowTracingEnabled;
+        asyncInitializationEnabled = builder.asyncInitializationEnabled;
+        deviceStateThrottlingEnabled = builder.deviceStateThrottlingEnabled;
     }
 
     public static class Builder {
@@ -48,6 +66,15 @@ public final class ElasticApmConfiguration {
         private String serviceName;
         private String serviceVersion;
         private SessionIdProvider sessionIdProvider;
+        private boolean startupTracingEnabled = true;
+        private boolean frameMetricsEnabled = true;
+        private long mainThreadStallThresholdMillis = 1000;
+        private long screenLoadProfilingIntervalMillis = 0;
+        private long screenLoadProfilingThresholdMillis = 0;
+        private boolean coroutineSpansEnabled = false;
+        private boolean flowTracingEnabled = false;
+        private boolean asyncInitializationEnabled = false;
+        private boolean deviceStateThrottlingEnabled = false;
 
         private Builder() {
         }
@@ -72,6 +99,93 @@ public final class ElasticApmConfiguration {
             return this;
         }
 
+        /**
+         * Enables or disables the "Application startup" traces for cold, warm and hot app launches.
+         * Enabled by default.
+         */
+        public Builder setStartupTracingEnabled(boolean startupTracingEnabled) {
+            this.startupTracingEnabled = startupTracingEnabled;
+            return this;
+        }
+
+        /**
+         * Enables or disables tracking the frames rendered by each resumed Activity, which are
+         * counted in the "app.frames" metrics. A " - Frames" span is also created for the screens
+         * that rendered slow or frozen frames while resumed. Enabled by default.
+         */
+        public Builder setFrameMetricsEnabled(boolean frameMetricsEnabled) {
+            this.frameMetricsEnabled = frameMetricsEnabled;
+            return this;
+        }
+
+        /**
+         * Sets how long the main thread can go without processing messages before it's considered
+         * stalled, in which case a "Main thread stall" span is created. It's only checked while the
+         * app has a started Activity. Defaults to 1000ms, setting it to zero or less disables the
+         * stall detection.
+         */
+        public Builder setMainThreadStallThresholdMillis(long mainThreadStallThresholdMillis) {
+            this.mainThreadStallThresholdMillis = mainThreadStallThresholdMillis;
+            return this;
+        }
+
+        /**
+         * Enables sampling the main thread's stack while Activities and Fragments are loading. The
+         * samples are attached to their " - View appearing" spans as collapsed stacks, only if
+         * they take longer than the given threshold. Disabled by default.
+         *
+         * @param samplingIntervalMillis Time between samples.
+         * @param thresholdMillis        Minimum duration of a screen load for its samples to be kept.
+         */
+        public Builder setScreenLoadProfiling(long samplingIntervalMillis, long thresholdMillis) {
+            this.screenLoadProfilingIntervalMillis = samplingIntervalMillis;
+            this.screenLoadProfilingThresholdMillis = thresholdMillis;
+            return this;
+        }
+
+        /**
+         * Enables creating a span for each coroutine launched, or each withContext block run,
+         * while there's a span in progress. These spans cover the time the coroutine waited for
+         * its dispatcher, as well as its execution, and become the parent of the spans created
+         * within it. Disabled by default.
+         */
+        public Builder setCoroutineSpansEnabled(boolean coroutineSpansEnabled) {
+            this.coroutineSpansEnabled = coroutineSpansEnabled;
+            return this;
+        }
+
+        /**
+         * Enables creating a span for each Kotlin Flow collected through the collect, first or
+         * toList terminal operators, containing the time it took to emit its first value and the
+         * amount of values it emitted. Disabled by default.
+         */
+        public Builder setFlowTracingEnabled(boolean flowTracingEnabled) {
+            this.flowTracingEnabled = flowTracingEnabled;
+            return this;
+        }
+
+        /**
+         * Makes {@link ElasticApmAgent#initialize(android.content.Context)} return right away and
+         * set up the agent on a background thread instead. Spans started in the meantime are kept
+         * in a small buffer and sent once the agent is ready, whereas metrics recorded before then
+         * are dropped. Disabled by default.
+         */
+        public Builder setAsyncInitializationEnabled(boolean asyncInitializationEnabled) {
+            this.asyncInitializationEnabled = asyncInitializationEnabled;
+            return this;
+        }
+
+        /**
+         * Makes the agent shed work in steps while the device is hot, low on battery, in battery
+         * saver mode or low on memory, by sampling fewer traces, pausing the screen load profiler,
+         * skipping the HTTP connection and throughput measurements and exporting less often.
+         * Disabled by default.
+         */
+        public Builder setDeviceStateThrottlingEnabled(boolean deviceStateThrottlingEnabled) {
+            this.deviceStateThrottlingEnabled = deviceStateThrottlingEnabled;
+            return this;
+        }
+
         public ElasticApmConfiguration build() {
             if (httpTraceConfiguration == null) {
                 httpTraceConfiguration = HttpTraceConfiguration.builder().build();
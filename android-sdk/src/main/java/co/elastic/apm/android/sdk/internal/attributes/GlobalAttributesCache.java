@@ -0,0 +1,158 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.attributes;
+
+import android.content.Context;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import co.elastic.apm.android.sdk.BuildConfig;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+
+/**
+ * Keeps the global resource attributes in a small binary file, so that later launches can get
+ * them with a single read instead of computing them again, which needs SharedPreferences and
+ * asset I/O. The file starts with a fingerprint of everything the attributes are derived from,
+ * such as the OS build and the app's installed APK, and it's ignored when the fingerprint doesn't
+ * match anymore. Only string attributes can be cached.
+ */
+public final class GlobalAttributesCache {
+    private static final String FILE_NAME = "co_elastic_apm_global_attributes";
+    private static final int MAGIC = 0x45414741;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MAX_FILE_SIZE = 16 * 1024;
+    private final File file;
+    private final String fingerprint;
+
+    public static GlobalAttributesCache create(Context appContext, @Nullable String serviceName, @Nullable String serviceVersion) {
+        String fingerprint = Build.FINGERPRINT
+                + '|' + BuildConfig.APM_AGENT_VERSION
+                + '|' + new File(appContext.getPackageCodePath()).lastModified()
+                + '|' + serviceName
+                + '|' + serviceVersion;
+        return new GlobalAttributesCache(new File(appContext.getNoBackupFilesDir(), FILE_NAME), fingerprint);
+    }
+
+    GlobalAttributesCache(File file, String fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return The cached attributes, or null if there are none, or they're outdated.
+     */
+    @Nullable
+    public Attributes read() {
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            FileChannel channel = inputStream.getChannel();
+            long size = channel.size();
+            if (size > MAX_FILE_SIZE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            if (channel.read(buffer, 0) != size) {
+                return null;
+            }
+            return decode(buffer.array());
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Elog.getLogger().debug("Could not read the cached global attributes", e);
+            return null;
+        }
+    }
+
+    /**
+     * Does I/O, so it shouldn't be called from the main thread.
+     */
+    public void write(Attributes attributes) {
+        byte[] bytes;
+        try {
+            bytes = encode(attributes);
+        } catch (IOException e) {
+            Elog.getLogger().debug("Could not encode the global attributes", e);
+            return;
+        }
+        if (bytes == null) {
+            return;
+        }
+        // Written aside and then renamed, so that a partially written file is never read.
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            outputStream.write(bytes);
+        } catch (IOException e) {
+            Elog.getLogger().debug("Could not cache the global attributes", e);
+            return;
+        }
+        if (!tempFile.renameTo(file)) {
+            Elog.getLogger().debug("Could not move the cached global attributes into place");
+        }
+    }
+
+    @Nullable
+    private Attributes decode(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION || !fingerprint.equals(input.readUTF())) {
+            return null;
+        }
+        int count = input.readShort();
+        AttributesBuilder builder = Attributes.builder();
+        for (int i = 0; i < count; i++) {
+            builder.put(input.readUTF(), input.readUTF());
+        }
+        return builder.build();
+    }
+
+    @Nullable
+    private byte[] encode(Attributes attributes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeUTF(fingerprint);
+            output.writeShort(attributes.size());
+            for (Map.Entry<AttributeKey<?>, Object> entry : attributes.asMap().entrySet()) {
+                if (entry.getKey().getType() != AttributeType.STRING) {
+                    return null;
+                }
+                output.writeUTF(entry.getKey().getKey());
+                output.writeUTF((String) entry.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation;
+
+import android.os.Build;
+import android.os.Handler;
+
+import androidx.annotation.RequiresApi;
+
+import com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.sdk.internal.otel.SpanUtilities;
+import io.opentelemetry.context.Context;
+
+/**
+ * Replacements for the calls that hand tasks over to other threads, which are remapped at build
+ * time by the Gradle plugin. When there's a span in progress, the tasks are wrapped so that they
+ * run within the caller's context. Otherwise, they're passed through as they are, so that the
+ * untraced case doesn't allocate anything.
+ */
+public final class ContextPropagation {
+    /**
+     * Keeps the wrappers of the runnables posted to handlers, so that they can still be removed,
+     * or looked up, using the original runnable. The wrappers are referenced weakly, they only live
+     * while they are pending in a handler's queue, and they hold their original runnable, so the
+     * entries go away once none of them is pending.
+     */
+    private static final WeakConcurrentMap<Runnable, PendingWrappers> handlerWrappers = new WeakConcurrentMap.WithInlinedExpunction<>();
+
+    private ContextPropagation() {
+    }
+
+    public static Runnable wrap(Runnable runnable) {
+        if (runnable == null || SpanUtilities.runningSpanNotFound()) {
+            return runnable;
+        }
+        return Context.current().wrap(runnable);
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        if (callable == null || SpanUtilities.runningSpanNotFound()) {
+            return callable;
+        }
+        return Context.current().wrap(callable);
+    }
+
+    public static void execute(Executor executor, Runnable command) {
+        executor.execute(wrap(command));
+    }
+
+    public static Future<?> submit(ExecutorService executor, Runnable task) {
+        return executor.submit(wrap(task));
+    }
+
+    public static <T> Future<T> submit(ExecutorService executor, Runnable task, T result) {
+        return executor.submit(wrap(task), result);
+    }
+
+    public static <T> Future<T> submit(ExecutorService executor, Callable<T> task) {
+        return executor.submit(wrap(task));
+    }
+
+    public static ScheduledFuture<?> schedule(ScheduledExecutorService executor, Runnable command, long delay, TimeUnit unit) {
+        return executor.schedule(wrap(command), delay, unit);
+    }
+
+    public static <V> ScheduledFuture<V> schedule(ScheduledExecutorService executor, Callable<V> callable, long delay, TimeUnit unit) {
+        return executor.schedule(wrap(callable), delay, unit);
+    }
+
+    public static boolean post(Handler handler, Runnable r) {
+        return handler.post(wrapForHandler(r));
+    }
+
+    public static boolean postDelayed(Handler handler, Runnable r, long delayMillis) {
+        return handler.postDelayed(wrapForHandler(r), delayMillis);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.P)
+    public static boolean postDelayed(Handler handler, Runnable r, Object token, long delayMillis) {
+        return handler.postDelayed(wrapForHandler(r), token, delayMillis);
+    }
+
+    public static boolean postAtTime(Handler handler, Runnable r, long uptimeMillis) {
+        return handler.postAtTime(wrapForHandler(r), uptimeMillis);
+    }
+
+    public static boolean postAtTime(Handler handler, Runnable r, Object token, long uptimeMillis) {
+        return handler.postAtTime(wrapForHandler(r), token, uptimeMillis);
+    }
+
+    public static boolean postAtFrontOfQueue(Handler handler, Runnable r) {
+        return handler.postAtFrontOfQueue(wrapForHandler(r));
+    }
+
+    public static void removeCallbacks(Handler handler, Runnable r) {
+        handler.removeCallbacks(r);
+        for (Runnable wrapper : getHandlerWrappers(r)) {
+            handler.removeCallbacks(wrapper);
+        }
+    }
+
+    public static void removeCallbacks(Handler handler, Runnable r, Object token) {
+        handler.removeCallbacks(r, token);
+        for (Runnable wrapper : getHandlerWrappers(r)) {
+            handler.removeCallbacks(wrapper, token);
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    public static boolean hasCallbacks(Handler handler, Runnable r) {
+        if (handler.hasCallbacks(r)) {
+            return true;
+        }
+        for (Runnable wrapper : getHandlerWrappers(r)) {
+            if (handler.hasCallbacks(wrapper)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Runnable wrapForHandler(Runnable runnable) {
+        Runnable wrapped = wrap(runnable);
+        if (wrapped != runnable) {
+            PendingWrappers pendingWrappers = handlerWrappers.get(runnable);
+            if (pendingWrappers == null) {
+                pendingWrappers = new PendingWrappers();
+                PendingWrappers previous = handlerWrappers.putIfAbsent(runnable, pendingWrappers);
+                if (previous != null) {
+                    pendingWrappers = previous;
+                }
+            }
+            pendingWrappers.add(wrapped);
+        }
+        return wrapped;
+    }
+
+    private static List<Runnable> getHandlerWrappers(Runnable runnable) {
+        if (runnable == null) {
+            return Collections.emptyList();
+        }
+        PendingWrappers pendingWrappers = handlerWrappers.get(runnable);
+        if (pendingWrappers == null) {
+            return Collections.emptyList();
+        }
+        return pendingWrappers.get();
+    }
+
+    /**
+     * The wrappers of every post of the same runnable that might still be pending, as it can be
+     * posted several times, and to different handlers, before being removed.
+     */
+    private static final class PendingWrappers {
+        private final List<WeakReference<Runnable>> wrappers = new ArrayList<>(1);
+
+        private synchronized void add(Runnable wrapper) {
+            removeCollected();
+            wrappers.add(new WeakReference<>(wrapper));
+        }
+
+        private synchronized List<Runnable> get() {
+            List<Runnable> pending = new ArrayList<>(wrappers.size());
+            for (WeakReference<Runnable> wrapperReference : wrappers) {
+                Runnable wrapper = wrapperReference.get();
+                if (wrapper != null) {
+                    pending.add(wrapper);
+                }
+            }
+            return pending;
+        }
+
+        private void removeCollected() {
+            Iterator<WeakReference<Runnable>> iterator = wrappers.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().get() == null) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
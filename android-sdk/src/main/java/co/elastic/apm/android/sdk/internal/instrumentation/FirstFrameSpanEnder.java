@@ -0,0 +1,191 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Ends a span once the next frame of a view hierarchy gets drawn. The span isn't ended right away
+ * from {@link #onDraw()} but from a message posted to the front of the main queue, so that it also
+ * covers the draw pass of the frame. If no frame gets drawn, the span ends when the view is
+ * detached from its window or when its activity stops, whatever happens first.
+ */
+public final class FirstFrameSpanEnder implements ViewTreeObserver.OnDrawListener, View.OnAttachStateChangeListener, Runnable {
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final ActivityStopListener activityStopListener = new ActivityStopListener();
+    // Only accessed from the main thread.
+    private static final List<FirstFrameSpanEnder> pendingEnders = new ArrayList<>();
+    private final View view;
+    private final Span span;
+    @Nullable
+    private final Activity activity;
+    @Nullable
+    private final Consumer<Span> beforeEnd;
+    private boolean drawn = false;
+    private boolean ended = false;
+
+    /**
+     * Listens for the activities that stop before their first frame, to end their pending spans.
+     */
+    public static void start(Application application) {
+        activityStopListener.start(application);
+    }
+
+    public static void endOnNextFrame(View view, Span span) {
+        endOnNextFrame(view, span, null, null);
+    }
+
+    /**
+     * @param activity  The activity that shows the view, found from the view's context when null.
+     * @param beforeEnd Called with the span right before ending it.
+     */
+    public static void endOnNextFrame(View view, Span span, @Nullable Activity activity, @Nullable Consumer<Span> beforeEnd) {
+        FirstFrameSpanEnder ender = new FirstFrameSpanEnder(view, span, activity != null ? activity : findActivity(view.getContext()), beforeEnd);
+        pendingEnders.add(ender);
+        view.getViewTreeObserver().addOnDrawListener(ender);
+        view.addOnAttachStateChangeListener(ender);
+        // Makes sure a frame gets scheduled even if nothing in the hierarchy is pending to change.
+        view.invalidate();
+    }
+
+    private FirstFrameSpanEnder(View view, Span span, @Nullable Activity activity, @Nullable Consumer<Span> beforeEnd) {
+        this.view = view;
+        this.span = span;
+        this.activity = activity;
+        this.beforeEnd = beforeEnd;
+    }
+
+    @Override
+    public void onDraw() {
+        if (drawn) {
+            return;
+        }
+        drawn = true;
+        // Draw listeners can't be removed while the draw pass is being dispatched.
+        mainHandler.postAtFrontOfQueue(this);
+    }
+
+    @Override
+    public void run() {
+        end();
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+        end();
+    }
+
+    private void end() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        pendingEnders.remove(this);
+        view.removeOnAttachStateChangeListener(this);
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        if (observer.isAlive()) {
+            observer.removeOnDrawListener(this);
+        }
+        if (beforeEnd != null) {
+            beforeEnd.accept(span);
+        }
+        span.end();
+    }
+
+    private static void onActivityStopped(Activity activity) {
+        for (FirstFrameSpanEnder ender : new ArrayList<>(pendingEnders)) {
+            if (ender.activity == activity) {
+                ender.end();
+            }
+        }
+    }
+
+    @Nullable
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    private static final class ActivityStopListener implements Application.ActivityLifecycleCallbacks {
+        private Application application;
+
+        private synchronized void start(Application application) {
+            if (this.application != null) {
+                this.application.unregisterActivityLifecycleCallbacks(this);
+            }
+            this.application = application;
+            application.registerActivityLifecycleCallbacks(this);
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+            FirstFrameSpanEnder.onActivityStopped(activity);
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
+    }
+}
@@ -19,26 +19,44 @@
 package co.elastic.apm.android.sdk.internal.instrumentation;
 
 import android.app.Activity;
+import android.view.View;
+import android.view.Window;
 
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
+import androidx.annotation.Nullable;
 
-import co.elastic.apm.android.sdk.internal.otel.SpanUtilities;
+import com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap;
+
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import co.elastic.apm.android.sdk.internal.instrumentation.profiler.ScreenLoadProfiler;
 import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
-
+import io.opentelemetry.sdk.trace.ReadableSpan;
+
+/**
+ * Creates a root span for each Activity or Fragment instance that covers its lifecycle methods,
+ * as well as a child span for each of those methods. The open root spans are kept weakly by their
+ * owners and set explicitly as the parent of their method spans, so that overlapping screens, such
+ * as a dialog fragment over an activity, get their own root spans. Only the method spans are made
+ * current, and only within the scope of their methods.
+ */
 public class LifecycleMultiMethodSpan {
     private static final String ROOT_SPAN_SUFFIX = " - View appearing";
-
-    public static SpanWithScope onMethodEnter(String ownerName, String methodName, ElasticTracer tracer) {
-        ensureRootSpanIsCreated(ownerName, tracer);
-        SpanBuilder spanBuilder = tracer.spanBuilder(methodName);
+    private static final String FULL_DISPLAY_SPAN_SUFFIX = " - Full display";
+    private static final WeakConcurrentMap<Object, Span> openRootSpans = new WeakConcurrentMap.WithInlinedExpunction<>();
+    private static final WeakConcurrentMap<Activity, Span> fullDisplayPendingRootSpans = new WeakConcurrentMap.WithInlinedExpunction<>();
+    private static volatile Span lastRootSpan = Span.getInvalid();
+
+    public static SpanWithScope onMethodEnter(Object owner, String ownerName, String methodName, ElasticTracer tracer) {
+        Span rootSpan = getOrCreateRootSpan(owner, ownerName, tracer);
+        SpanBuilder spanBuilder = tracer.spanBuilder(methodName)
+                .setParent(Context.current().with(rootSpan));
         Span span = spanBuilder.startSpan();
         Scope scope = span.makeCurrent();
 
@@ -46,15 +64,87 @@ public class LifecycleMultiMethodSpan {
     }
 
     public static void onMethodExit(Object owner, SpanWithScope spanWithScope, Throwable thrown, boolean endRoot) {
+        onMethodExit(owner, spanWithScope, thrown, endRoot, getActivityDecorView(owner));
+    }
+
+    /**
+     * @param firstFrameView When not null, the root span ends once the next frame of this view
+     *                       gets drawn, instead of when the lifecycle method returns, or as a
+     *                       fallback when the view is detached or its activity stops.
+     */
+    public static void onMethodExit(Object owner, SpanWithScope spanWithScope, Throwable thrown, boolean endRoot, @Nullable View firstFrameView) {
         endMethodSpan(spanWithScope, thrown);
 
-        Span rootSpan = Span.current();
         if (endRoot || thrown != null) {
+            Span rootSpan = openRootSpans.remove(owner);
+            if (rootSpan == null) {
+                return;
+            }
             trySetActivityTitleAsRootSpanName(owner, rootSpan);
-            endRootSpanAndCleanUp(rootSpan);
+            if (thrown == null && firstFrameView != null) {
+                Activity activity = null;
+                if (owner instanceof Activity) {
+                    activity = (Activity) owner;
+                    fullDisplayPendingRootSpans.put(activity, rootSpan);
+                }
+                FirstFrameSpanEnder.endOnNextFrame(firstFrameView, rootSpan, activity, LifecycleMultiMethodSpan::onRootSpanEnding);
+            } else {
+                onRootSpanEnding(rootSpan);
+                rootSpan.end();
+            }
+        }
+    }
+
+    /**
+     * Creates a span that starts along with the given activity's root span and ends now, to
+     * measure the time until the activity's content is fully displayed.
+     */
+    public static void onReportFullyDrawn(Activity activity) {
+        Span rootSpan = fullDisplayPendingRootSpans.remove(activity);
+        if (rootSpan == null) {
+            Elog.getLogger().debug("No pending root span found for fully drawn activity: " + activity);
+            return;
+        }
+        SpanBuilder spanBuilder = ElasticTracer.androidActivity()
+                .spanBuilder(activity.getClass().getName() + FULL_DISPLAY_SPAN_SUFFIX)
+                .setParent(Context.root().with(rootSpan));
+        if (rootSpan instanceof ReadableSpan) {
+            spanBuilder.setStartTimestamp(((ReadableSpan) rootSpan).toSpanData().getStartEpochNanos(), TimeUnit.NANOSECONDS);
+        }
+        spanBuilder.startSpan().end();
+    }
+
+    /**
+     * Can be called from any thread.
+     *
+     * @return The context of the root span that's currently open, or an invalid one if there's none.
+     */
+    public static SpanContext getOpenRootSpanContext() {
+        Span rootSpan = lastRootSpan;
+        if (!rootSpan.isRecording()) {
+            return SpanContext.getInvalid();
+        }
+        return rootSpan.getSpanContext();
+    }
+
+    private static void onRootSpanEnding(Span rootSpan) {
+        ScreenLoadProfiler profiler = ScreenLoadProfiler.get();
+        if (profiler != null) {
+            profiler.stop(rootSpan);
         }
     }
 
+    @Nullable
+    private static View getActivityDecorView(Object owner) {
+        if (owner instanceof Activity) {
+            Window window = ((Activity) owner).getWindow();
+            if (window != null) {
+                return window.getDecorView();
+            }
+        }
+        return null;
+    }
+
     private static void trySetActivityTitleAsRootSpanName(Object owner, Span rootSpan) {
         if (owner instanceof Activity) {
             CharSequence activityTitle = ((Activity) owner).getTitle();
@@ -75,32 +165,21 @@ public class LifecycleMultiMethodSpan {
         scope.close();
     }
 
-    private static void endRootSpanAndCleanUp(Span rootSpan) {
-        rootSpan.end();
-        Context.root().makeCurrent();
-    }
-
-    private static void ensureRootSpanIsCreated(String ownerName, ElasticTracer tracer) {
-        if (SpanUtilities.runningSpanNotFound()) {
-            SpanBuilder spanBuilder = tracer.spanBuilder(ownerName + ROOT_SPAN_SUFFIX);
-            Span rootSpan = spanBuilder.startSpan();
-            rootSpan.makeCurrent();
-        }
-    }
-
-    public static class SpanWithScope {
-        public final Span span;
-        public final Scope scope;
-
-        public SpanWithScope(Span span, Scope scope) {
-            this.span = span;
-            this.scope = scope;
+    private static Span getOrCreateRootSpan(Object owner, String ownerName, ElasticTracer tracer) {
+        Span rootSpan = openRootSpans.get(owner);
+        if (rootSpan == null) {
+            // Screens loaded within another one's lifecycle methods, such as fragments added in
+            // an activity's onCreate, get their own traces too.
+            rootSpan = tracer.spanBuilder(ownerName + ROOT_SPAN_SUFFIX)
+                    .setNoParent()
+                    .startSpan();
+            openRootSpans.put(owner, rootSpan);
+            lastRootSpan = rootSpan;
+            ScreenLoadProfiler profiler = ScreenLoadProfiler.get();
+            if (profiler != null) {
+                profiler.start(rootSpan);
+            }
         }
-    }
-
-    @Retention(RetentionPolicy.RUNTIME)
-    @Target(ElementType.METHOD)
-    public @interface LastMethod {
-
+        return rootSpan;
     }
 }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.sdk.traces.annotations.Traced;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+
+/**
+ * Creates the spans of the methods annotated with {@link Traced}.
+ */
+public final class TracedMethodSpan {
+
+    private TracedMethodSpan() {
+    }
+
+    public static SpanWithScope start(String name) {
+        Span span = ElasticTracer.tracedMethods().spanBuilder(name).startSpan();
+        return new SpanWithScope(span, span.makeCurrent());
+    }
+
+    public static void end(SpanWithScope spanWithScope, Throwable thrown) {
+        spanWithScope.scope.close();
+        endSpan(spanWithScope.span, thrown);
+    }
+
+    /**
+     * Creates the method's span, after the method returned, only if it took at least the minimum
+     * duration.
+     */
+    public static void endIfSlow(String name, long startNanos, long minDurationMs, Throwable thrown) {
+        long durationNanos = System.nanoTime() - startNanos;
+        if (durationNanos < TimeUnit.MILLISECONDS.toNanos(minDurationMs)) {
+            return;
+        }
+        long endEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        Span span = ElasticTracer.tracedMethods().spanBuilder(name)
+                .setStartTimestamp(endEpochNanos - durationNanos, TimeUnit.NANOSECONDS)
+                .startSpan();
+        endSpan(span, thrown, endEpochNanos);
+    }
+
+    private static void endSpan(Span span, Throwable thrown) {
+        recordThrown(span, thrown);
+        span.end();
+    }
+
+    private static void endSpan(Span span, Throwable thrown, long endEpochNanos) {
+        recordThrown(span, thrown);
+        span.end(endEpochNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void recordThrown(Span span, Throwable thrown) {
+        if (thrown != null) {
+            span.recordException(thrown);
+            span.setStatus(StatusCode.ERROR);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.database;
+
+import android.database.Cursor;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+/**
+ * Creates the spans of SQLite statements, as children of the current span, which is usually the
+ * one of the lifecycle method or DAO method that runs them.
+ * <p>
+ * SQLite cursors run their query lazily, once they're first accessed, so query spans count the
+ * rows of their cursors before ending, which runs the query within the span instead of whenever
+ * the cursor is first read.
+ */
+public final class DatabaseSpan {
+    static final AttributeKey<Long> ROWS = AttributeKey.longKey("db.rows");
+    static final AttributeKey<Boolean> MAIN_THREAD = AttributeKey.booleanKey("db.main_thread");
+    private static final String DB_SYSTEM_SQLITE = "sqlite";
+    private static final String DAO_IMPL_SUFFIX = "_Impl";
+    private static final SqlStatementNormalizer normalizer = new SqlStatementNormalizer(256);
+
+    private DatabaseSpan() {
+    }
+
+    public static Span start(String sql) {
+        return start(ElasticTracer.sqlite(), normalizer.normalize(sql), isMainThread());
+    }
+
+    public static Span startQuery(Object supportQuery) {
+        return start(((SupportSQLiteQuery) supportQuery).getSql());
+    }
+
+    /**
+     * For the insert, update and delete methods of SupportSQLiteDatabase, which take the table and
+     * where clause instead of a statement.
+     */
+    public static Span startSupportTableOperation(String methodName, Object[] args) {
+        switch (methodName) {
+            case "insert":
+                return startTableOperation("INSERT INTO", (String) args[0], null);
+            case "update":
+                return startTableOperation("UPDATE", (String) args[0], (String) args[3]);
+            default:
+                return startTableOperation("DELETE FROM", (String) args[0], (String) args[1]);
+        }
+    }
+
+    public static Span startTableOperation(String statementPrefix, String table, @Nullable String whereClause) {
+        String sql = statementPrefix + " " + table;
+        if (whereClause != null && !whereClause.isEmpty()) {
+            sql += " WHERE " + whereClause;
+        }
+        return start(sql);
+    }
+
+    static Span start(Tracer tracer, SqlStatementNormalizer.NormalizedStatement statement, boolean mainThread) {
+        return tracer.spanBuilder(statement.spanName)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute(SemanticAttributes.DB_SYSTEM, DB_SYSTEM_SQLITE)
+                .setAttribute(SemanticAttributes.DB_STATEMENT, statement.statement)
+                .setAttribute(MAIN_THREAD, mainThread)
+                .startSpan();
+    }
+
+    /**
+     * Ends the span using the result of the call that ran its statement, which are the rows of
+     * cursors or the affected rows of updates and deletes.
+     */
+    public static void end(Span span, @Nullable Object result, @Nullable Throwable thrown) {
+        if (thrown != null) {
+            span.recordException(thrown);
+            span.setStatus(StatusCode.ERROR);
+        } else if (result instanceof Cursor) {
+            try {
+                span.setAttribute(ROWS, (long) ((Cursor) result).getCount());
+            } catch (RuntimeException e) {
+                span.recordException(e);
+                span.setStatus(StatusCode.ERROR);
+            }
+        } else if (result instanceof Integer) {
+            span.setAttribute(ROWS, (long) (Integer) result);
+        }
+        span.end();
+    }
+
+    public static DaoMethodSpan onDaoMethodEnter(String daoImplName, String methodName) {
+        String daoName = daoImplName.substring(daoImplName.lastIndexOf('.') + 1);
+        if (daoName.endsWith(DAO_IMPL_SUFFIX)) {
+            daoName = daoName.substring(0, daoName.length() - DAO_IMPL_SUFFIX.length());
+        }
+        Span span = ElasticTracer.sqlite().spanBuilder(daoName + "." + methodName)
+                .setAttribute(SemanticAttributes.DB_SYSTEM, DB_SYSTEM_SQLITE)
+                .setAttribute(MAIN_THREAD, isMainThread())
+                .startSpan();
+        return new DaoMethodSpan(span, span.makeCurrent());
+    }
+
+    public static void onDaoMethodExit(DaoMethodSpan daoMethodSpan, @Nullable Throwable thrown) {
+        daoMethodSpan.scope.close();
+        if (thrown != null) {
+            daoMethodSpan.span.recordException(thrown);
+            daoMethodSpan.span.setStatus(StatusCode.ERROR);
+        }
+        daoMethodSpan.span.end();
+    }
+
+    private static boolean isMainThread() {
+        return Looper.getMainLooper().isCurrentThread();
+    }
+
+    public static final class DaoMethodSpan {
+        private final Span span;
+        private final Scope scope;
+
+        private DaoMethodSpan(Span span, Scope scope) {
+            this.span = span;
+            this.scope = scope;
+        }
+    }
+}
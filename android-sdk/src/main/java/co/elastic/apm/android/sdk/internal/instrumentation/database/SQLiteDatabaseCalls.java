@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.os.CancellationSignal;
+
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Replacements for the {@link SQLiteDatabase} calls made from the app's code, which are remapped
+ * at build time by the Gradle plugin, since framework classes can't be instrumented.
+ */
+public final class SQLiteDatabaseCalls {
+
+    private SQLiteDatabaseCalls() {
+    }
+
+    public static Cursor rawQuery(SQLiteDatabase database, String sql, String[] selectionArgs) {
+        Span span = DatabaseSpan.start(sql);
+        try {
+            Cursor cursor = database.rawQuery(sql, selectionArgs);
+            DatabaseSpan.end(span, cursor, null);
+            return cursor;
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static Cursor rawQuery(SQLiteDatabase database, String sql, String[] selectionArgs, CancellationSignal cancellationSignal) {
+        Span span = DatabaseSpan.start(sql);
+        try {
+            Cursor cursor = database.rawQuery(sql, selectionArgs, cancellationSignal);
+            DatabaseSpan.end(span, cursor, null);
+            return cursor;
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static Cursor query(SQLiteDatabase database, String table, String[] columns, String selection,
+                               String[] selectionArgs, String groupBy, String having, String orderBy) {
+        return query(database, table, columns, selection, selectionArgs, groupBy, having, orderBy, null);
+    }
+
+    public static Cursor query(SQLiteDatabase database, String table, String[] columns, String selection,
+                               String[] selectionArgs, String groupBy, String having, String orderBy, String limit) {
+        Span span = DatabaseSpan.start(SQLiteQueryBuilder.buildQueryString(false, table, columns, selection, groupBy, having, orderBy, limit));
+        try {
+            Cursor cursor = database.query(table, columns, selection, selectionArgs, groupBy, having, orderBy, limit);
+            DatabaseSpan.end(span, cursor, null);
+            return cursor;
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static void execSQL(SQLiteDatabase database, String sql) {
+        Span span = DatabaseSpan.start(sql);
+        try {
+            database.execSQL(sql);
+            DatabaseSpan.end(span, null, null);
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static void execSQL(SQLiteDatabase database, String sql, Object[] bindArgs) {
+        Span span = DatabaseSpan.start(sql);
+        try {
+            database.execSQL(sql, bindArgs);
+            DatabaseSpan.end(span, null, null);
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static long insert(SQLiteDatabase database, String table, String nullColumnHack, ContentValues values) {
+        Span span = DatabaseSpan.startTableOperation("INSERT INTO", table, null);
+        try {
+            long rowId = database.insert(table, nullColumnHack, values);
+            DatabaseSpan.end(span, null, null);
+            return rowId;
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static int update(SQLiteDatabase database, String table, ContentValues values, String whereClause, String[] whereArgs) {
+        Span span = DatabaseSpan.startTableOperation("UPDATE", table, whereClause);
+        try {
+            int rows = database.update(table, values, whereClause, whereArgs);
+            DatabaseSpan.end(span, rows, null);
+            return rows;
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+
+    public static int delete(SQLiteDatabase database, String table, String whereClause, String[] whereArgs) {
+        Span span = DatabaseSpan.startTableOperation("DELETE FROM", table, whereClause);
+        try {
+            int rows = database.delete(table, whereClause, whereArgs);
+            DatabaseSpan.end(span, rows, null);
+            return rows;
+        } catch (RuntimeException e) {
+            DatabaseSpan.end(span, null, e);
+            throw e;
+        }
+    }
+}
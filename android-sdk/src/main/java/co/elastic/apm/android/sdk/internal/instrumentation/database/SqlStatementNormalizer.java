@@ -0,0 +1,233 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.database;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns SQL statements into low cardinality ones, suitable for span names and grouping, by
+ * replacing their literals with placeholders, collapsing lists of placeholders, such as the ones
+ * in "IN (?, ?, ?)", into a single one, and removing comments and redundant whitespace. The
+ * results are kept in a bounded LRU cache keyed by the original statement, since apps usually run
+ * the same statements over and over.
+ */
+public final class SqlStatementNormalizer {
+    private static final int MAX_CACHEABLE_SQL_LENGTH = 4096;
+    private static final String DEFAULT_SPAN_NAME = "SQL";
+    private final Map<String, NormalizedStatement> cache;
+
+    public SqlStatementNormalizer(int maxCachedStatements) {
+        cache = new LinkedHashMap<String, NormalizedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NormalizedStatement> eldest) {
+                return size() > maxCachedStatements;
+            }
+        };
+    }
+
+    public NormalizedStatement normalize(String sql) {
+        synchronized (cache) {
+            NormalizedStatement cached = cache.get(sql);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String statement = normalizeStatement(sql);
+        NormalizedStatement normalized = new NormalizedStatement(statement, createSpanName(statement));
+        if (sql.length() <= MAX_CACHEABLE_SQL_LENGTH) {
+            synchronized (cache) {
+                cache.put(sql, normalized);
+            }
+        }
+        return normalized;
+    }
+
+    static String normalizeStatement(String sql) {
+        int length = sql.length();
+        StringBuilder builder = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                i++;
+                continue;
+            }
+            if (c == '-' && next == '-') {
+                i = skipLineComment(sql, i);
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                i = skipBlockComment(sql, i);
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                appendPlaceholder(builder);
+            } else if ((c == 'x' || c == 'X') && next == '\'' && !endsWithIdentifier(builder)) {
+                i = skipQuoted(sql, i + 1, '\'');
+                appendPlaceholder(builder);
+            } else if (c == '"' || c == '`' || c == '[') {
+                int end = skipQuoted(sql, i, c == '[' ? ']' : c);
+                builder.append(sql, i, end);
+                i = end;
+            } else if (isDigit(c) && !endsWithIdentifier(builder)) {
+                i = skipNumber(sql, i);
+                appendPlaceholder(builder);
+            } else if (c == '?') {
+                i++;
+                while (i < length && isDigit(sql.charAt(i))) {
+                    i++;
+                }
+                appendPlaceholder(builder);
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Uses the statement's operation, along with its main table when it's easy to find.
+     */
+    static String createSpanName(String statement) {
+        int operationEnd = indexOfSpace(statement, 0);
+        String operation = statement.substring(0, operationEnd).toUpperCase(Locale.US);
+        if (operation.isEmpty()) {
+            return DEFAULT_SPAN_NAME;
+        }
+        String tableKeyword;
+        switch (operation) {
+            case "SELECT":
+            case "DELETE":
+                tableKeyword = " FROM ";
+                break;
+            case "INSERT":
+            case "REPLACE":
+                tableKeyword = " INTO ";
+                break;
+            case "UPDATE":
+                return appendWord(operation, statement, operationEnd + 1);
+            default:
+                return operation;
+        }
+        int keywordIndex = statement.toUpperCase(Locale.US).indexOf(tableKeyword);
+        if (keywordIndex == -1) {
+            return operation;
+        }
+        return appendWord(operation, statement, keywordIndex + tableKeyword.length());
+    }
+
+    private static String appendWord(String operation, String statement, int start) {
+        if (start >= statement.length() || statement.charAt(start) == '(') {
+            return operation;
+        }
+        return operation + " " + statement.substring(start, indexOfSpace(statement, start));
+    }
+
+    private static int indexOfSpace(String statement, int from) {
+        int index = statement.indexOf(' ', from);
+        return index == -1 ? statement.length() : index;
+    }
+
+    private static void appendPlaceholder(StringBuilder builder) {
+        int length = builder.length();
+        if (length >= 3 && builder.charAt(length - 1) == ' ' && builder.charAt(length - 2) == ',' && builder.charAt(length - 3) == '?') {
+            builder.setLength(length - 2);
+        } else if (length >= 2 && builder.charAt(length - 1) == ',' && builder.charAt(length - 2) == '?') {
+            builder.setLength(length - 1);
+        } else {
+            builder.append('?');
+        }
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+        char last = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+
+    private static int skipQuoted(String sql, int start, char closing) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == closing) {
+                // Doubled quotes are escaped ones.
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == closing && closing != ']') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static int skipNumber(String sql, int start) {
+        int i = start;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (isDigit(c) || c == '.' || c == 'x' || c == 'X' || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
+                i++;
+            } else if ((c == '+' || c == '-') && (sql.charAt(i - 1) == 'e' || sql.charAt(i - 1) == 'E')) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipLineComment(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end == -1 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(String sql, int start) {
+        int end = sql.indexOf("*/", start + 2);
+        return end == -1 ? sql.length() : end + 2;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public static final class NormalizedStatement {
+        public final String statement;
+        public final String spanName;
+
+        private NormalizedStatement(String statement, String spanName) {
+            this.statement = statement;
+            this.spanName = spanName;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.frames;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.metrics.common.tools.ElasticMeters;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Tracks the frames rendered by each activity while it's resumed, using the
+ * {@link Window.OnFrameMetricsAvailableListener} API. Frame durations are aggregated into
+ * {@link FrameStats} from a single background thread, and once the activity pauses the summary is
+ * reported through the frame counters and, only if there were slow or frozen frames, as a
+ * " - Frames" span covering the time it was resumed. Frame metrics are only delivered when frames
+ * are drawn, so idle screens cost nothing.
+ */
+public final class FrameMetricsTracker implements Application.ActivityLifecycleCallbacks {
+    private static final FrameMetricsTracker INSTANCE = new FrameMetricsTracker();
+    private static final AttributeKey<String> SCREEN_NAME = AttributeKey.stringKey("screen.name");
+    private static final AttributeKey<Long> TOTAL_FRAMES = AttributeKey.longKey("frames.total");
+    private static final AttributeKey<Long> SLOW_FRAMES = AttributeKey.longKey("frames.slow");
+    private static final AttributeKey<Long> FROZEN_FRAMES = AttributeKey.longKey("frames.frozen");
+    private static final AttributeKey<Long> MAX_FRAME_DURATION = AttributeKey.longKey("frames.max_duration_ms");
+    private static final AttributeKey<List<Long>> HISTOGRAM_BOUNDS = AttributeKey.longArrayKey("frames.histogram.bounds_ms");
+    private static final AttributeKey<List<Long>> HISTOGRAM_COUNTS = AttributeKey.longArrayKey("frames.histogram.counts");
+    private static final String SPAN_NAME_SUFFIX = " - Frames";
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+    private final WeakConcurrentMap<Activity, ScreenFrames> resumedScreens = new WeakConcurrentMap.WithInlinedExpunction<>();
+    private Application application;
+    private Handler frameHandler;
+    private Counters counters;
+
+    public static FrameMetricsTracker get() {
+        return INSTANCE;
+    }
+
+    private FrameMetricsTracker() {
+    }
+
+    public synchronized void start(Application application) {
+        if (this.application != null) {
+            this.application.unregisterActivityLifecycleCallbacks(this);
+        }
+        this.application = application;
+        application.registerActivityLifecycleCallbacks(this);
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+        Window window = activity.getWindow();
+        if (window == null) {
+            return;
+        }
+        ScreenFrames screenFrames = new ScreenFrames(activity.getClass().getName(), getFrameBudgetNanos(activity));
+        try {
+            window.addOnFrameMetricsAvailableListener(screenFrames, getFrameHandler());
+            resumedScreens.put(activity, screenFrames);
+        } catch (RuntimeException e) {
+            Elog.getLogger().debug("Could not track frames for " + screenFrames.screenName, e);
+        }
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+        ScreenFrames screenFrames = resumedScreens.remove(activity);
+        if (screenFrames == null) {
+            return;
+        }
+        screenFrames.endEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        try {
+            activity.getWindow().removeOnFrameMetricsAvailableListener(screenFrames);
+        } catch (RuntimeException e) {
+            Elog.getLogger().debug("Could not stop tracking frames for " + screenFrames.screenName, e);
+        }
+        // Reported from the frames thread, after the frames already queued for this screen.
+        getFrameHandler().post(screenFrames);
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityStarted(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+    }
+
+    private synchronized Handler getFrameHandler() {
+        if (frameHandler == null) {
+            HandlerThread thread = new HandlerThread("elastic-frame-metrics");
+            thread.setDaemon(true);
+            thread.start();
+            frameHandler = new Handler(thread.getLooper());
+        }
+        return frameHandler;
+    }
+
+    private static long getFrameBudgetNanos(Activity activity) {
+        float refreshRate = DEFAULT_REFRESH_RATE;
+        Display display = activity.getWindowManager().getDefaultDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            refreshRate = display.getRefreshRate();
+        }
+        return (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+    }
+
+    private void report(ScreenFrames screenFrames) {
+        FrameStats stats = screenFrames.stats;
+        if (stats.getTotalFrames() == 0) {
+            return;
+        }
+        if (stats.hasJankyFrames()) {
+            reportSpan(screenFrames);
+        }
+
+        if (!ElasticApmAgent.isReady()) {
+            // The counters would stay no-op if they were created before the meter provider is set.
+            return;
+        }
+        Attributes attributes = Attributes.of(SCREEN_NAME, screenFrames.screenName);
+        Counters counters = getCounters();
+        counters.totalFrames.add(stats.getTotalFrames(), attributes);
+        counters.slowFrames.add(stats.getSlowFrames(), attributes);
+        counters.frozenFrames.add(stats.getFrozenFrames(), attributes);
+    }
+
+    private void reportSpan(ScreenFrames screenFrames) {
+        FrameStats stats = screenFrames.stats;
+        List<Long> bounds = new ArrayList<>(FrameStats.BUCKET_BOUNDS_MS.length);
+        for (long bound : FrameStats.BUCKET_BOUNDS_MS) {
+            bounds.add(bound);
+        }
+        List<Long> counts = new ArrayList<>(stats.getBucketsSize());
+        for (int i = 0; i < stats.getBucketsSize(); i++) {
+            counts.add(stats.getBucketCount(i));
+        }
+        ElasticTracer.androidActivity().spanBuilder(screenFrames.screenName + SPAN_NAME_SUFFIX)
+                .setNoParent()
+                .setStartTimestamp(screenFrames.startEpochNanos, TimeUnit.NANOSECONDS)
+                .setAttribute(TOTAL_FRAMES, stats.getTotalFrames())
+                .setAttribute(SLOW_FRAMES, stats.getSlowFrames())
+                .setAttribute(FROZEN_FRAMES, stats.getFrozenFrames())
+                .setAttribute(MAX_FRAME_DURATION, TimeUnit.NANOSECONDS.toMillis(stats.getMaxDurationNanos()))
+                .setAttribute(HISTOGRAM_BOUNDS, bounds)
+                .setAttribute(HISTOGRAM_COUNTS, counts)
+                .startSpan()
+                .end(screenFrames.endEpochNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counters getCounters() {
+        if (counters == null) {
+            counters = new Counters(ElasticMeters.create("Android Frames"));
+        }
+        return counters;
+    }
+
+    private static class Counters {
+        private final LongCounter totalFrames;
+        private final LongCounter slowFrames;
+        private final LongCounter frozenFrames;
+
+        private Counters(Meter meter) {
+            totalFrames = meter.counterBuilder("app.frames.total")
+                    .setDescription("Frames rendered by a screen")
+                    .build();
+            slowFrames = meter.counterBuilder("app.frames.slow")
+                    .setDescription("Frames that missed the display's frame deadline")
+                    .build();
+            frozenFrames = meter.counterBuilder("app.frames.frozen")
+                    .setDescription("Frames that took longer than 700ms to render")
+                    .build();
+        }
+    }
+
+    private class ScreenFrames implements Window.OnFrameMetricsAvailableListener, Runnable {
+        private final String screenName;
+        private final FrameStats stats;
+        private final long startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        private volatile long endEpochNanos;
+
+        private ScreenFrames(String screenName, long frameBudgetNanos) {
+            this.screenName = screenName;
+            this.stats = new FrameStats(frameBudgetNanos);
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+                // Already covered by the screen's " - View appearing" span.
+                return;
+            }
+            stats.record(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION));
+        }
+
+        @Override
+        public void run() {
+            report(this);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.frames;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates frame durations into a fixed-bucket histogram, along with slow and frozen frame
+ * counts. Recording a frame doesn't allocate.
+ */
+public final class FrameStats {
+    /**
+     * Upper bounds, inclusive, of each histogram bucket in milliseconds. There's an extra bucket
+     * for frames that take longer than the last bound.
+     */
+    public static final long[] BUCKET_BOUNDS_MS = {8, 16, 33, 50, 100, 250, 500, 700};
+    static final long FROZEN_FRAME_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(700);
+    private final long[] bucketCounts = new long[BUCKET_BOUNDS_MS.length + 1];
+    private final long slowFrameThresholdNanos;
+    private long totalFrames = 0;
+    private long slowFrames = 0;
+    private long frozenFrames = 0;
+    private long maxDurationNanos = 0;
+
+    /**
+     * @param slowFrameThresholdNanos Frames taking longer than this, usually the display's frame
+     *                                budget, are considered slow.
+     */
+    public FrameStats(long slowFrameThresholdNanos) {
+        this.slowFrameThresholdNanos = slowFrameThresholdNanos;
+    }
+
+    public void record(long durationNanos) {
+        totalFrames++;
+        if (durationNanos > maxDurationNanos) {
+            maxDurationNanos = durationNanos;
+        }
+        if (durationNanos > FROZEN_FRAME_THRESHOLD_NANOS) {
+            frozenFrames++;
+        } else if (durationNanos > slowFrameThresholdNanos) {
+            slowFrames++;
+        }
+        bucketCounts[getBucketIndex(durationNanos)]++;
+    }
+
+    private static int getBucketIndex(long durationNanos) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (durationMillis <= BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    public boolean hasJankyFrames() {
+        return slowFrames > 0 || frozenFrames > 0;
+    }
+
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    public long getSlowFrames() {
+        return slowFrames;
+    }
+
+    public long getFrozenFrames() {
+        return frozenFrames;
+    }
+
+    public long getMaxDurationNanos() {
+        return maxDurationNanos;
+    }
+
+    public long getBucketCount(int index) {
+        return bucketCounts[index];
+    }
+
+    public int getBucketsSize() {
+        return bucketCounts.length;
+    }
+}
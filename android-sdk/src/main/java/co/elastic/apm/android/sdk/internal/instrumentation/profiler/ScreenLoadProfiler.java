@@ -0,0 +1,210 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.profiler;
+
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import co.elastic.apm.android.sdk.internal.services.devicestate.Throttling;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Samples the main thread's stack, only while a lifecycle root span is open, into a fixed ring
+ * buffer from a single daemon thread that stays parked the rest of the time. Each root span
+ * keeps the position of the ring where its load started, so that overlapping ones, such as a
+ * fragment's started within its activity's onCreate, get only the samples taken while they were
+ * open. When a root span ends, its samples are folded into the collapsed stacks format (one
+ * "frame;frame;frame count" line per distinct stack, root frame first) and attached to it only if
+ * it took longer than the configured threshold, otherwise they're discarded.
+ */
+public final class ScreenLoadProfiler implements Runnable {
+    private static final AttributeKey<String> COLLAPSED_STACKS = AttributeKey.stringKey("profiler.collapsed_stacks");
+    private static final AttributeKey<Long> SAMPLES = AttributeKey.longKey("profiler.samples");
+    private static final int RING_SIZE = 256;
+    static final int MAX_STACK_DEPTH = 64;
+    private static final int MAX_COLLAPSED_STACKS_LENGTH = 16 * 1024;
+    private static volatile ScreenLoadProfiler instance;
+    private final long intervalMillis;
+    private final long thresholdMillis;
+    private final Thread mainThread = Looper.getMainLooper().getThread();
+    private final Object lock = new Object();
+    private final StackTraceElement[][] ring = new StackTraceElement[RING_SIZE][];
+    private final Map<Span, Session> sessions = new HashMap<>();
+    private final Thread samplerThread;
+    private long sampleCount = 0;
+    private boolean sampling = false;
+    private int generation = 0;
+
+    public static synchronized void install(long intervalMillis, long thresholdMillis) {
+        uninstall();
+        instance = new ScreenLoadProfiler(intervalMillis, thresholdMillis);
+    }
+
+    public static synchronized void uninstall() {
+        if (instance != null) {
+            instance.samplerThread.interrupt();
+            instance = null;
+        }
+    }
+
+    @Nullable
+    public static ScreenLoadProfiler get() {
+        return instance;
+    }
+
+    private ScreenLoadProfiler(long intervalMillis, long thresholdMillis) {
+        this.intervalMillis = intervalMillis;
+        this.thresholdMillis = thresholdMillis;
+        samplerThread = new Thread(this, "elastic-screen-load-profiler");
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+    }
+
+    public void start(Span rootSpan) {
+        if (!Throttling.getLevel().profilingEnabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (sessions.containsKey(rootSpan)) {
+                return;
+            }
+            if (!sampling) {
+                clearSamples();
+                sampling = true;
+                generation++;
+                lock.notify();
+            }
+            sessions.put(rootSpan, new Session(sampleCount, SystemClock.uptimeMillis()));
+        }
+    }
+
+    /**
+     * Must be called before ending the root span.
+     */
+    public void stop(Span rootSpan) {
+        synchronized (lock) {
+            Session session = sessions.remove(rootSpan);
+            if (session != null) {
+                int available = (int) Math.min(sampleCount - session.firstSample, RING_SIZE);
+                if (SystemClock.uptimeMillis() - session.startedAtMillis >= thresholdMillis && available > 0) {
+                    rootSpan.setAttribute(SAMPLES, (long) available);
+                    rootSpan.setAttribute(COLLAPSED_STACKS, foldSamples(getLastSamples(available), available));
+                }
+            }
+            if (sessions.isEmpty()) {
+                sampling = false;
+                clearSamples();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                int sampledGeneration;
+                synchronized (lock) {
+                    while (!sampling) {
+                        lock.wait();
+                    }
+                    sampledGeneration = generation;
+                }
+                Thread.sleep(intervalMillis);
+                StackTraceElement[] stackTrace = mainThread.getStackTrace();
+                synchronized (lock) {
+                    // Drops the samples taken while a previous screen load was being stopped.
+                    if (sampling && sampledGeneration == generation) {
+                        ring[(int) (sampleCount % RING_SIZE)] = stackTrace;
+                        sampleCount++;
+                    }
+                }
+            }
+        } catch (InterruptedException ignored) {
+            // Uninstalled.
+        }
+    }
+
+    /**
+     * Deep stacks keep their outermost frames, so that the ones sharing the same root still get
+     * grouped together.
+     */
+    static String foldSamples(StackTraceElement[][] samples, int available) {
+        Map<String, Integer> stackCounts = new LinkedHashMap<>();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < available; i++) {
+            StackTraceElement[] stackTrace = samples[i];
+            builder.setLength(0);
+            int leafDepth = Math.max(stackTrace.length - MAX_STACK_DEPTH, 0);
+            for (int depth = stackTrace.length - 1; depth >= leafDepth; depth--) {
+                StackTraceElement frame = stackTrace[depth];
+                builder.append(frame.getClassName()).append('.').append(frame.getMethodName());
+                if (depth > leafDepth) {
+                    builder.append(';');
+                }
+            }
+            String stack = builder.toString();
+            Integer count = stackCounts.get(stack);
+            stackCounts.put(stack, count == null ? 1 : count + 1);
+        }
+
+        builder.setLength(0);
+        for (Map.Entry<String, Integer> entry : stackCounts.entrySet()) {
+            String line = entry.getKey() + " " + entry.getValue() + "\n";
+            if (builder.length() + line.length() > MAX_COLLAPSED_STACKS_LENGTH) {
+                break;
+            }
+            builder.append(line);
+        }
+        return builder.toString();
+    }
+
+    private StackTraceElement[][] getLastSamples(int count) {
+        StackTraceElement[][] samples = new StackTraceElement[count][];
+        long firstSample = sampleCount - count;
+        for (int i = 0; i < count; i++) {
+            samples[i] = ring[(int) ((firstSample + i) % RING_SIZE)];
+        }
+        return samples;
+    }
+
+    private void clearSamples() {
+        int used = (int) Math.min(sampleCount, RING_SIZE);
+        for (int i = 0; i < used; i++) {
+            ring[i] = null;
+        }
+        sampleCount = 0;
+    }
+
+    private static final class Session {
+        private final long firstSample;
+        private final long startedAtMillis;
+
+        private Session(long firstSample, long startedAtMillis) {
+            this.firstSample = firstSample;
+            this.startedAtMillis = startedAtMillis;
+        }
+    }
+}
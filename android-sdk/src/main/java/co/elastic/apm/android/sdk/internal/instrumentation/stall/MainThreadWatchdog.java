@@ -0,0 +1,234 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.stall;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import co.elastic.apm.android.sdk.internal.instrumentation.LifecycleMultiMethodSpan;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+
+/**
+ * Detects main thread stalls by posting a heartbeat to the main looper and checking, from a single
+ * daemon thread, whether it was processed before the configured threshold. When it isn't, the
+ * main thread's stack gets sampled at a bounded rate, keeping up to a fixed amount of samples,
+ * until the heartbeat goes through, and then a "Main thread stall" span is created with the
+ * deduplicated samples, linked to the lifecycle root span that was open at the time, if any.
+ * <p>
+ * Heartbeats are only posted while at least one activity is started, the watchdog thread waits
+ * without waking up the main thread otherwise.
+ */
+public final class MainThreadWatchdog implements Runnable, Application.ActivityLifecycleCallbacks {
+    private static final AttributeKey<String> STACKTRACE = AttributeKey.stringKey("stall.stacktrace");
+    private static final AttributeKey<Long> SAMPLES = AttributeKey.longKey("stall.samples");
+    private static final AttributeKey<Boolean> ANR = AttributeKey.booleanKey("stall.anr");
+    private static final String SPAN_NAME = "Main thread stall";
+    private static final long ANR_THRESHOLD_MILLIS = 5000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+    private static final int MAX_SAMPLES = 50;
+    private static final int MAX_STACK_DEPTH = 64;
+    private final long thresholdMillis;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Thread mainThread = Looper.getMainLooper().getThread();
+    private final StackTraceElement[][] samples = new StackTraceElement[MAX_SAMPLES][];
+    private final int[] sampleRepetitions = new int[MAX_SAMPLES];
+    private final Heartbeat heartbeat = new Heartbeat();
+    private Application application;
+    private Thread watchdogThread;
+    private int startedActivities = 0;
+
+    public MainThreadWatchdog(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    public synchronized void start(Application application) {
+        if (this.application != null) {
+            return;
+        }
+        this.application = application;
+        application.registerActivityLifecycleCallbacks(this);
+    }
+
+    public synchronized void stop() {
+        if (application != null) {
+            application.unregisterActivityLifecycleCallbacks(this);
+            application = null;
+        }
+        if (watchdogThread != null) {
+            watchdogThread.interrupt();
+            watchdogThread = null;
+        }
+        startedActivities = 0;
+    }
+
+    @Override
+    public synchronized void onActivityStarted(@NonNull Activity activity) {
+        startedActivities++;
+        if (watchdogThread == null) {
+            watchdogThread = new Thread(this, "elastic-main-thread-watchdog");
+            watchdogThread.setDaemon(true);
+            watchdogThread.start();
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void onActivityStopped(@NonNull Activity activity) {
+        if (startedActivities > 0) {
+            startedActivities--;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                awaitStartedActivity();
+                long postedAtMillis = SystemClock.uptimeMillis();
+                heartbeat.processedAtMillis = 0;
+                mainHandler.post(heartbeat);
+                Thread.sleep(thresholdMillis);
+                if (heartbeat.processedAtMillis != 0 || Debug.isDebuggerConnected()) {
+                    continue;
+                }
+                SpanContext rootSpanContext = LifecycleMultiMethodSpan.getOpenRootSpanContext();
+                int sampleCount = sampleUntilProcessed();
+                reportStall(postedAtMillis, heartbeat.processedAtMillis, sampleCount, rootSpanContext);
+            }
+        } catch (InterruptedException ignored) {
+            // Stopped.
+        } finally {
+            mainHandler.removeCallbacks(heartbeat);
+        }
+    }
+
+    private synchronized void awaitStartedActivity() throws InterruptedException {
+        while (startedActivities == 0) {
+            wait();
+        }
+    }
+
+    private int sampleUntilProcessed() throws InterruptedException {
+        int sampleCount = 0;
+        while (heartbeat.processedAtMillis == 0) {
+            if (sampleCount < MAX_SAMPLES) {
+                samples[sampleCount] = mainThread.getStackTrace();
+                sampleCount++;
+            }
+            Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+        }
+        return sampleCount;
+    }
+
+    private void reportStall(long startMillis, long endMillis, int sampleCount, SpanContext rootSpanContext) {
+        long epochOffsetMillis = System.currentTimeMillis() - SystemClock.uptimeMillis();
+        SpanBuilder spanBuilder = ElasticTracer.androidApplication().spanBuilder(SPAN_NAME)
+                .setNoParent()
+                .setStartTimestamp(startMillis + epochOffsetMillis, TimeUnit.MILLISECONDS)
+                .setAttribute(SAMPLES, (long) sampleCount)
+                .setAttribute(ANR, endMillis - startMillis >= ANR_THRESHOLD_MILLIS)
+                .setAttribute(STACKTRACE, foldSamples(sampleCount));
+        if (rootSpanContext.isValid()) {
+            spanBuilder.addLink(rootSpanContext);
+        }
+        spanBuilder.startSpan().end(endMillis + epochOffsetMillis, TimeUnit.MILLISECONDS);
+        Elog.getLogger().debug("Main thread stalled for " + (endMillis - startMillis) + "ms");
+    }
+
+    /**
+     * Groups identical samples together, keeping the order in which they were first seen, and
+     * releases the sample buffer slots.
+     */
+    private String foldSamples(int sampleCount) {
+        int uniqueCount = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            StackTraceElement[] sample = samples[i];
+            samples[i] = null;
+            int found = -1;
+            for (int j = 0; j < uniqueCount; j++) {
+                if (Arrays.equals(samples[j], sample)) {
+                    found = j;
+                    break;
+                }
+            }
+            if (found != -1) {
+                sampleRepetitions[found]++;
+            } else {
+                samples[uniqueCount] = sample;
+                sampleRepetitions[uniqueCount] = 1;
+                uniqueCount++;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < uniqueCount; i++) {
+            builder.append(sampleRepetitions[i]).append(" samples:\n");
+            StackTraceElement[] sample = samples[i];
+            for (int depth = 0; depth < sample.length && depth < MAX_STACK_DEPTH; depth++) {
+                builder.append("\tat ").append(sample[depth]).append('\n');
+            }
+            samples[i] = null;
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+    }
+
+    private static class Heartbeat implements Runnable {
+        private volatile long processedAtMillis;
+
+        @Override
+        public void run() {
+            processedAtMillis = SystemClock.uptimeMillis();
+        }
+    }
+}
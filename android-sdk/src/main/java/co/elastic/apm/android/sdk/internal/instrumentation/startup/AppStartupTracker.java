@@ -0,0 +1,263 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.startup;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.internal.instrumentation.FirstFrameSpanEnder;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+
+/**
+ * Tracks the app's launches, from the moment they start up until the first frame of the launched
+ * activity gets drawn, and creates an "Application startup" trace for each of them classified as:
+ * - cold: The process was started in order to launch the activity.
+ * - warm: The process was already running, or got restored, but the activity had to be created.
+ * - hot: The activity was brought back to the foreground without being recreated.
+ * <p>
+ * The OpenTelemetry SDK isn't available until the agent is initialized, so the launch phases are
+ * recorded as {@link System#nanoTime()} timestamps, which share their clock with
+ * {@link Process#getStartUptimeMillis()}, and converted into spans once the launched activity is
+ * resumed.
+ */
+public final class AppStartupTracker implements Application.ActivityLifecycleCallbacks {
+    private static final AppStartupTracker INSTANCE = new AppStartupTracker();
+    static final AttributeKey<String> START_TYPE = AttributeKey.stringKey("app.start.type");
+    private static final String ROOT_SPAN_NAME = "Application startup";
+    private Application application;
+    private boolean processLaunchedInForeground = false;
+    private long providerCreatedNanos = -1;
+    private long applicationCreatedNanos = -1;
+    private volatile long agentInitStartNanos = -1;
+    private volatile long agentInitEndNanos = -1;
+    private boolean firstLaunch = true;
+    private boolean inBackground = true;
+    private int startedActivities = 0;
+    private Activity launchingActivity;
+    private StartType launchType;
+    private long launchStartNanos;
+
+    public static AppStartupTracker get() {
+        return INSTANCE;
+    }
+
+    private AppStartupTracker() {
+    }
+
+    /**
+     * Called as early as possible in the process lifetime, before {@link Application#onCreate()}.
+     */
+    void onProcessStarting(Application application) {
+        register(application);
+        providerCreatedNanos = System.nanoTime();
+        applicationCreatedNanos = -1;
+        ActivityManager.RunningAppProcessInfo processInfo = new ActivityManager.RunningAppProcessInfo();
+        ActivityManager.getMyMemoryState(processInfo);
+        processLaunchedInForeground = processInfo.importance == ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+
+        // Runs right after the current message, which is the one that calls Application.onCreate.
+        new Handler(Looper.getMainLooper()).postAtFrontOfQueue(() -> applicationCreatedNanos = System.nanoTime());
+    }
+
+    /**
+     * Fallback for when {@link #onProcessStarting(Application)} couldn't be called, in which case
+     * there won't be launch phases before the first activity is created.
+     */
+    public synchronized void start(Application application) {
+        if (this.application == null) {
+            register(application);
+        }
+    }
+
+    /**
+     * Stops tracking launches, for when startup tracing is disabled, as the tracker gets registered
+     * before the agent's configuration is known.
+     */
+    public synchronized void stop() {
+        if (application != null) {
+            application.unregisterActivityLifecycleCallbacks(this);
+            application = null;
+        }
+        launchingActivity = null;
+    }
+
+    public void onAgentInitialized(long startNanos, long endNanos) {
+        agentInitStartNanos = startNanos;
+        agentInitEndNanos = endNanos;
+    }
+
+    private synchronized void register(Application application) {
+        if (this.application != null) {
+            this.application.unregisterActivityLifecycleCallbacks(this);
+        }
+        this.application = application;
+        firstLaunch = true;
+        inBackground = true;
+        startedActivities = 0;
+        launchingActivity = null;
+        application.registerActivityLifecycleCallbacks(this);
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        if (!inBackground || launchingActivity != null) {
+            return;
+        }
+        if (firstLaunch && processLaunchedInForeground && savedInstanceState == null) {
+            onLaunchStarting(activity, StartType.COLD, TimeUnit.MILLISECONDS.toNanos(Process.getStartUptimeMillis()));
+        } else {
+            onLaunchStarting(activity, StartType.WARM, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onActivityStarted(@NonNull Activity activity) {
+        if (inBackground && launchingActivity == null) {
+            onLaunchStarting(activity, StartType.HOT, System.nanoTime());
+        }
+        startedActivities++;
+        inBackground = false;
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+        if (activity == launchingActivity) {
+            traceLaunch(activity, launchType, launchStartNanos);
+            launchingActivity = null;
+            firstLaunch = false;
+        }
+    }
+
+    @Override
+    public void onActivityStopped(@NonNull Activity activity) {
+        startedActivities--;
+        if (startedActivities <= 0 && !activity.isChangingConfigurations()) {
+            startedActivities = 0;
+            inBackground = true;
+        }
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+        if (activity == launchingActivity) {
+            launchingActivity = null;
+        }
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+    }
+
+    private void onLaunchStarting(Activity activity, StartType type, long startNanos) {
+        launchingActivity = activity;
+        launchType = type;
+        launchStartNanos = startNanos;
+    }
+
+    private void traceLaunch(Activity activity, StartType type, long startNanos) {
+        if (!ElasticApmAgent.isInitialized() || !ElasticApmAgent.get().configuration.startupTracingEnabled) {
+            Elog.getLogger().debug("Not tracing the app's " + type.value + " startup");
+            return;
+        }
+        Window window = activity.getWindow();
+        if (window == null) {
+            return;
+        }
+        EpochConverter epochConverter = new EpochConverter();
+        ElasticTracer tracer = ElasticTracer.androidApplication();
+        Span rootSpan = tracer.spanBuilder(ROOT_SPAN_NAME)
+                .setNoParent()
+                .setAttribute(START_TYPE, type.value)
+                .setStartTimestamp(epochConverter.toEpochNanos(startNanos), TimeUnit.NANOSECONDS)
+                .startSpan();
+        Context parent = Context.root().with(rootSpan);
+
+        long activityLaunchStartNanos = startNanos;
+        if (type == StartType.COLD && providerCreatedNanos > 0) {
+            createPhaseSpan(tracer, parent, epochConverter, "Process start", startNanos, providerCreatedNanos);
+            if (applicationCreatedNanos > 0) {
+                createPhaseSpan(tracer, parent, epochConverter, "Application creation", providerCreatedNanos, applicationCreatedNanos);
+                activityLaunchStartNanos = applicationCreatedNanos;
+            }
+        }
+        if (agentInitStartNanos >= startNanos && agentInitEndNanos > 0) {
+            createPhaseSpan(tracer, parent, epochConverter, "Agent initialization", agentInitStartNanos, agentInitEndNanos);
+        }
+
+        Span activityLaunchSpan = tracer.spanBuilder("Activity launch")
+                .setParent(parent)
+                .setStartTimestamp(epochConverter.toEpochNanos(activityLaunchStartNanos), TimeUnit.NANOSECONDS)
+                .startSpan();
+        // The child is ended right before its parent, as both end along with the same frame.
+        FirstFrameSpanEnder.endOnNextFrame(window.getDecorView(), rootSpan, activity, span -> activityLaunchSpan.end());
+    }
+
+    private static void createPhaseSpan(ElasticTracer tracer, Context parent, EpochConverter epochConverter,
+                                        String name, long startNanos, long endNanos) {
+        if (endNanos < startNanos) {
+            return;
+        }
+        tracer.spanBuilder(name)
+                .setParent(parent)
+                .setStartTimestamp(epochConverter.toEpochNanos(startNanos), TimeUnit.NANOSECONDS)
+                .startSpan()
+                .end(epochConverter.toEpochNanos(endNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private static class EpochConverter {
+        private final long epochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        private final long nanoTime = System.nanoTime();
+
+        private long toEpochNanos(long nanoTimestamp) {
+            return epochNanos - (nanoTime - nanoTimestamp);
+        }
+    }
+
+    enum StartType {
+        COLD("cold"),
+        WARM("warm"),
+        HOT("hot");
+
+        private final String value;
+
+        StartType(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.work;
+
+import androidx.annotation.Nullable;
+import androidx.work.ListenableWorker;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkRequest;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.SpanWithScope;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+
+/**
+ * Creates a root span for each WorkManager worker run. Synchronous workers get it around their
+ * doWork method, where it's also made current, whereas the asynchronous ones get it from the time
+ * their work is started until its future completes.
+ * <p>
+ * WorkManager doesn't expose when a request was enqueued, so the time one-time requests are built
+ * is kept in memory by their id, without touching the requests, and used to compute the queue
+ * delay of their first run attempt. Requests that run in a later process don't get it.
+ */
+public final class WorkerSpan {
+    private static final AttributeKey<String> WORKER_CLASS = AttributeKey.stringKey("worker.class");
+    private static final AttributeKey<String> WORKER_ID = AttributeKey.stringKey("worker.id");
+    private static final AttributeKey<Long> RUN_ATTEMPT = AttributeKey.longKey("worker.run_attempt");
+    private static final AttributeKey<Long> QUEUE_DELAY = AttributeKey.longKey("worker.queue_delay_ms");
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("worker.outcome");
+    private static final String OUTCOME_ERROR = "error";
+    private static final int MAX_TRACKED_REQUESTS = 128;
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+    private static final Map<UUID, Long> requestBuildTimes = new LinkedHashMap<UUID, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Entry<UUID, Long> eldest) {
+            return size() > MAX_TRACKED_REQUESTS;
+        }
+    };
+
+    private WorkerSpan() {
+    }
+
+    public static void onWorkRequestBuilt(Object request) {
+        if (request instanceof OneTimeWorkRequest) {
+            UUID id = ((WorkRequest) request).getId();
+            synchronized (requestBuildTimes) {
+                requestBuildTimes.put(id, System.currentTimeMillis());
+            }
+        }
+    }
+
+    public static SpanWithScope onDoWorkEnter(Object worker) {
+        Span span = startSpan((ListenableWorker) worker);
+        return new SpanWithScope(span, span.makeCurrent());
+    }
+
+    public static void onDoWorkExit(SpanWithScope spanWithScope, @Nullable Object result, @Nullable Throwable thrown) {
+        spanWithScope.scope.close();
+        endSpan(spanWithScope.span, result, thrown);
+    }
+
+    public static Span onStartWorkEnter(Object worker) {
+        return startSpan((ListenableWorker) worker);
+    }
+
+    public static void onStartWorkExit(Span span, @Nullable Object returned, @Nullable Throwable thrown) {
+        if (returned == null || thrown != null) {
+            endSpan(span, null, thrown);
+            return;
+        }
+        ListenableFuture<?> future = (ListenableFuture<?>) returned;
+        future.addListener(() -> {
+            Object result = null;
+            Throwable error = null;
+            try {
+                result = future.isCancelled() ? null : future.get();
+            } catch (Throwable t) {
+                error = t;
+            }
+            if (future.isCancelled()) {
+                span.setAttribute(OUTCOME, "cancelled");
+                span.end();
+            } else {
+                endSpan(span, result, error);
+            }
+        }, DIRECT_EXECUTOR);
+    }
+
+    private static Span startSpan(ListenableWorker worker) {
+        String workerClass = worker.getClass().getName();
+        int runAttempt = worker.getRunAttemptCount();
+        Span span = ElasticTracer.workManager().spanBuilder(worker.getClass().getSimpleName())
+                .setNoParent()
+                .setAttribute(WORKER_CLASS, workerClass)
+                .setAttribute(WORKER_ID, worker.getId().toString())
+                .setAttribute(RUN_ATTEMPT, (long) runAttempt)
+                .startSpan();
+        Long builtAtMillis;
+        synchronized (requestBuildTimes) {
+            builtAtMillis = requestBuildTimes.remove(worker.getId());
+        }
+        if (runAttempt == 0 && builtAtMillis != null) {
+            span.setAttribute(QUEUE_DELAY, Math.max(0, System.currentTimeMillis() - builtAtMillis));
+        }
+        return span;
+    }
+
+    private static void endSpan(Span span, @Nullable Object result, @Nullable Throwable thrown) {
+        if (thrown != null) {
+            span.setAttribute(OUTCOME, OUTCOME_ERROR);
+            span.recordException(thrown);
+            span.setStatus(StatusCode.ERROR);
+        } else {
+            String outcome = getOutcome(result);
+            span.setAttribute(OUTCOME, outcome);
+            if (!outcome.equals("success")) {
+                span.setStatus(StatusCode.ERROR);
+            }
+        }
+        span.end();
+    }
+
+    private static String getOutcome(@Nullable Object result) {
+        if (result instanceof ListenableWorker.Result.Success) {
+            return "success";
+        }
+        if (result instanceof ListenableWorker.Result.Failure) {
+            return "failure";
+        }
+        if (result instanceof ListenableWorker.Result.Retry) {
+            return "retry";
+        }
+        return OUTCOME_ERROR;
+    }
+}
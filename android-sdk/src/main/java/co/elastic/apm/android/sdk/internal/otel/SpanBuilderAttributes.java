@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanBuilder;
+
+/**
+ * {@link AttributesBuilder} that writes every attribute straight into a {@link SpanBuilder}, so
+ * that attribute visitors can be applied to a span without creating an intermediate
+ * {@link Attributes} instance. As the attributes aren't kept anywhere else, it can't be built.
+ */
+public final class SpanBuilderAttributes implements AttributesBuilder {
+    private final SpanBuilder spanBuilder;
+
+    public SpanBuilderAttributes(SpanBuilder spanBuilder) {
+        this.spanBuilder = spanBuilder;
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the attributes can only be put.
+     */
+    @Override
+    public Attributes build() {
+        throw new UnsupportedOperationException("The attributes are set straight into the span, they can't be built");
+    }
+
+    @Override
+    public <T> AttributesBuilder put(AttributeKey<Long> key, int value) {
+        spanBuilder.setAttribute(key, (long) value);
+        return this;
+    }
+
+    @Override
+    public <T> AttributesBuilder put(AttributeKey<T> key, T value) {
+        if (key != null && value != null) {
+            spanBuilder.setAttribute(key, value);
+        }
+        return this;
+    }
+
+    @Override
+    public AttributesBuilder putAll(Attributes attributes) {
+        spanBuilder.setAllAttributes(attributes);
+        return this;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel.deferred;
+
+import androidx.annotation.Nullable;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.trace.IdGenerator;
+
+/**
+ * Registered as the global OpenTelemetry instance while the agent initializes on a background
+ * thread. Until the SDK is ready, spans are started as {@link PreInitSpan}s and kept in a
+ * {@link PreInitSpanBuffer}, whereas metrics are dropped. Once it's ready, the buffered spans are
+ * replayed into it, in the order they were started, and every call is forwarded to it.
+ */
+public final class DeferredOpenTelemetry implements OpenTelemetry {
+    private static final int BUFFER_CAPACITY = 128;
+    final ReplayIdGenerator idGenerator = new ReplayIdGenerator();
+    private final PreInitSpanBuffer buffer = new PreInitSpanBuffer(BUFFER_CAPACITY);
+    private final TracerProvider preInitTracerProvider = new PreInitTracerProvider();
+    private final ContextPropagators propagators;
+    private volatile OpenTelemetry delegate;
+
+    public DeferredOpenTelemetry(ContextPropagators propagators) {
+        this.propagators = propagators;
+    }
+
+    /**
+     * Must be set into the SDK's tracer provider, so that the replayed spans keep their ids.
+     */
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public void onReady(OpenTelemetry openTelemetry) {
+        delegate = openTelemetry;
+        TracerProvider tracerProvider = openTelemetry.getTracerProvider();
+        int replayed = buffer.drain(span -> span.replay(tracerProvider, idGenerator));
+        Elog.getLogger().debug("Replayed " + replayed + " spans started before the agent was ready");
+    }
+
+    @Override
+    public TracerProvider getTracerProvider() {
+        OpenTelemetry openTelemetry = delegate;
+        if (openTelemetry != null) {
+            return openTelemetry.getTracerProvider();
+        }
+        return preInitTracerProvider;
+    }
+
+    @Override
+    public MeterProvider getMeterProvider() {
+        OpenTelemetry openTelemetry = delegate;
+        if (openTelemetry != null) {
+            return openTelemetry.getMeterProvider();
+        }
+        return MeterProvider.noop();
+    }
+
+    @Override
+    public ContextPropagators getPropagators() {
+        return propagators;
+    }
+
+    Span onSpanStarted(PreInitSpan span) {
+        if (buffer.add(span)) {
+            return span;
+        }
+        if (buffer.isDrained()) {
+            // The SDK got ready while the span was being built.
+            span.replay(delegate.getTracerProvider(), idGenerator);
+            return span;
+        }
+        Elog.getLogger().debug("Pre-init span buffer is full, dropping span " + span.getSpanContext().getSpanId());
+        return Span.wrap(span.getSpanContext());
+    }
+
+    private class PreInitTracerProvider implements TracerProvider {
+
+        @Override
+        public Tracer get(String instrumentationScopeName) {
+            return new PreInitTracer(instrumentationScopeName, null);
+        }
+
+        @Override
+        public Tracer get(String instrumentationScopeName, String instrumentationScopeVersion) {
+            return new PreInitTracer(instrumentationScopeName, instrumentationScopeVersion);
+        }
+    }
+
+    /**
+     * Tracers are usually kept around, so they check whether the SDK got ready for every span.
+     */
+    private class PreInitTracer implements Tracer {
+        private final String name;
+        @Nullable
+        private final String version;
+
+        private PreInitTracer(String name, @Nullable String version) {
+            this.name = name;
+            this.version = version;
+        }
+
+        @Override
+        public SpanBuilder spanBuilder(String spanName) {
+            OpenTelemetry openTelemetry = delegate;
+            if (openTelemetry == null) {
+                return new PreInitSpanBuilder(DeferredOpenTelemetry.this, name, version, spanName);
+            }
+            TracerProvider tracerProvider = openTelemetry.getTracerProvider();
+            Tracer tracer = (version == null) ? tracerProvider.get(name) : tracerProvider.get(name, version);
+            return tracer.spanBuilder(spanName);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel.deferred;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.trace.data.LinkData;
+
+/**
+ * A span started before the OpenTelemetry SDK is ready. It keeps everything that's done to it
+ * until it gets replayed into an SDK span with the same ids, after which, if it's still open, it
+ * forwards every call to it.
+ */
+final class PreInitSpan implements Span {
+    private final String tracerName;
+    @Nullable
+    private final String tracerVersion;
+    private final SpanContext spanContext;
+    private final Context parent;
+    private final SpanKind kind;
+    private final Attributes attributes;
+    private final List<LinkData> links;
+    private final long startEpochNanos;
+    private final List<Consumer<Span>> operations = new ArrayList<>();
+    private String name;
+    private boolean ended = false;
+    private long endEpochNanos;
+    private Span replayed;
+
+    PreInitSpan(String tracerName, @Nullable String tracerVersion, String name, SpanContext spanContext,
+                Context parent, SpanKind kind, Attributes attributes, List<LinkData> links, long startEpochNanos) {
+        this.tracerName = tracerName;
+        this.tracerVersion = tracerVersion;
+        this.name = name;
+        this.spanContext = spanContext;
+        this.parent = parent;
+        this.kind = kind;
+        this.attributes = attributes;
+        this.links = links;
+        this.startEpochNanos = startEpochNanos;
+    }
+
+    synchronized void replay(TracerProvider tracerProvider, ReplayIdGenerator idGenerator) {
+        Tracer tracer = (tracerVersion == null) ? tracerProvider.get(tracerName) : tracerProvider.get(tracerName, tracerVersion);
+        SpanBuilder spanBuilder = tracer.spanBuilder(name)
+                .setParent(parent)
+                .setSpanKind(kind)
+                .setAllAttributes(attributes)
+                .setStartTimestamp(startEpochNanos, TimeUnit.NANOSECONDS);
+        for (LinkData link : links) {
+            spanBuilder.addLink(link.getSpanContext(), link.getAttributes());
+        }
+        Span span = idGenerator.startSpan(spanBuilder, spanContext);
+        for (Consumer<Span> operation : operations) {
+            operation.accept(span);
+        }
+        operations.clear();
+        if (ended) {
+            span.end(endEpochNanos, TimeUnit.NANOSECONDS);
+        }
+        replayed = span;
+    }
+
+    @Override
+    public <T> Span setAttribute(AttributeKey<T> key, T value) {
+        return apply(span -> span.setAttribute(key, value));
+    }
+
+    @Override
+    public Span addEvent(String name, Attributes attributes) {
+        long epochNanos = Clock.getDefault().now();
+        return apply(span -> span.addEvent(name, attributes, epochNanos, TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public Span addEvent(String name, Attributes attributes, long timestamp, TimeUnit unit) {
+        return apply(span -> span.addEvent(name, attributes, timestamp, unit));
+    }
+
+    @Override
+    public Span setStatus(StatusCode statusCode, String description) {
+        return apply(span -> span.setStatus(statusCode, description));
+    }
+
+    @Override
+    public Span recordException(Throwable exception, Attributes additionalAttributes) {
+        return apply(span -> span.recordException(exception, additionalAttributes));
+    }
+
+    @Override
+    public Span updateName(String name) {
+        synchronized (this) {
+            if (replayed == null && !ended) {
+                this.name = name;
+                return this;
+            }
+        }
+        return apply(span -> span.updateName(name));
+    }
+
+    @Override
+    public void end() {
+        end(Clock.getDefault().now(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void end(long timestamp, TimeUnit unit) {
+        if (replayed != null) {
+            replayed.end(timestamp, unit);
+            return;
+        }
+        if (!ended) {
+            ended = true;
+            endEpochNanos = unit.toNanos(timestamp);
+        }
+    }
+
+    @Override
+    public SpanContext getSpanContext() {
+        return spanContext;
+    }
+
+    @Override
+    public synchronized boolean isRecording() {
+        if (replayed != null) {
+            return replayed.isRecording();
+        }
+        return !ended;
+    }
+
+    private synchronized Span apply(Consumer<Span> operation) {
+        if (replayed != null) {
+            operation.accept(replayed);
+        } else if (!ended) {
+            operations.add(operation);
+        }
+        return this;
+    }
+}
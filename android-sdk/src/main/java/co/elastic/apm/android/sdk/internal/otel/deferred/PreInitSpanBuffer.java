@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel.deferred;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size, lock-free, multiple producers buffer for the spans started before the OpenTelemetry
+ * SDK is ready. The slots are claimed in start order, which means that parent spans are always
+ * placed before their children, and the buffer can only be drained once, after which it rejects
+ * every new span so that its producer can send it straight to the SDK instead.
+ */
+final class PreInitSpanBuffer {
+    private final AtomicReferenceArray<PreInitSpan> slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private volatile boolean drained = false;
+
+    PreInitSpanBuffer(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * @return False if the buffer is either full or already drained.
+     */
+    boolean add(PreInitSpan span) {
+        if (drained) {
+            return false;
+        }
+        int slot = nextSlot.getAndIncrement();
+        if (slot >= slots.length()) {
+            return false;
+        }
+        slots.set(slot, span);
+        return true;
+    }
+
+    boolean isDrained() {
+        return drained;
+    }
+
+    /**
+     * Passes the buffered spans to the consumer in the order they were started. Must be called
+     * only once.
+     *
+     * @return The amount of spans drained.
+     */
+    int drain(SpanConsumer consumer) {
+        drained = true;
+        int claimed = Math.min(nextSlot.getAndSet(slots.length()), slots.length());
+        for (int i = 0; i < claimed; i++) {
+            PreInitSpan span;
+            // The slot might have been claimed right before draining and not be set just yet.
+            while ((span = slots.get(i)) == null) {
+                Thread.yield();
+            }
+            slots.set(i, null);
+            consumer.accept(span);
+        }
+        return claimed;
+    }
+
+    interface SpanConsumer {
+        void accept(PreInitSpan span);
+    }
+}
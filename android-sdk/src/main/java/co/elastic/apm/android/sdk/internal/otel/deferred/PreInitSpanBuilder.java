@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel.deferred;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.trace.data.LinkData;
+
+final class PreInitSpanBuilder implements SpanBuilder {
+    private final DeferredOpenTelemetry openTelemetry;
+    private final String tracerName;
+    @Nullable
+    private final String tracerVersion;
+    private final String spanName;
+    private final AttributesBuilder attributes = Attributes.builder();
+    private final List<LinkData> links = new ArrayList<>();
+    private Context parent;
+    private boolean noParent = false;
+    private SpanKind kind = SpanKind.INTERNAL;
+    private long startEpochNanos = 0;
+
+    PreInitSpanBuilder(DeferredOpenTelemetry openTelemetry, String tracerName, @Nullable String tracerVersion, String spanName) {
+        this.openTelemetry = openTelemetry;
+        this.tracerName = tracerName;
+        this.tracerVersion = tracerVersion;
+        this.spanName = spanName;
+    }
+
+    @Override
+    public SpanBuilder setParent(Context context) {
+        parent = context;
+        noParent = false;
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setNoParent() {
+        parent = null;
+        noParent = true;
+        return this;
+    }
+
+    @Override
+    public SpanBuilder addLink(SpanContext spanContext) {
+        return addLink(spanContext, Attributes.empty());
+    }
+
+    @Override
+    public SpanBuilder addLink(SpanContext spanContext, Attributes attributes) {
+        if (spanContext.isValid()) {
+            links.add(LinkData.create(spanContext, attributes));
+        }
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setAttribute(String key, String value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setAttribute(String key, long value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setAttribute(String key, double value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setAttribute(String key, boolean value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    @Override
+    public <T> SpanBuilder setAttribute(AttributeKey<T> key, T value) {
+        if (key != null && value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setSpanKind(SpanKind spanKind) {
+        kind = spanKind;
+        return this;
+    }
+
+    @Override
+    public SpanBuilder setStartTimestamp(long startTimestamp, TimeUnit unit) {
+        startEpochNanos = unit.toNanos(startTimestamp);
+        return this;
+    }
+
+    @Override
+    public Span startSpan() {
+        Context parentContext = noParent ? Context.root() : (parent != null ? parent : Context.current());
+        SpanContext parentSpanContext = Span.fromContext(parentContext).getSpanContext();
+        ReplayIdGenerator idGenerator = openTelemetry.idGenerator;
+        SpanContext spanContext;
+        if (parentSpanContext.isValid()) {
+            spanContext = SpanContext.create(parentSpanContext.getTraceId(), idGenerator.generateSpanId(),
+                    parentSpanContext.getTraceFlags(), parentSpanContext.getTraceState());
+        } else {
+            spanContext = SpanContext.create(idGenerator.generateTraceId(), idGenerator.generateSpanId(),
+                    TraceFlags.getSampled(), TraceState.getDefault());
+        }
+        long startTimestamp = (startEpochNanos != 0) ? startEpochNanos : Clock.getDefault().now();
+        PreInitSpan span = new PreInitSpan(tracerName, tracerVersion, spanName, spanContext, parentContext, kind,
+                attributes.build(), links, startTimestamp);
+        return openTelemetry.onSpanStarted(span);
+    }
+}
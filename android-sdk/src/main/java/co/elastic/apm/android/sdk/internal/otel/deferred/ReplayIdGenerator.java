@@ -0,0 +1,60 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel.deferred;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.trace.IdGenerator;
+
+/**
+ * Random ids, except while replaying a pre-init span, in which case the SDK gets the ids that were
+ * given to it when it started, so that the spans already parented by it stay linked to it.
+ */
+final class ReplayIdGenerator implements IdGenerator {
+    private final IdGenerator random = IdGenerator.random();
+    private final ThreadLocal<SpanContext> replaying = new ThreadLocal<>();
+
+    Span startSpan(SpanBuilder spanBuilder, SpanContext spanContext) {
+        replaying.set(spanContext);
+        try {
+            return spanBuilder.startSpan();
+        } finally {
+            replaying.remove();
+        }
+    }
+
+    @Override
+    public String generateSpanId() {
+        SpanContext spanContext = replaying.get();
+        if (spanContext != null) {
+            return spanContext.getSpanId();
+        }
+        return random.generateSpanId();
+    }
+
+    @Override
+    public String generateTraceId() {
+        SpanContext spanContext = replaying.get();
+        if (spanContext != null) {
+            return spanContext.getTraceId();
+        }
+        return random.generateTraceId();
+    }
+}
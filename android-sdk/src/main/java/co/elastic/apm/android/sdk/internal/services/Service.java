@@ -18,12 +18,31 @@
  */
 package co.elastic.apm.android.sdk.internal.services;
 
+import java.util.Collection;
+import java.util.Collections;
+
 public interface Service extends Lifecycle {
     String name();
 
+    /**
+     * @return The names of the services that must be started before this one.
+     */
+    default Collection<String> dependencies() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return True if this service can wait to be started until it's first requested, unless
+     * another service that depends on it gets started before then.
+     */
+    default boolean isLazy() {
+        return false;
+    }
+
     class Names {
         public static final String ANDROID_PERMISSIONS = "android-permissions";
         public static final String NETWORK = "network";
         public static final String METADATA = "apm-metadata";
+        public static final String DEVICE_STATE = "device-state";
     }
 }
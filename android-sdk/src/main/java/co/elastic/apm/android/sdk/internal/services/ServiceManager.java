@@ -18,10 +18,43 @@
  */
 package co.elastic.apm.android.sdk.internal.services;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import co.elastic.apm.android.common.internal.logging.Elog;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Starts the non-lazy services, and the services they depend on, in dependency order. Services
+ * whose dependencies are already started get started in parallel on a small pool of threads that
+ * only lives during {@link #start()}. Lazy services that no other started service depends on are
+ * started the first time they're requested instead. The time each service takes to start gets
+ * recorded into the agent's own metrics once they're available.
+ */
 public final class ServiceManager implements Lifecycle {
-    private final HashMap<String, Service> services = new HashMap<>();
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("agent.service.name");
+    private static final int STARTUP_THREADS = 2;
+    private final Map<String, Service> services = new LinkedHashMap<>();
+    private final List<Service> startedServices = new ArrayList<>();
+    // Checked on every lazy service lookup, so that it doesn't need the started list's lock.
+    private final Set<Service> startedSet = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<String, Long> pendingStartDurationsNanos = new HashMap<>();
+    private DoubleHistogram startDurationHistogram;
 
     public void addService(Service service) {
         String name = service.name();
@@ -31,26 +64,144 @@ public final class ServiceManager implements Lifecycle {
 
     @Override
     public void start() {
-        for (Service service : services.values()) {
-            service.start();
+        ExecutorService executor = Executors.newFixedThreadPool(STARTUP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "elastic-service-startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, CompletableFuture<Void>> scheduled = new HashMap<>();
+            for (Service service : services.values()) {
+                if (!service.isLazy()) {
+                    schedule(service, scheduled, new HashSet<>(), executor);
+                }
+            }
+            CompletableFuture.allOf(scheduled.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
         }
     }
 
     @Override
     public void stop() {
-        for (Service service : services.values()) {
-            service.stop();
+        List<Service> toStop;
+        synchronized (startedServices) {
+            toStop = new ArrayList<>(startedServices);
+            startedServices.clear();
+            startedSet.clear();
+        }
+        // Dependents first.
+        for (int i = toStop.size() - 1; i >= 0; i--) {
+            toStop.get(i).stop();
         }
     }
 
     @SuppressWarnings("unchecked")
     public <T extends Service> T getService(String name) {
+        Service service = getRegisteredService(name);
+        if (service.isLazy()) {
+            startNow(service, new HashSet<>());
+        }
+
+        return (T) service;
+    }
+
+    /**
+     * Records the start durations of the services started so far, as well as of the ones started
+     * from now on, into the given meter.
+     */
+    public synchronized void onMetricsReady(Meter meter) {
+        startDurationHistogram = meter.histogramBuilder("agent.service.start_duration")
+                .setDescription("Time it took for each of the agent's services to start")
+                .setUnit("ms")
+                .build();
+        for (Map.Entry<String, Long> entry : pendingStartDurationsNanos.entrySet()) {
+            recordStartDuration(entry.getKey(), entry.getValue());
+        }
+        pendingStartDurationsNanos.clear();
+    }
+
+    private CompletableFuture<Void> schedule(Service service, Map<String, CompletableFuture<Void>> scheduled,
+                                             Set<String> visiting, ExecutorService executor) {
+        String name = service.name();
+        CompletableFuture<Void> future = scheduled.get(name);
+        if (future != null) {
+            return future;
+        }
+        if (!visiting.add(name)) {
+            throw new IllegalStateException("Circular dependency found for service: " + name);
+        }
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (String dependency : service.dependencies()) {
+            dependencies.add(schedule(getRegisteredService(dependency), scheduled, visiting, executor));
+        }
+        visiting.remove(name);
+        future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+                .thenRunAsync(() -> startIfNeeded(service), executor);
+        scheduled.put(name, future);
+        return future;
+    }
+
+    /**
+     * Starts a lazy service, along with its dependencies, from the caller's thread.
+     */
+    private void startNow(Service service, Set<String> visiting) {
+        if (isStarted(service)) {
+            return;
+        }
+        if (!visiting.add(service.name())) {
+            throw new IllegalStateException("Circular dependency found for service: " + service.name());
+        }
+        for (String dependency : service.dependencies()) {
+            startNow(getRegisteredService(dependency), visiting);
+        }
+        startIfNeeded(service);
+    }
+
+    private void startIfNeeded(Service service) {
+        synchronized (service) {
+            if (isStarted(service)) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            service.start();
+            long durationNanos = System.nanoTime() - startNanos;
+            synchronized (startedServices) {
+                startedServices.add(service);
+                startedSet.add(service);
+            }
+            onServiceStarted(service.name(), durationNanos);
+        }
+    }
+
+    private boolean isStarted(Service service) {
+        return startedSet.contains(service);
+    }
+
+    private synchronized void onServiceStarted(String name, long durationNanos) {
+        Elog.getLogger().debug("Service '" + name + "' started in " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms");
+        if (startDurationHistogram != null) {
+            recordStartDuration(name, durationNanos);
+        } else {
+            pendingStartDurationsNanos.put(name, durationNanos);
+        }
+    }
+
+    private void recordStartDuration(String name, long durationNanos) {
+        startDurationHistogram.record(durationNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), Attributes.of(SERVICE_NAME, name));
+    }
+
+    private Service getRegisteredService(String name) {
         Service service = services.get(name);
         if (service == null) {
             throw new IllegalArgumentException("Service not found: " + name);
         }
-
-        return (T) service;
+        return service;
     }
 
     private void verifyNotExisting(String name) {
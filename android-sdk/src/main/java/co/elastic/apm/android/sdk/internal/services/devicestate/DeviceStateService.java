@@ -0,0 +1,199 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import co.elastic.apm.android.common.internal.logging.Elog;
+import co.elastic.apm.android.sdk.internal.services.Service;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Follows the thermal status, battery level, battery saver and memory trim signals, and sets the
+ * {@link Throttling} level to the highest one that any of them calls for. Memory trim signals
+ * have no counterpart for when the pressure is gone, so they're forgotten after a while unless
+ * they're received again.
+ */
+public class DeviceStateService extends BroadcastReceiver implements Service, ComponentCallbacks2 {
+    private static final AttributeKey<String> FROM_LEVEL = AttributeKey.stringKey("agent.throttle.from");
+    private static final AttributeKey<String> TO_LEVEL = AttributeKey.stringKey("agent.throttle.to");
+    private static final AttributeKey<String> REASON = AttributeKey.stringKey("agent.throttle.reason");
+    private static final long MEMORY_PRESSURE_DURATION_MILLIS = 60_000;
+    private final Context appContext;
+    private final PowerManager powerManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable memoryPressureExpiration = () -> onMemoryLevelChanged(ThrottleLevel.NONE);
+    private final List<Attributes> pendingTransitions = new ArrayList<>();
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private int batteryPercent = -1;
+    private boolean charging = false;
+    private ThrottleLevel thermalLevel = ThrottleLevel.NONE;
+    private ThrottleLevel batteryLevel = ThrottleLevel.NONE;
+    private ThrottleLevel memoryLevel = ThrottleLevel.NONE;
+    private ThrottleLevel level = ThrottleLevel.NONE;
+    private LongCounter transitionsCounter;
+
+    public DeviceStateService(Context context) {
+        appContext = context.getApplicationContext();
+        powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+    }
+
+    @Override
+    public void start() {
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        // The battery broadcast is sticky, so the current state is received right away.
+        appContext.registerReceiver(this, filter);
+        appContext.registerComponentCallbacks(this);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            registerThermalListener();
+        }
+    }
+
+    @Override
+    public void stop() {
+        appContext.unregisterReceiver(this);
+        appContext.unregisterComponentCallbacks(this);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            unregisterThermalListener();
+        }
+        handler.removeCallbacks(memoryPressureExpiration);
+        Throttling.setLevel(ThrottleLevel.NONE);
+    }
+
+    @Override
+    public String name() {
+        return Service.Names.DEVICE_STATE;
+    }
+
+    /**
+     * Counts the level transitions that happened so far, as well as the ones from now on, into the
+     * given meter, and reports the current level.
+     */
+    public synchronized void onMetricsReady(Meter meter) {
+        transitionsCounter = meter.counterBuilder("agent.throttle.transitions")
+                .setDescription("Changes of the agent's throttle level due to the device state")
+                .build();
+        meter.gaugeBuilder("agent.throttle.level")
+                .setDescription("Current throttle level of the agent, from 0 (none) to 2 (heavy)")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(Throttling.getLevel().ordinal()));
+        for (Attributes transition : pendingTransitions) {
+            transitionsCounter.add(1, transition);
+        }
+        pendingTransitions.clear();
+    }
+
+    @Override
+    public synchronized void onReceive(Context context, Intent intent) {
+        if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+            int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+            batteryPercent = (level >= 0 && scale > 0) ? level * 100 / scale : -1;
+            charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+        }
+        batteryLevel = ThrottleLevel.forBattery(batteryPercent, charging, powerManager.isPowerSaveMode());
+        update("battery");
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            ThrottledSpanExporter.releaseAllHeldSpans();
+        }
+        ThrottleLevel trimLevel = ThrottleLevel.forTrimMemoryLevel(level);
+        if (trimLevel == ThrottleLevel.NONE) {
+            return;
+        }
+        handler.removeCallbacks(memoryPressureExpiration);
+        handler.postDelayed(memoryPressureExpiration, MEMORY_PRESSURE_DURATION_MILLIS);
+        onMemoryLevelChanged(trimLevel);
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // No operation.
+    }
+
+    private synchronized void onMemoryLevelChanged(ThrottleLevel memoryLevel) {
+        this.memoryLevel = memoryLevel;
+        update("memory");
+    }
+
+    private synchronized void onThermalStatusChanged(int status) {
+        thermalLevel = ThrottleLevel.forThermalStatus(status);
+        update("thermal");
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private void registerThermalListener() {
+        thermalListener = this::onThermalStatusChanged;
+        onThermalStatusChanged(powerManager.getCurrentThermalStatus());
+        powerManager.addThermalStatusListener(thermalListener);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private void unregisterThermalListener() {
+        if (thermalListener != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    private void update(String reason) {
+        ThrottleLevel newLevel = ThrottleLevel.max(thermalLevel, ThrottleLevel.max(batteryLevel, memoryLevel));
+        if (newLevel == level) {
+            return;
+        }
+        Elog.getLogger().debug("Agent throttle level changed from " + level + " to " + newLevel + " due to the " + reason + " state");
+        Attributes transition = Attributes.of(FROM_LEVEL, level.name(), TO_LEVEL, newLevel.name(), REASON, reason);
+        level = newLevel;
+        Throttling.setLevel(newLevel);
+        if (transitionsCounter != null) {
+            transitionsCounter.add(1, transition);
+        } else {
+            pendingTransitions.add(transition);
+        }
+    }
+}
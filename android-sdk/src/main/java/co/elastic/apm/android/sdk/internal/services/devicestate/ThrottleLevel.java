@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import android.content.ComponentCallbacks2;
+import android.os.PowerManager;
+
+/**
+ * The steps in which the agent sheds work when the device is under pressure. Each one keeps the
+ * restrictions of the previous one.
+ */
+public enum ThrottleLevel {
+    NONE(1.0, 1, true, true),
+    /**
+     * Samples half of the traces, stops profiling screen loads and exports half as often.
+     */
+    LIGHT(0.5, 2, false, true),
+    /**
+     * Samples a tenth of the traces, stops measuring the HTTP connection and response body
+     * phases and exports four times less often.
+     */
+    HEAVY(0.1, 4, false, false);
+
+    private static final int LOW_BATTERY_PERCENT = 15;
+    private static final int CRITICAL_BATTERY_PERCENT = 5;
+    public final double sampleRatio;
+    public final int exportIntervalMultiplier;
+    public final boolean profilingEnabled;
+    public final boolean httpPhaseTimingEnabled;
+
+    ThrottleLevel(double sampleRatio, int exportIntervalMultiplier, boolean profilingEnabled, boolean httpPhaseTimingEnabled) {
+        this.sampleRatio = sampleRatio;
+        this.exportIntervalMultiplier = exportIntervalMultiplier;
+        this.profilingEnabled = profilingEnabled;
+        this.httpPhaseTimingEnabled = httpPhaseTimingEnabled;
+    }
+
+    static ThrottleLevel forThermalStatus(int thermalStatus) {
+        if (thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+            return HEAVY;
+        }
+        if (thermalStatus >= PowerManager.THERMAL_STATUS_MODERATE) {
+            return LIGHT;
+        }
+        return NONE;
+    }
+
+    /**
+     * @param batteryPercent The battery level, or a negative value if it's unknown.
+     */
+    static ThrottleLevel forBattery(int batteryPercent, boolean charging, boolean powerSaveMode) {
+        boolean discharging = !charging && batteryPercent >= 0;
+        if (discharging && batteryPercent <= CRITICAL_BATTERY_PERCENT) {
+            return HEAVY;
+        }
+        if (powerSaveMode || (discharging && batteryPercent <= LOW_BATTERY_PERCENT)) {
+            return LIGHT;
+        }
+        return NONE;
+    }
+
+    static ThrottleLevel forTrimMemoryLevel(int trimMemoryLevel) {
+        switch (trimMemoryLevel) {
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+            case ComponentCallbacks2.TRIM_MEMORY_BACKGROUND:
+                return LIGHT;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+            case ComponentCallbacks2.TRIM_MEMORY_MODERATE:
+            case ComponentCallbacks2.TRIM_MEMORY_COMPLETE:
+                return HEAVY;
+            default:
+                return NONE;
+        }
+    }
+
+    static ThrottleLevel max(ThrottleLevel first, ThrottleLevel second) {
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import java.util.Collection;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+/**
+ * Stretches the export interval of its metric reader by the current
+ * {@link ThrottleLevel#exportIntervalMultiplier}, by skipping the collections in between. That's
+ * only done when every instrument is exported with cumulative temporality, as the skipped
+ * collections are then contained in the next ones.
+ */
+public final class ThrottledMetricExporter implements MetricExporter {
+    private final MetricExporter delegate;
+    private final boolean canSkipExports;
+    private int skippedExports = 0;
+
+    public ThrottledMetricExporter(MetricExporter delegate) {
+        this.delegate = delegate;
+        canSkipExports = isCumulative(delegate);
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+        return delegate.getAggregationTemporality(instrumentType);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<MetricData> metrics) {
+        if (canSkipExports && ++skippedExports < Throttling.getLevel().exportIntervalMultiplier) {
+            return CompletableResultCode.ofSuccess();
+        }
+        skippedExports = 0;
+        return delegate.export(metrics);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+
+    private static boolean isCumulative(MetricExporter exporter) {
+        for (InstrumentType instrumentType : InstrumentType.values()) {
+            if (exporter.getAggregationTemporality(instrumentType) != AggregationTemporality.CUMULATIVE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
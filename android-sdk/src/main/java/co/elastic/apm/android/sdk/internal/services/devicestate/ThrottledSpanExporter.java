@@ -0,0 +1,161 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Stretches the export interval of its span processor by the current
+ * {@link ThrottleLevel#exportIntervalMultiplier}, holding the batches it gets in between, up to
+ * a limit, so that they're sent together. Span processors only export when they have spans, so
+ * held spans are also sent after a while if no other batch arrives, such as when the app goes
+ * idle. They're also sent once the app goes to the background, where its process can be killed
+ * at any time, along with the spans it still holds.
+ */
+public final class ThrottledSpanExporter implements SpanExporter {
+    private static final int MAX_HELD_SPANS = 2048;
+    private static final long DEFAULT_MAX_HOLD_MILLIS = 30_000;
+    private static final Set<ThrottledSpanExporter> instances = Collections.newSetFromMap(new WeakHashMap<>());
+    private final SpanExporter delegate;
+    private final long maxHoldMillis;
+    private final List<SpanData> heldSpans = new ArrayList<>();
+    private int heldBatches = 0;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledRelease;
+
+    public ThrottledSpanExporter(SpanExporter delegate) {
+        this(delegate, DEFAULT_MAX_HOLD_MILLIS);
+    }
+
+    ThrottledSpanExporter(SpanExporter delegate, long maxHoldMillis) {
+        this.delegate = delegate;
+        this.maxHoldMillis = maxHoldMillis;
+        synchronized (instances) {
+            instances.add(this);
+        }
+    }
+
+    /**
+     * Sends the spans held by every exporter from their own threads, as it's called from the
+     * main one.
+     */
+    static void releaseAllHeldSpans() {
+        List<ThrottledSpanExporter> exporters;
+        synchronized (instances) {
+            exporters = new ArrayList<>(instances);
+        }
+        for (ThrottledSpanExporter exporter : exporters) {
+            exporter.releaseHeldSpansSoon();
+        }
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        synchronized (heldSpans) {
+            heldSpans.addAll(spans);
+            heldBatches++;
+            if (heldBatches < Throttling.getLevel().exportIntervalMultiplier && heldSpans.size() < MAX_HELD_SPANS) {
+                scheduleRelease();
+                return CompletableResultCode.ofSuccess();
+            }
+            return delegate.export(takeHeldSpans());
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        synchronized (heldSpans) {
+            List<SpanData> toExport = takeHeldSpans();
+            if (toExport.isEmpty()) {
+                return delegate.flush();
+            }
+            return CompletableResultCode.ofAll(Arrays.asList(delegate.export(toExport), delegate.flush()));
+        }
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        synchronized (instances) {
+            instances.remove(this);
+        }
+        CompletableResultCode result = CompletableResultCode.ofAll(Arrays.asList(flush(), delegate.shutdown()));
+        synchronized (heldSpans) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        return result;
+    }
+
+    private void scheduleRelease() {
+        if (scheduledRelease != null) {
+            return;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "elastic-throttled-span-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduledRelease = scheduler.schedule(this::releaseHeldSpans, maxHoldMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void releaseHeldSpansSoon() {
+        synchronized (heldSpans) {
+            // The scheduler is always there while spans are held.
+            if (!heldSpans.isEmpty() && scheduler != null) {
+                scheduler.execute(this::releaseHeldSpans);
+            }
+        }
+    }
+
+    private void releaseHeldSpans() {
+        synchronized (heldSpans) {
+            if (!heldSpans.isEmpty()) {
+                delegate.export(takeHeldSpans());
+            }
+        }
+    }
+
+    private List<SpanData> takeHeldSpans() {
+        List<SpanData> spans = new ArrayList<>(heldSpans);
+        heldSpans.clear();
+        heldBatches = 0;
+        if (scheduledRelease != null) {
+            scheduledRelease.cancel(false);
+            scheduledRelease = null;
+        }
+        return spans;
+    }
+}
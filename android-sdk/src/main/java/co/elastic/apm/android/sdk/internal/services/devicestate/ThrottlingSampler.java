@@ -0,0 +1,55 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+/**
+ * Samples new traces based on their ids, using the ratio of the current {@link ThrottleLevel}.
+ * Meant to be the root sampler of a parent based one, so that traces are either kept or dropped
+ * as a whole.
+ */
+public final class ThrottlingSampler implements Sampler {
+    private final Sampler[] samplers = new Sampler[ThrottleLevel.values().length];
+
+    public ThrottlingSampler() {
+        for (ThrottleLevel level : ThrottleLevel.values()) {
+            samplers[level.ordinal()] = (level.sampleRatio >= 1.0) ? Sampler.alwaysOn() : Sampler.traceIdRatioBased(level.sampleRatio);
+        }
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        return samplers[Throttling.getLevel().ordinal()].shouldSample(parentContext, traceId, name, spanKind,
+                attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return "ThrottlingSampler";
+    }
+}
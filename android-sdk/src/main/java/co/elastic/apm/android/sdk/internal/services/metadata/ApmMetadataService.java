@@ -25,47 +25,63 @@ import androidx.annotation.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import co.elastic.apm.android.common.ApmInfo;
 import co.elastic.apm.android.sdk.internal.services.Service;
 import co.elastic.apm.android.sdk.providers.LazyProvider;
 
+/**
+ * Provides the values configured through the Gradle plugin. They're read from the class the
+ * plugin generates, which needs no I/O, and only from the properties asset it also generates when
+ * the class can't be found, such as when the app was built with an older plugin version.
+ */
 public class ApmMetadataService implements Service {
-    private final LazyProvider<Properties> apmInfoPropertiesProvider;
+    private static final String[] KEYS = {
+            ApmInfo.KEY_SERVICE_NAME,
+            ApmInfo.KEY_SERVICE_VERSION,
+            ApmInfo.KEY_SERVER_URL,
+            ApmInfo.KEY_SERVER_SECRET_TOKEN,
+            ApmInfo.KEY_SERVICE_ENVIRONMENT,
+            ApmInfo.KEY_SCOPE_OKHTTP_VERSION
+    };
+    private final LazyProvider<Map<String, String>> apmInfoProvider;
 
     public ApmMetadataService(Context appContext) {
-        apmInfoPropertiesProvider = LazyProvider.of(() -> getApmInfoProperties(appContext));
+        apmInfoProvider = LazyProvider.of(() -> getApmInfo(appContext));
     }
 
     @NonNull
     public String getServiceName() {
-        return apmInfoPropertiesProvider.get().getProperty(ApmInfo.KEY_SERVICE_NAME);
+        return apmInfoProvider.get().get(ApmInfo.KEY_SERVICE_NAME);
     }
 
     @NonNull
     public String getServiceVersion() {
-        return apmInfoPropertiesProvider.get().getProperty(ApmInfo.KEY_SERVICE_VERSION);
+        return apmInfoProvider.get().get(ApmInfo.KEY_SERVICE_VERSION);
     }
 
     @NonNull
     public String getServerUrl() {
-        return apmInfoPropertiesProvider.get().getProperty(ApmInfo.KEY_SERVER_URL);
+        return apmInfoProvider.get().get(ApmInfo.KEY_SERVER_URL);
     }
 
     @Nullable
     public String getSecretToken() {
-        return apmInfoPropertiesProvider.get().getProperty(ApmInfo.KEY_SERVER_SECRET_TOKEN);
+        return apmInfoProvider.get().get(ApmInfo.KEY_SERVER_SECRET_TOKEN);
     }
 
     @NonNull
     public String getDeploymentEnvironment() {
-        return apmInfoPropertiesProvider.get().getProperty(ApmInfo.KEY_SERVICE_ENVIRONMENT);
+        return apmInfoProvider.get().get(ApmInfo.KEY_SERVICE_ENVIRONMENT);
     }
 
     @Nullable
     public String getOkHttpVersion() {
-        return apmInfoPropertiesProvider.get().getProperty(ApmInfo.KEY_SCOPE_OKHTTP_VERSION);
+        return apmInfoProvider.get().get(ApmInfo.KEY_SCOPE_OKHTTP_VERSION);
     }
 
     @Override
@@ -83,11 +99,43 @@ public class ApmMetadataService implements Service {
         return Service.Names.METADATA;
     }
 
-    private Properties getApmInfoProperties(Context appContext) {
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    private Map<String, String> getApmInfo(Context appContext) {
+        Map<String, String> apmInfo = getGeneratedApmInfo();
+        if (apmInfo == null) {
+            apmInfo = getApmInfoFromProperties(appContext);
+        }
+        return apmInfo;
+    }
+
+    @Nullable
+    private static Map<String, String> getGeneratedApmInfo() {
+        try {
+            Class<?> generatedClass = Class.forName(ApmInfo.GENERATED_CLASS_NAME);
+            Map<String, String> apmInfo = new HashMap<>();
+            for (String key : KEYS) {
+                Field field = generatedClass.getField(ApmInfo.getGeneratedFieldName(key));
+                apmInfo.put(key, (String) field.get(null));
+            }
+            return apmInfo;
+        } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private Map<String, String> getApmInfoFromProperties(Context appContext) {
         try (InputStream propertiesFileInputStream = appContext.getAssets().open(ApmInfo.ASSET_FILE_NAME)) {
             Properties properties = new Properties();
             properties.load(propertiesFileInputStream);
-            return properties;
+            Map<String, String> apmInfo = new HashMap<>();
+            for (String key : KEYS) {
+                apmInfo.put(key, properties.getProperty(key));
+            }
+            return apmInfo;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -18,10 +18,14 @@
  */
 package co.elastic.apm.android.sdk.internal.services.network;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
+import android.os.Build;
 import android.telephony.TelephonyManager;
 
 import androidx.annotation.NonNull;
@@ -29,33 +33,53 @@ import androidx.annotation.Nullable;
 
 import org.jetbrains.annotations.NotNull;
 
-import co.elastic.apm.android.sdk.ElasticApmAgent;
+import java.util.Collection;
+import java.util.Collections;
+
 import co.elastic.apm.android.sdk.internal.services.Service;
 import co.elastic.apm.android.sdk.internal.services.network.data.CarrierInfo;
 import co.elastic.apm.android.sdk.internal.services.network.data.type.NetworkType;
 import co.elastic.apm.android.sdk.internal.services.network.utils.CellSubTypeProvider;
 import co.elastic.apm.android.sdk.internal.services.permissions.AndroidPermissionService;
-
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+/**
+ * Keeps immutable {@link Attributes} snapshots of the current connection and carrier so that
+ * the HTTP span attribute visitors don't need to query the system services per request. The
+ * snapshots are recomputed and published (through volatile fields) only when the connectivity
+ * callbacks or the SIM/carrier change broadcasts are received.
+ */
 public class NetworkService extends ConnectivityManager.NetworkCallback implements Service {
+    private static final String ACTION_SIM_STATE_CHANGED = "android.intent.action.SIM_STATE_CHANGED";
+    private final Context appContext;
     private final ConnectivityManager connectivityManager;
     private final TelephonyManager telephonyManager;
-    private NetworkType networkType = NetworkType.none();
-    private AndroidPermissionService permissionService;
-
-    public NetworkService(Context context) {
-        Context appContext = context.getApplicationContext();
+    private final CarrierChangeReceiver carrierChangeReceiver = new CarrierChangeReceiver();
+    private volatile NetworkType networkType = NetworkType.none();
+    private volatile Attributes connectionAttributes = createConnectionAttributes(NetworkType.none());
+    private volatile Attributes carrierAttributes = Attributes.empty();
+    private final AndroidPermissionService permissionService;
+
+    public NetworkService(Context context, AndroidPermissionService permissionService) {
+        appContext = context.getApplicationContext();
+        this.permissionService = permissionService;
         connectivityManager = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
         telephonyManager = (TelephonyManager) appContext.getSystemService(Context.TELEPHONY_SERVICE);
     }
 
     @Override
     public void start() {
+        refreshCarrierAttributes();
+        appContext.registerReceiver(carrierChangeReceiver, getCarrierChangeFilter());
         connectivityManager.registerDefaultNetworkCallback(this);
     }
 
     @Override
     public void stop() {
         connectivityManager.unregisterNetworkCallback(this);
+        appContext.unregisterReceiver(carrierChangeReceiver);
     }
 
     @Override
@@ -63,35 +87,42 @@ public class NetworkService extends ConnectivityManager.NetworkCallback implemen
         return Service.Names.NETWORK;
     }
 
+    @Override
+    public Collection<String> dependencies() {
+        return Collections.singletonList(Names.ANDROID_PERMISSIONS);
+    }
+
     @NotNull
     public NetworkType getType() {
         return networkType;
     }
 
-    @Nullable
-    public CarrierInfo getCarrierInfo() {
-        if (!canQueryCarrierInfo()) {
-            return null;
-        }
+    /**
+     * @return The latest published snapshot of the connection type attributes.
+     */
+    @NonNull
+    public Attributes getConnectionAttributes() {
+        return connectionAttributes;
+    }
 
-        String simOperator = telephonyManager.getSimOperator();
-        String mcc = simOperator.substring(0, 3);
-        String mnc = simOperator.substring(3);
-        return new CarrierInfo(telephonyManager.getSimOperatorName(),
-                mcc,
-                mnc,
-                telephonyManager.getSimCountryIso());
+    /**
+     * @return The latest published snapshot of the carrier attributes, which is empty when
+     * the carrier info can't be queried.
+     */
+    @NonNull
+    public Attributes getCarrierAttributes() {
+        return carrierAttributes;
     }
 
     @Override
     public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
         super.onCapabilitiesChanged(network, networkCapabilities);
-        networkType = getNetworkType(networkCapabilities);
+        setNetworkType(getNetworkType(networkCapabilities));
     }
 
     private NetworkType getNetworkType(NetworkCapabilities networkCapabilities) {
         if (networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
-            return NetworkType.cell(CellSubTypeProvider.getSubtypeName(telephonyManager, getPermissionService()));
+            return NetworkType.cell(CellSubTypeProvider.getSubtypeName(telephonyManager, permissionService));
         } else if (networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
             return NetworkType.wifi();
         } else {
@@ -102,18 +133,73 @@ public class NetworkService extends ConnectivityManager.NetworkCallback implemen
     @Override
     public void onLost(@NonNull Network network) {
         super.onLost(network);
-        networkType = NetworkType.none();
+        setNetworkType(NetworkType.none());
+    }
+
+    private void setNetworkType(NetworkType networkType) {
+        connectionAttributes = createConnectionAttributes(networkType);
+        this.networkType = networkType;
+    }
+
+    private static Attributes createConnectionAttributes(NetworkType networkType) {
+        AttributesBuilder builder = Attributes.builder();
+        builder.put(SemanticAttributes.NET_HOST_CONNECTION_TYPE, networkType.getName());
+        if (networkType.getSubTypeName() != null) {
+            builder.put(SemanticAttributes.NET_HOST_CONNECTION_SUBTYPE, networkType.getSubTypeName());
+        }
+        return builder.build();
+    }
+
+    private void refreshCarrierAttributes() {
+        CarrierInfo carrierInfo = getCarrierInfo();
+        if (carrierInfo == null) {
+            carrierAttributes = Attributes.empty();
+            return;
+        }
+
+        carrierAttributes = Attributes.builder()
+                .put(SemanticAttributes.NET_HOST_CARRIER_NAME, carrierInfo.name)
+                .put(SemanticAttributes.NET_HOST_CARRIER_MCC, carrierInfo.mcc)
+                .put(SemanticAttributes.NET_HOST_CARRIER_MNC, carrierInfo.mnc)
+                .put(SemanticAttributes.NET_HOST_CARRIER_ICC, carrierInfo.icc)
+                .build();
+    }
+
+    @Nullable
+    private CarrierInfo getCarrierInfo() {
+        if (!canQueryCarrierInfo()) {
+            return null;
+        }
+
+        String simOperator = telephonyManager.getSimOperator();
+        if (simOperator == null || simOperator.length() < 4) {
+            return null;
+        }
+        String mcc = simOperator.substring(0, 3);
+        String mnc = simOperator.substring(3);
+        return new CarrierInfo(telephonyManager.getSimOperatorName(),
+                mcc,
+                mnc,
+                telephonyManager.getSimCountryIso());
     }
 
     private boolean canQueryCarrierInfo() {
         return telephonyManager.getSimState() == TelephonyManager.SIM_STATE_READY;
     }
 
-    private AndroidPermissionService getPermissionService() {
-        if (permissionService == null) {
-            permissionService = ElasticApmAgent.get().getService(Names.ANDROID_PERMISSIONS);
+    private IntentFilter getCarrierChangeFilter() {
+        IntentFilter filter = new IntentFilter(ACTION_SIM_STATE_CHANGED);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            filter.addAction(TelephonyManager.ACTION_SUBSCRIPTION_CARRIER_IDENTITY_CHANGED);
         }
+        return filter;
+    }
 
-        return permissionService;
+    private class CarrierChangeReceiver extends BroadcastReceiver {
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refreshCarrierAttributes();
+        }
     }
-}
\ No newline at end of file
+}
@@ -48,4 +48,9 @@ public class AndroidPermissionService implements Service {
     public String name() {
         return Service.Names.ANDROID_PERMISSIONS;
     }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
 }
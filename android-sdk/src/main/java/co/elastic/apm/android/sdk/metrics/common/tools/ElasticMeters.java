@@ -0,0 +1,49 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.metrics.common.tools;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.internal.services.Service;
+import co.elastic.apm.android.sdk.internal.services.metadata.ApmMetadataService;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterBuilder;
+
+public final class ElasticMeters {
+
+    public static Meter create(@NonNull String name, @Nullable String version) {
+        MeterBuilder meterBuilder = GlobalOpenTelemetry.get().getMeterProvider().meterBuilder(name);
+        if (version != null) {
+            meterBuilder.setInstrumentationVersion(version);
+        }
+        return meterBuilder.build();
+    }
+
+    public static Meter create(String name) {
+        return create(name, null);
+    }
+
+    public static Meter okhttp() {
+        ApmMetadataService service = ElasticApmAgent.get().getService(Service.Names.METADATA);
+        return create("OkHttp", service.getOkHttpVersion());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.traces.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Creates a span for each call to the annotated method. The span is woven into the method at
+ * build time by the Elastic APM Gradle plugin.
+ * <p>
+ * When {@link #minDurationMs()} is greater than zero, the method's start time is recorded and
+ * the span is only created once the method returns, if it took at least that long, so fast calls
+ * don't create spans at all. Since those spans don't exist while the method runs, they can't be
+ * the parent of the spans created within it. Spans without a minimum duration are made current
+ * while the method runs instead.
+ * <p>
+ * Not suitable for Kotlin suspend functions, which return as soon as they suspend.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Traced {
+
+    /**
+     * The span name. Defaults to the method's class simple name followed by its name, such as
+     * "MyRepository.loadItems".
+     */
+    String name() default "";
+
+    /**
+     * The minimum amount of milliseconds the method has to take for its span to be created.
+     */
+    long minDurationMs() default 0;
+}
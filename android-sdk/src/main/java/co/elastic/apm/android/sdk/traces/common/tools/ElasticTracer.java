@@ -52,6 +52,14 @@ public class ElasticTracer implements Tracer {
         return create("OkHttp", service.getOkHttpVersion());
     }
 
+    public static ElasticTracer httpUrlConnection() {
+        return create("HttpURLConnection");
+    }
+
+    public static ElasticTracer androidApplication() {
+        return create("Android Application");
+    }
+
     public static ElasticTracer androidActivity() {
         return create("Android Activity");
     }
@@ -60,6 +68,18 @@ public class ElasticTracer implements Tracer {
         return create("Android Fragment");
     }
 
+    public static ElasticTracer workManager() {
+        return create("WorkManager");
+    }
+
+    public static ElasticTracer sqlite() {
+        return create("SQLite");
+    }
+
+    public static ElasticTracer tracedMethods() {
+        return create("Traced Methods");
+    }
+
     public static ElasticTracer coroutine() {
         return create("Kotlin Coroutine");
     }
@@ -19,8 +19,11 @@
 package co.elastic.apm.android.sdk.traces.connectivity;
 
 import co.elastic.apm.android.sdk.traces.connectivity.base.BatchProcessingConnectivity;
+import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporter;
+import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporterBuilder;
 import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
 import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporterBuilder;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 
 public class CommonConnectivity extends BatchProcessingConnectivity {
@@ -44,4 +47,13 @@ public class CommonConnectivity extends BatchProcessingConnectivity {
         }
         return exporterBuilder.build();
     }
+
+    @Override
+    protected MetricExporter provideMetricExporter() {
+        OtlpGrpcMetricExporterBuilder exporterBuilder = OtlpGrpcMetricExporter.builder().setEndpoint(endpoint);
+        if (token != null) {
+            exporterBuilder.addHeader("Authorization", "Bearer " + token);
+        }
+        return exporterBuilder.build();
+    }
 }
\ No newline at end of file
@@ -18,6 +18,8 @@
  */
 package co.elastic.apm.android.sdk.traces.connectivity;
 
+import androidx.annotation.Nullable;
+
 import co.elastic.apm.android.sdk.ElasticApmAgent;
 import co.elastic.apm.android.sdk.internal.services.Service;
 import co.elastic.apm.android.sdk.internal.services.metadata.ApmMetadataService;
@@ -25,6 +27,7 @@ import co.elastic.apm.android.sdk.providers.LazyProvider;
 import co.elastic.apm.android.sdk.providers.Provider;
 import co.elastic.apm.android.sdk.traces.connectivity.custom.CustomExporterConnectivity;
 import co.elastic.apm.android.sdk.traces.connectivity.custom.CustomProcessorConnectivity;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
 import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 
@@ -55,4 +58,12 @@ public interface Connectivity {
     }
 
     SpanProcessor getSpanProcessor();
+
+    /**
+     * @return The reader used to export the agent's metrics, or null if metrics shouldn't be exported.
+     */
+    @Nullable
+    default MetricReader getMetricReader() {
+        return null;
+    }
 }
@@ -18,8 +18,16 @@
  */
 package co.elastic.apm.android.sdk.traces.connectivity.base;
 
+import androidx.annotation.Nullable;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.internal.services.devicestate.ThrottledMetricExporter;
+import co.elastic.apm.android.sdk.internal.services.devicestate.ThrottledSpanExporter;
 import co.elastic.apm.android.sdk.traces.connectivity.Connectivity;
 import co.elastic.apm.android.sdk.traces.otel.exporter.ElasticSpanExporter;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 
@@ -34,10 +42,38 @@ public abstract class BaseConnectivity implements Connectivity {
         } else {
             exporter = new ElasticSpanExporter(original);
         }
+        if (isThrottlingEnabled()) {
+            return provideSpanProcessor(new ThrottledSpanExporter(exporter));
+        }
         return provideSpanProcessor(exporter);
     }
 
+    @Override
+    public MetricReader getMetricReader() {
+        MetricExporter exporter = provideMetricExporter();
+        if (exporter == null) {
+            return null;
+        }
+        if (isThrottlingEnabled()) {
+            exporter = new ThrottledMetricExporter(exporter);
+        }
+        return PeriodicMetricReader.builder(exporter).build();
+    }
+
     protected abstract SpanProcessor provideSpanProcessor(SpanExporter exporter);
 
+    @Nullable
+    protected MetricExporter provideMetricExporter() {
+        return null;
+    }
+
     protected abstract SpanExporter provideSpanExporter();
+
+    /**
+     * The exporters are only wrapped when they can be throttled, which requires the agent to
+     * follow the device state.
+     */
+    private static boolean isThrottlingEnabled() {
+        return ElasticApmAgent.isInitialized() && ElasticApmAgent.get().configuration.deviceStateThrottlingEnabled;
+    }
 }
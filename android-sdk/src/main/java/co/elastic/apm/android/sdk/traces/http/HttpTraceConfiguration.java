@@ -27,6 +27,7 @@ import java.util.Set;
 
 import co.elastic.apm.android.sdk.attributes.AttributesBuilderVisitor;
 import co.elastic.apm.android.sdk.attributes.AttributesCompose;
+import co.elastic.apm.android.sdk.internal.otel.SpanBuilderAttributes;
 import co.elastic.apm.android.sdk.traces.http.attributes.HttpAttributesVisitor;
 import co.elastic.apm.android.sdk.traces.http.attributes.HttpAttributesVisitorWrapper;
 import co.elastic.apm.android.sdk.traces.http.attributes.visitors.BasicHttpAttributesVisitor;
@@ -35,18 +36,29 @@ import co.elastic.apm.android.sdk.traces.http.attributes.visitors.ConnectionHttp
 import co.elastic.apm.android.sdk.traces.http.data.HttpRequest;
 import co.elastic.apm.android.sdk.traces.http.filtering.HttpExclusionRule;
 import co.elastic.apm.android.sdk.traces.http.filtering.OtelRequestsExclusionRule;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanBuilder;
 
 public class HttpTraceConfiguration {
     public final Collection<HttpExclusionRule> exclusionRules;
-    private final Collection<HttpAttributesVisitor> httpAttributesVisitors;
+    private final HttpAttributesVisitor[] httpAttributesVisitors;
+    private final Attributes staticAttributes;
 
     private HttpTraceConfiguration(Builder builder) {
         exclusionRules = Collections.unmodifiableCollection(builder.exclusionRules);
-        httpAttributesVisitors = Collections.unmodifiableCollection(builder.httpAttributesVisitors);
+        httpAttributesVisitors = builder.httpAttributesVisitors.toArray(new HttpAttributesVisitor[0]);
+        staticAttributes = builder.staticAttributes.build();
     }
 
+    /**
+     * @deprecated Allocates a compose and a wrapper per visitor for every request, use
+     * {@link #visitHttpAttributes(SpanBuilder, HttpRequest)} instead.
+     */
+    @Deprecated
     public AttributesCompose createHttpAttributesCompose(HttpRequest request) {
         List<AttributesBuilderVisitor> visitors = new ArrayList<>();
+        visitors.add(builder -> builder.putAll(staticAttributes));
 
         for (HttpAttributesVisitor httpVisitor : httpAttributesVisitors) {
             visitors.add(new HttpAttributesVisitorWrapper(request, httpVisitor));
@@ -55,6 +67,20 @@ public class HttpTraceConfiguration {
         return new AttributesCompose(visitors);
     }
 
+    /**
+     * Sets the static attributes and runs all the {@link HttpAttributesVisitor}s for the given
+     * request directly against the provided {@link SpanBuilder}.
+     */
+    public void visitHttpAttributes(SpanBuilder spanBuilder, HttpRequest request) {
+        if (!staticAttributes.isEmpty()) {
+            spanBuilder.setAllAttributes(staticAttributes);
+        }
+        AttributesBuilder attributesBuilder = new SpanBuilderAttributes(spanBuilder);
+        for (HttpAttributesVisitor visitor : httpAttributesVisitors) {
+            visitor.visit(attributesBuilder, request);
+        }
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -62,6 +88,7 @@ public class HttpTraceConfiguration {
     public static class Builder {
         private final Set<HttpExclusionRule> exclusionRules = new HashSet<>();
         private final Set<HttpAttributesVisitor> httpAttributesVisitors = new HashSet<>();
+        private final AttributesBuilder staticAttributes = Attributes.builder();
 
         private Builder() {
             exclusionRules.add(new OtelRequestsExclusionRule());
@@ -80,6 +107,15 @@ public class HttpTraceConfiguration {
             return this;
         }
 
+        /**
+         * Adds attributes that don't depend on the request, they are computed once and set to
+         * every HTTP span.
+         */
+        public Builder addStaticAttributes(Attributes attributes) {
+            staticAttributes.putAll(attributes);
+            return this;
+        }
+
         public HttpTraceConfiguration build() {
             return new HttpTraceConfiguration(this);
         }
@@ -23,5 +23,9 @@ import io.opentelemetry.api.common.AttributesBuilder;
 
 public interface HttpAttributesVisitor {
 
+    /**
+     * @param builder Sets the attributes straight into the request's span, so they can only be put
+     *                into it, calling {@link AttributesBuilder#build()} on it isn't supported.
+     */
     void visit(AttributesBuilder builder, HttpRequest request);
 }
@@ -22,6 +22,11 @@ import co.elastic.apm.android.sdk.attributes.AttributesBuilderVisitor;
 import co.elastic.apm.android.sdk.traces.http.data.HttpRequest;
 import io.opentelemetry.api.common.AttributesBuilder;
 
+/**
+ * @deprecated The HTTP visitors are run directly against the span builder through
+ * {@link co.elastic.apm.android.sdk.traces.http.HttpTraceConfiguration#visitHttpAttributes}.
+ */
+@Deprecated
 public class HttpAttributesVisitorWrapper implements AttributesBuilderVisitor {
     private final HttpRequest request;
     private final HttpAttributesVisitor visitor;
@@ -22,11 +22,9 @@ import co.elastic.apm.android.sdk.ElasticApmAgent;
 import co.elastic.apm.android.sdk.providers.LazyProvider;
 import co.elastic.apm.android.sdk.internal.services.Service;
 import co.elastic.apm.android.sdk.internal.services.network.NetworkService;
-import co.elastic.apm.android.sdk.internal.services.network.data.type.NetworkType;
 import co.elastic.apm.android.sdk.traces.http.attributes.HttpAttributesVisitor;
 import co.elastic.apm.android.sdk.traces.http.data.HttpRequest;
 import io.opentelemetry.api.common.AttributesBuilder;
-import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
 public class ConnectionHttpAttributes implements HttpAttributesVisitor {
     private final LazyProvider<NetworkService> networkServiceProvider;
@@ -37,10 +35,6 @@ public class ConnectionHttpAttributes implements HttpAttributesVisitor {
 
     @Override
     public void visit(AttributesBuilder builder, HttpRequest request) {
-        NetworkType networkType = networkServiceProvider.get().getType();
-        builder.put(SemanticAttributes.NET_HOST_CONNECTION_TYPE, networkType.getName());
-        if (networkType.getSubTypeName() != null) {
-            builder.put(SemanticAttributes.NET_HOST_CONNECTION_SUBTYPE, networkType.getSubTypeName());
-        }
+        builder.putAll(networkServiceProvider.get().getConnectionAttributes());
     }
 }
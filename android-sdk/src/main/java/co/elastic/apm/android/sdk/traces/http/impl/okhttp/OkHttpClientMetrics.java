@@ -0,0 +1,232 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.traces.http.impl.okhttp;
+
+import com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.metrics.common.tools.ElasticMeters;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Records dispatcher and connection pool metrics for every instrumented {@link OkHttpClient},
+ * as well as the response bodies download throughput per host. The first
+ * {@link #MAX_TRACKED_HOSTS} hosts get their own series, later ones share an "other" one.
+ * The clients are registered at build time by the OkHttpClient instrumentation and held weakly,
+ * the gauges read their dispatcher and connection pool only when the metrics are collected.
+ */
+public final class OkHttpClientMetrics {
+    private static final AttributeKey<String> CLIENT_ID_KEY = AttributeKey.stringKey("okhttp.client.id");
+    private static final AttributeKey<Boolean> CONNECTION_REUSED_KEY = AttributeKey.booleanKey("okhttp.connection.reused");
+    private static final int MAX_TRACKED_HOSTS = 32;
+    private static final Attributes OTHER_HOST_ATTRIBUTES = Attributes.of(SemanticAttributes.NET_PEER_NAME, "other");
+    private static final AtomicInteger clientIdGenerator = new AtomicInteger();
+    private static final WeakConcurrentMap<OkHttpClient, Client> clients = new WeakConcurrentMap.WithInlinedExpunction<>();
+    private static volatile OkHttpClientMetrics instance;
+    private final DoubleHistogram connectionAcquireDuration;
+    private final DoubleHistogram dnsDuration;
+    private final DoubleHistogram connectDuration;
+    private final LongCounter acquiredConnections;
+    private final LongUpDownCounter connectionsInUse;
+    private final DoubleHistogram responseThroughput;
+    private final Map<String, Attributes> hostAttributes = new ConcurrentHashMap<>();
+
+    public static void register(OkHttpClient okHttpClient, Client client) {
+        clients.put(okHttpClient, client);
+    }
+
+    public static OkHttpClientMetrics get() {
+        OkHttpClientMetrics metrics = instance;
+        if (metrics != null) {
+            return metrics;
+        }
+        if (!ElasticApmAgent.isReady()) {
+            // Instruments created before the meter provider is set would stay no-op.
+            return NoopHolder.INSTANCE;
+        }
+        synchronized (OkHttpClientMetrics.class) {
+            if (instance == null) {
+                instance = new OkHttpClientMetrics(ElasticMeters.okhttp());
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Drops the instruments bound to the current meter provider, so that they're created again
+     * from the next one.
+     */
+    public static void reset() {
+        synchronized (OkHttpClientMetrics.class) {
+            instance = null;
+        }
+    }
+
+    private OkHttpClientMetrics(Meter meter) {
+        connectionAcquireDuration = meter.histogramBuilder("okhttp.connection.acquire.duration")
+                .setDescription("Time a call waits for a connection, excluding its interceptors, DNS lookups and connection establishment")
+                .setUnit("ms")
+                .build();
+        dnsDuration = meter.histogramBuilder("okhttp.dns.duration")
+                .setDescription("Time spent resolving the host of a new connection")
+                .setUnit("ms")
+                .build();
+        connectDuration = meter.histogramBuilder("okhttp.connect.duration")
+                .setDescription("Time spent establishing a new connection, including its TLS handshake")
+                .setUnit("ms")
+                .build();
+        acquiredConnections = meter.counterBuilder("okhttp.connection.acquired")
+                .setDescription("Acquired connections, either new or reused from the pool")
+                .build();
+        connectionsInUse = meter.upDownCounterBuilder("okhttp.connection.in_use")
+                .setDescription("Connections currently acquired by calls")
+                .build();
+        responseThroughput = meter.histogramBuilder("okhttp.response.throughput")
+                .setDescription("Download throughput of the response bodies while they are read, per host")
+                .setUnit("By/s")
+                .build();
+        meter.gaugeBuilder("okhttp.dispatcher.calls.queued")
+                .setDescription("Calls waiting in the dispatcher queue")
+                .ofLongs()
+                .buildWithCallback(OkHttpClientMetrics::observeQueuedCalls);
+        meter.gaugeBuilder("okhttp.dispatcher.calls.running")
+                .setDescription("Calls being executed by the dispatcher")
+                .ofLongs()
+                .buildWithCallback(OkHttpClientMetrics::observeRunningCalls);
+        meter.gaugeBuilder("okhttp.connection_pool.connections")
+                .setDescription("Connections held by the connection pool")
+                .ofLongs()
+                .buildWithCallback(OkHttpClientMetrics::observePoolConnections);
+        meter.gaugeBuilder("okhttp.connection_pool.connections.idle")
+                .setDescription("Idle connections held by the connection pool")
+                .ofLongs()
+                .buildWithCallback(OkHttpClientMetrics::observeIdlePoolConnections);
+    }
+
+    public void recordConnectionAcquired(Client client, boolean reused) {
+        acquiredConnections.add(1, reused ? client.reusedConnectionAttributes : client.newConnectionAttributes);
+        connectionsInUse.add(1, client.attributes);
+    }
+
+    public void recordConnectionAcquireDurations(Client client, long waitNanos, long dnsNanos, long connectNanos, boolean reused) {
+        connectionAcquireDuration.record(toMillis(waitNanos), reused ? client.reusedConnectionAttributes : client.newConnectionAttributes);
+        if (!reused) {
+            dnsDuration.record(toMillis(dnsNanos), client.attributes);
+            connectDuration.record(toMillis(connectNanos), client.attributes);
+        }
+    }
+
+    public void recordConnectionReleased(Client client) {
+        connectionsInUse.add(-1, client.attributes);
+    }
+
+    public void recordResponseThroughput(String host, double bytesPerSecond) {
+        responseThroughput.record(bytesPerSecond, getHostAttributes(host));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private Attributes getHostAttributes(String host) {
+        Attributes attributes = hostAttributes.get(host);
+        if (attributes != null) {
+            return attributes;
+        }
+        synchronized (hostAttributes) {
+            attributes = hostAttributes.get(host);
+            if (attributes == null) {
+                if (hostAttributes.size() >= MAX_TRACKED_HOSTS) {
+                    return OTHER_HOST_ATTRIBUTES;
+                }
+                attributes = Attributes.of(SemanticAttributes.NET_PEER_NAME, host);
+                hostAttributes.put(host, attributes);
+            }
+            return attributes;
+        }
+    }
+
+    private static void observeQueuedCalls(ObservableLongMeasurement measurement) {
+        for (Map.Entry<OkHttpClient, Client> entry : clients) {
+            Dispatcher dispatcher = entry.getKey().dispatcher();
+            measurement.record(dispatcher.queuedCallsCount(), entry.getValue().attributes);
+        }
+    }
+
+    private static void observeRunningCalls(ObservableLongMeasurement measurement) {
+        for (Map.Entry<OkHttpClient, Client> entry : clients) {
+            Dispatcher dispatcher = entry.getKey().dispatcher();
+            measurement.record(dispatcher.runningCallsCount(), entry.getValue().attributes);
+        }
+    }
+
+    private static void observePoolConnections(ObservableLongMeasurement measurement) {
+        for (Map.Entry<OkHttpClient, Client> entry : clients) {
+            ConnectionPool connectionPool = entry.getKey().connectionPool();
+            measurement.record(connectionPool.connectionCount(), entry.getValue().attributes);
+        }
+    }
+
+    private static void observeIdlePoolConnections(ObservableLongMeasurement measurement) {
+        for (Map.Entry<OkHttpClient, Client> entry : clients) {
+            ConnectionPool connectionPool = entry.getKey().connectionPool();
+            measurement.record(connectionPool.idleConnectionCount(), entry.getValue().attributes);
+        }
+    }
+
+    private static final class NoopHolder {
+        private static final OkHttpClientMetrics INSTANCE = new OkHttpClientMetrics(MeterProvider.noop().get("noop"));
+    }
+
+    /**
+     * Identifies an instrumented {@link OkHttpClient} in its metrics, the attributes are computed
+     * once per client so that recording a measurement doesn't allocate them.
+     */
+    public static final class Client {
+        public final Attributes attributes;
+        private final Attributes reusedConnectionAttributes;
+        private final Attributes newConnectionAttributes;
+
+        public static Client create() {
+            return new Client(String.valueOf(clientIdGenerator.incrementAndGet()));
+        }
+
+        private Client(String id) {
+            attributes = Attributes.of(CLIENT_ID_KEY, id);
+            reusedConnectionAttributes = Attributes.of(CLIENT_ID_KEY, id, CONNECTION_REUSED_KEY, true);
+            newConnectionAttributes = Attributes.of(CLIENT_ID_KEY, id, CONNECTION_REUSED_KEY, false);
+        }
+    }
+}
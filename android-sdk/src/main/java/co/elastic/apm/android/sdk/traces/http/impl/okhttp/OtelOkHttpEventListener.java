@@ -20,53 +20,194 @@ package co.elastic.apm.android.sdk.traces.http.impl.okhttp;
 
 import androidx.annotation.NonNull;
 
+import com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap;
+
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import co.elastic.apm.android.sdk.ElasticApmAgent;
-import co.elastic.apm.android.sdk.attributes.AttributesCompose;
+import co.elastic.apm.android.sdk.internal.services.devicestate.Throttling;
 import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
 import co.elastic.apm.android.sdk.traces.http.HttpTraceConfiguration;
 import co.elastic.apm.android.sdk.traces.http.data.HttpRequest;
+import co.elastic.apm.android.sdk.traces.http.filtering.HttpExclusionRule;
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 import okhttp3.Call;
+import okhttp3.Connection;
 import okhttp3.EventListener;
 import okhttp3.HttpUrl;
+import okhttp3.Protocol;
 import okhttp3.Request;
 
 public class OtelOkHttpEventListener extends EventListener {
+    private static final AttributeKey<Double> RESPONSE_THROUGHPUT_KEY = AttributeKey.doubleKey("http.response_throughput");
 
-    private static final String SPAN_NAME_FORMAT = "%s %s";
+    private final Factory factory;
     private final OkHttpContextStore contextStore;
+    private final OkHttpClientMetrics.Client client;
+    private final boolean phaseTimingEnabled;
     private HttpTraceConfiguration configuration;
     private Tracer okHttpTracer;
+    private long connectionAcquireStartNanos;
+    private long dnsStartNanos;
+    private long dnsNanos;
+    private long connectStartNanos;
+    private long connectNanos;
+    private boolean connectStarted;
+    private long responseBodyStartNanos;
+    private boolean excluded;
 
-    private OtelOkHttpEventListener(OkHttpContextStore contextStore) {
-        this.contextStore = contextStore;
+    private OtelOkHttpEventListener(Factory factory, boolean phaseTimingEnabled) {
+        this.factory = factory;
+        this.contextStore = factory.contextStore;
+        this.client = factory.client;
+        this.phaseTimingEnabled = phaseTimingEnabled;
     }
 
     @Override
     public void callStart(Call call) {
         super.callStart(call);
+        if (phaseTimingEnabled) {
+            // Used as the wait start if the OtelOkHttpTimingInterceptor isn't part of the chain.
+            connectionAcquireStartNanos = System.nanoTime();
+        }
         Request request = call.request();
         String method = request.method();
         HttpUrl url = request.url();
 
         Context currentContext = Context.current();
         String host = url.host();
-        AttributesCompose attributes = getConfiguration().createHttpAttributesCompose(convertRequest(request));
-        Span span = getTracer().spanBuilder(String.format(SPAN_NAME_FORMAT, method, host))
+        SpanBuilder spanBuilder = getTracer().spanBuilder(method + " " + host)
                 .setSpanKind(SpanKind.CLIENT)
-                .setAllAttributes(attributes.provide())
-                .setParent(currentContext)
-                .startSpan();
+                .setParent(currentContext);
+        HttpRequest httpRequest = convertRequest(request);
+        excluded = isExcluded(httpRequest);
+        getConfiguration().visitHttpAttributes(spanBuilder, httpRequest);
+        Span span = spanBuilder.startSpan();
         Context spanContext = currentContext.with(span);
         contextStore.put(request, spanContext);
     }
 
+    void markConnectionAcquireStart() {
+        connectionAcquireStartNanos = System.nanoTime();
+        dnsNanos = 0;
+        connectNanos = 0;
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        super.dnsStart(call, domainName);
+        if (phaseTimingEnabled) {
+            dnsStartNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        super.dnsEnd(call, domainName, inetAddressList);
+        if (phaseTimingEnabled) {
+            dnsNanos += System.nanoTime() - dnsStartNanos;
+        }
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        super.connectStart(call, inetSocketAddress, proxy);
+        connectStarted = true;
+        if (phaseTimingEnabled) {
+            connectStartNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        super.connectEnd(call, inetSocketAddress, proxy, protocol);
+        if (phaseTimingEnabled) {
+            connectNanos += System.nanoTime() - connectStartNanos;
+        }
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        super.connectFailed(call, inetSocketAddress, proxy, protocol, ioe);
+        if (phaseTimingEnabled) {
+            connectNanos += System.nanoTime() - connectStartNanos;
+        }
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        super.connectionAcquired(call, connection);
+        OkHttpClientMetrics metrics = OkHttpClientMetrics.get();
+        if (phaseTimingEnabled) {
+            long waitNanos = Math.max(0, System.nanoTime() - connectionAcquireStartNanos - dnsNanos - connectNanos);
+            metrics.recordConnectionAcquireDurations(client, waitNanos, dnsNanos, connectNanos, !connectStarted);
+        }
+        metrics.recordConnectionAcquired(client, !connectStarted);
+        connectStarted = false;
+        dnsNanos = 0;
+        connectNanos = 0;
+    }
+
+    @Override
+    public void connectionReleased(Call call, Connection connection) {
+        super.connectionReleased(call, connection);
+        OkHttpClientMetrics.get().recordConnectionReleased(client);
+        if (phaseTimingEnabled) {
+            // Follow-up requests of the same call might acquire another connection.
+            connectionAcquireStartNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        super.requestBodyEnd(call, byteCount);
+        Span span = getSpan(call.request());
+        if (span != null) {
+            span.setAttribute(SemanticAttributes.HTTP_REQUEST_CONTENT_LENGTH, byteCount);
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        super.responseBodyStart(call);
+        if (phaseTimingEnabled) {
+            responseBodyStartNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        super.responseBodyEnd(call, byteCount);
+        Request request = call.request();
+        Span span = getSpan(request);
+        if (span != null) {
+            span.setAttribute(SemanticAttributes.HTTP_RESPONSE_CONTENT_LENGTH, byteCount);
+        }
+        if (excluded || !phaseTimingEnabled) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - responseBodyStartNanos;
+        if (byteCount > 0 && durationNanos > 0) {
+            double bytesPerSecond = byteCount * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+            if (span != null) {
+                span.setAttribute(RESPONSE_THROUGHPUT_KEY, bytesPerSecond);
+            }
+            OkHttpClientMetrics.get().recordResponseThroughput(request.url().host(), bytesPerSecond);
+        }
+    }
+
     @Override
     public void callEnd(Call call) {
         super.callEnd(call);
@@ -79,6 +220,7 @@ public class OtelOkHttpEventListener extends EventListener {
             }
             contextStore.remove(request);
         }
+        factory.listeners.remove(call);
     }
 
     @Override
@@ -95,12 +237,31 @@ public class OtelOkHttpEventListener extends EventListener {
             }
             contextStore.remove(request);
         }
+        factory.listeners.remove(call);
+    }
+
+    private boolean isExcluded(HttpRequest request) {
+        for (HttpExclusionRule rule : getConfiguration().exclusionRules) {
+            if (rule.exclude(request)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean isValid(Span span) {
         return span != null && span != Span.getInvalid();
     }
 
+    private Span getSpan(Request request) {
+        Context context = getContext(request);
+        if (context == null) {
+            return null;
+        }
+        Span span = Span.fromContext(context);
+        return isValid(span) ? span : null;
+    }
+
     Context getContext(Request request) {
         return contextStore.get(request);
     }
@@ -127,15 +288,28 @@ public class OtelOkHttpEventListener extends EventListener {
 
     public static class Factory implements EventListener.Factory {
         private final OkHttpContextStore contextStore;
+        private final OkHttpClientMetrics.Client client;
+        private final WeakConcurrentMap<Call, OtelOkHttpEventListener> listeners = new WeakConcurrentMap.WithInlinedExpunction<>();
 
-        public Factory(OkHttpContextStore contextStore) {
+        public Factory(OkHttpContextStore contextStore, OkHttpClientMetrics.Client client) {
             this.contextStore = contextStore;
+            this.client = client;
         }
 
         @NonNull
         @Override
         public EventListener create(@NonNull Call call) {
-            return new OtelOkHttpEventListener(contextStore);
+            // Decided once per call, so that throttled calls don't do any of the timing work.
+            boolean phaseTimingEnabled = Throttling.getLevel().httpPhaseTimingEnabled;
+            OtelOkHttpEventListener listener = new OtelOkHttpEventListener(this, phaseTimingEnabled);
+            if (phaseTimingEnabled) {
+                listeners.put(call, listener);
+            }
+            return listener;
+        }
+
+        OtelOkHttpEventListener getListener(Call call) {
+            return listeners.get(call);
         }
     }
 }
\ No newline at end of file
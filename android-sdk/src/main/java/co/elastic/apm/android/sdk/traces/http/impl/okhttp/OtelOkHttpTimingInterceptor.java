@@ -0,0 +1,50 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.traces.http.impl.okhttp;
+
+import java.io.IOException;
+
+import co.elastic.apm.android.sdk.internal.services.devicestate.Throttling;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Added after every other application interceptor, marks the point where a call starts waiting
+ * for a connection, so that the time spent in the application interceptors isn't accounted as
+ * part of that wait.
+ */
+public class OtelOkHttpTimingInterceptor implements Interceptor {
+    private final OtelOkHttpEventListener.Factory listenerFactory;
+
+    public OtelOkHttpTimingInterceptor(OtelOkHttpEventListener.Factory listenerFactory) {
+        this.listenerFactory = listenerFactory;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        if (!Throttling.getLevel().httpPhaseTimingEnabled) {
+            return chain.proceed(chain.request());
+        }
+        OtelOkHttpEventListener listener = listenerFactory.getListener(chain.call());
+        if (listener != null) {
+            listener.markConnectionAcquireStart();
+        }
+        return chain.proceed(chain.request());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.traces.http.impl.urlconnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * Implements the {@link HttpURLConnection} calls that take part in the traced exchange, for both
+ * {@link TracedHttpURLConnection} and {@link TracedHttpsURLConnection}, which can't share a
+ * superclass as the latter has to remain an {@link HttpsURLConnection}. The rest of the calls are
+ * forwarded by them to the original connection as they are.
+ */
+final class HttpUrlConnectionDelegate {
+    private final HttpURLConnection connection;
+    private final HttpUrlConnectionTracer tracer;
+
+    HttpUrlConnectionDelegate(HttpURLConnection connection) {
+        this.connection = connection;
+        tracer = new HttpUrlConnectionTracer(connection);
+    }
+
+    void connect() throws IOException {
+        tracer.onConnecting(false);
+        try {
+            connection.connect();
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+
+    void disconnect() {
+        connection.disconnect();
+        tracer.onDisconnect();
+    }
+
+    InputStream getInputStream() throws IOException {
+        tracer.onConnecting(false);
+        try {
+            return tracer.afterResponse(connection.getInputStream());
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+
+    OutputStream getOutputStream() throws IOException {
+        tracer.onConnecting(true);
+        try {
+            return connection.getOutputStream();
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+
+    InputStream getErrorStream() {
+        return connection.getErrorStream();
+    }
+
+    int getResponseCode() throws IOException {
+        tracer.onConnecting(false);
+        try {
+            return tracer.afterResponse(connection.getResponseCode());
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+
+    String getResponseMessage() throws IOException {
+        tracer.onConnecting(false);
+        try {
+            return tracer.afterResponse(connection.getResponseMessage());
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+
+    String getHeaderField(String name) {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderField(name));
+    }
+
+    String getHeaderField(int n) {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderField(n));
+    }
+
+    String getHeaderFieldKey(int n) {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderFieldKey(n));
+    }
+
+    Map<String, List<String>> getHeaderFields() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderFields());
+    }
+
+    int getHeaderFieldInt(String name, int defaultValue) {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderFieldInt(name, defaultValue));
+    }
+
+    long getHeaderFieldLong(String name, long defaultValue) {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderFieldLong(name, defaultValue));
+    }
+
+    long getHeaderFieldDate(String name, long defaultValue) {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getHeaderFieldDate(name, defaultValue));
+    }
+
+    int getContentLength() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getContentLength());
+    }
+
+    long getContentLengthLong() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getContentLengthLong());
+    }
+
+    String getContentType() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getContentType());
+    }
+
+    String getContentEncoding() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getContentEncoding());
+    }
+
+    long getExpiration() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getExpiration());
+    }
+
+    long getDate() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getDate());
+    }
+
+    long getLastModified() {
+        tracer.onConnecting(false);
+        return tracer.afterResponse(connection.getLastModified());
+    }
+
+    Object getContent() throws IOException {
+        tracer.onConnecting(false);
+        try {
+            return tracer.afterResponse(connection.getContent());
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+
+    Object getContent(Class[] classes) throws IOException {
+        tracer.onConnecting(false);
+        try {
+            return tracer.afterResponse(connection.getContent(classes));
+        } catch (IOException e) {
+            throw tracer.onError(e);
+        }
+    }
+}
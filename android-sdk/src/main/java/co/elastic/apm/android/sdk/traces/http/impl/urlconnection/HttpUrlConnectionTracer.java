@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.traces.http.impl.urlconnection;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import co.elastic.apm.android.sdk.traces.http.data.HttpRequest;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+/**
+ * Creates the span of a single {@link HttpURLConnection} exchange. The span starts right before
+ * the connection gets established, so that the propagation headers can still be added to it, and
+ * ends as soon as the connection reports the response, fails or gets disconnected. The body
+ * download isn't part of it, as following it would mean wrapping the body stream and tracking
+ * the bodies that the app never closes.
+ */
+final class HttpUrlConnectionTracer {
+    private static final TextMapSetter<HttpURLConnection> SETTER = new HeadersSetter();
+    private final HttpURLConnection connection;
+    private Span span;
+    private boolean ended;
+
+    HttpUrlConnectionTracer(HttpURLConnection connection) {
+        this.connection = connection;
+    }
+
+    synchronized void onConnecting(boolean forOutput) {
+        if (span != null || ended) {
+            return;
+        }
+        URL url = connection.getURL();
+        String method = connection.getRequestMethod();
+        if (forOutput && "GET".equals(method)) {
+            // Requesting the output stream turns GET requests into POST ones.
+            method = "POST";
+        }
+        Context parentContext = Context.current();
+        SpanBuilder spanBuilder = ElasticTracer.httpUrlConnection().spanBuilder(method + " " + url.getHost())
+                .setSpanKind(SpanKind.CLIENT)
+                .setParent(parentContext);
+        ElasticApmAgent.get().configuration.httpTraceConfiguration.visitHttpAttributes(spanBuilder, new HttpRequest(method, url));
+        span = spanBuilder.startSpan();
+        GlobalOpenTelemetry.getPropagators().getTextMapPropagator().inject(parentContext.with(span), connection, SETTER);
+    }
+
+    <T> T afterResponse(T result) {
+        onResponse();
+        return result;
+    }
+
+    int afterResponse(int result) {
+        onResponse();
+        return result;
+    }
+
+    long afterResponse(long result) {
+        onResponse();
+        return result;
+    }
+
+    synchronized IOException onError(IOException exception) {
+        if (isActive()) {
+            span.setStatus(StatusCode.ERROR);
+            span.recordException(exception);
+            end();
+        }
+        return exception;
+    }
+
+    synchronized void onDisconnect() {
+        if (isActive()) {
+            end();
+        }
+    }
+
+    private synchronized void onResponse() {
+        if (!isActive()) {
+            return;
+        }
+        int responseCode = -1;
+        try {
+            responseCode = connection.getResponseCode();
+        } catch (IOException ignored) {
+            // The response code is optional.
+        }
+        if (responseCode > 0) {
+            span.setAttribute(SemanticAttributes.HTTP_STATUS_CODE, responseCode);
+        }
+        end();
+    }
+
+    private void end() {
+        ended = true;
+        span.end();
+    }
+
+    private boolean isActive() {
+        return span != null && !ended;
+    }
+
+    private static class HeadersSetter implements TextMapSetter<HttpURLConnection> {
+
+        @Override
+        public void set(HttpURLConnection carrier, String key, String value) {
+            if (carrier == null) {
+                return;
+            }
+            carrier.setRequestProperty(key, value);
+        }
+    }
+}
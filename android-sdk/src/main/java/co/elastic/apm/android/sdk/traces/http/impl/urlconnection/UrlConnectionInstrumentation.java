@@ -0,0 +1,57 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.traces.http.impl.urlconnection;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+
+/**
+ * Replaces the {@link URL#openConnection()} call sites at build time, in order to return traced
+ * {@link HttpURLConnection}s.
+ */
+public final class UrlConnectionInstrumentation {
+
+    public static URLConnection openConnection(URL url) throws IOException {
+        return wrap(url.openConnection());
+    }
+
+    public static URLConnection openConnection(URL url, Proxy proxy) throws IOException {
+        return wrap(url.openConnection(proxy));
+    }
+
+    private static URLConnection wrap(URLConnection connection) {
+        if (!ElasticApmAgent.isInitialized()) {
+            return connection;
+        }
+        if (connection instanceof HttpsURLConnection) {
+            return new TracedHttpsURLConnection((HttpsURLConnection) connection);
+        }
+        if (connection instanceof HttpURLConnection) {
+            return new TracedHttpURLConnection((HttpURLConnection) connection);
+        }
+        return connection;
+    }
+}
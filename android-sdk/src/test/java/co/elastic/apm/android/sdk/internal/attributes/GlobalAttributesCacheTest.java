@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.attributes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import io.opentelemetry.api.common.Attributes;
+
+public class GlobalAttributesCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void whenWritten_readTheSameAttributes() {
+        File file = new File(temporaryFolder.getRoot(), "cache");
+        Attributes attributes = Attributes.builder()
+                .put("device.id", "some-id")
+                .put("service.name", "My app")
+                .build();
+
+        new GlobalAttributesCache(file, "fingerprint").write(attributes);
+
+        assertEquals(attributes, new GlobalAttributesCache(file, "fingerprint").read());
+    }
+
+    @Test
+    public void whenFingerprintChanges_ignoreCachedAttributes() {
+        File file = new File(temporaryFolder.getRoot(), "cache");
+        new GlobalAttributesCache(file, "fingerprint").write(Attributes.builder().put("device.id", "some-id").build());
+
+        assertNull(new GlobalAttributesCache(file, "other fingerprint").read());
+    }
+
+    @Test
+    public void whenThereAreNonStringAttributes_doNotCache() {
+        File file = new File(temporaryFolder.getRoot(), "cache");
+        new GlobalAttributesCache(file, "fingerprint").write(Attributes.builder().put("some.number", 1L).build());
+
+        assertNull(new GlobalAttributesCache(file, "fingerprint").read());
+    }
+
+    @Test
+    public void whenThereIsNoCache_returnNull() {
+        assertNull(new GlobalAttributesCache(new File(temporaryFolder.getRoot(), "missing"), "fingerprint").read());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.database;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+
+/**
+ * Measures the overhead the agent adds to each traced query: normalizing its statement and
+ * creating its span. It doesn't assert on timings, which vary across machines, it prints them.
+ * Since it takes a while, it only runs when the {@code ELASTIC_APM_BENCHMARKS} environment variable
+ * is set.
+ */
+public class DatabaseSpanBenchmarkTest {
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 200_000;
+    private static final String SQL = "SELECT id, name, email FROM users WHERE team_id = 42 AND status IN ('active', 'invited') ORDER BY name LIMIT 50";
+
+    @Test
+    public void printPerQueryOverhead() {
+        Assume.assumeTrue(System.getenv("ELASTIC_APM_BENCHMARKS") != null);
+        SqlStatementNormalizer normalizer = new SqlStatementNormalizer(256);
+        Tracer tracer = SdkTracerProvider.builder().build().get("benchmark");
+
+        report("Normalization, cached", measure(() -> normalizer.normalize(SQL)));
+        int[] counter = {0};
+        report("Normalization, not cached", measure(() -> SqlStatementNormalizer.normalizeStatement(SQL + counter[0]++)));
+        report("Normalization and span", measure(() -> DatabaseSpan.start(tracer, normalizer.normalize(SQL), false).end()));
+    }
+
+    private static long measure(Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static void report(String name, long nanosPerOperation) {
+        System.out.println(name + ": " + nanosPerOperation + " ns/op");
+    }
+}
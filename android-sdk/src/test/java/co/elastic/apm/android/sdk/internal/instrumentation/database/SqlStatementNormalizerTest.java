@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SqlStatementNormalizerTest {
+
+    @Test
+    public void whenNormalizing_replaceLiterals() {
+        assertEquals("SELECT * FROM users WHERE name = ? AND age > ? AND data = ?",
+                SqlStatementNormalizer.normalizeStatement("SELECT * FROM users WHERE name = 'O''Brien' AND age > 30.5 AND data = X'0A'"));
+    }
+
+    @Test
+    public void whenNormalizing_keepIdentifiersWithDigits() {
+        assertEquals("SELECT col1 FROM \"table 2\" WHERE t1.id = ?",
+                SqlStatementNormalizer.normalizeStatement("SELECT col1 FROM \"table 2\" WHERE t1.id = 2"));
+    }
+
+    @Test
+    public void whenNormalizing_collapsePlaceholderLists() {
+        assertEquals("SELECT * FROM users WHERE id IN (?)",
+                SqlStatementNormalizer.normalizeStatement("SELECT * FROM users WHERE id IN (1, 2, ?, ?3)"));
+        assertEquals("INSERT INTO users VALUES (?)",
+                SqlStatementNormalizer.normalizeStatement("INSERT INTO users VALUES (1,'a')"));
+    }
+
+    @Test
+    public void whenNormalizing_removeCommentsAndRedundantWhitespace() {
+        assertEquals("DELETE FROM users WHERE id = ?",
+                SqlStatementNormalizer.normalizeStatement("  DELETE /* cleanup */ FROM\n\tusers -- by id\n WHERE id = 5 "));
+    }
+
+    @Test
+    public void whenCreatingSpanNames_useOperationAndTable() {
+        assertEquals("SELECT users", SqlStatementNormalizer.createSpanName("select * from users WHERE id = ?"));
+        assertEquals("INSERT users", SqlStatementNormalizer.createSpanName("INSERT INTO users VALUES (?)"));
+        assertEquals("UPDATE users", SqlStatementNormalizer.createSpanName("UPDATE users SET name = ?"));
+        assertEquals("SELECT", SqlStatementNormalizer.createSpanName("SELECT * FROM (SELECT ?)"));
+        assertEquals("PRAGMA", SqlStatementNormalizer.createSpanName("PRAGMA user_version"));
+    }
+
+    @Test
+    public void whenNormalizingTheSameStatement_reuseTheCachedOne() {
+        SqlStatementNormalizer normalizer = new SqlStatementNormalizer(1);
+
+        SqlStatementNormalizer.NormalizedStatement first = normalizer.normalize("SELECT 1");
+
+        assertSame(first, normalizer.normalize("SELECT 1"));
+        normalizer.normalize("SELECT 2");
+        assertEquals(first.statement, normalizer.normalize("SELECT 1").statement);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.frames;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class FrameStatsTest {
+    private static final long FRAME_BUDGET_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    @Test
+    public void whenFramesAreRecorded_countSlowAndFrozenFrames() {
+        FrameStats stats = new FrameStats(FRAME_BUDGET_NANOS);
+
+        stats.record(TimeUnit.MILLISECONDS.toNanos(10));
+        stats.record(TimeUnit.MILLISECONDS.toNanos(40));
+        stats.record(TimeUnit.MILLISECONDS.toNanos(800));
+
+        assertEquals(3, stats.getTotalFrames());
+        assertEquals(1, stats.getSlowFrames());
+        assertEquals(1, stats.getFrozenFrames());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(800), stats.getMaxDurationNanos());
+    }
+
+    @Test
+    public void whenFramesAreRecorded_addThemToTheirBucket() {
+        FrameStats stats = new FrameStats(FRAME_BUDGET_NANOS);
+
+        stats.record(TimeUnit.MILLISECONDS.toNanos(8));
+        stats.record(TimeUnit.MILLISECONDS.toNanos(9));
+        stats.record(TimeUnit.MILLISECONDS.toNanos(5000));
+
+        assertEquals(FrameStats.BUCKET_BOUNDS_MS.length + 1, stats.getBucketsSize());
+        assertEquals(1, stats.getBucketCount(0));
+        assertEquals(1, stats.getBucketCount(1));
+        assertEquals(1, stats.getBucketCount(FrameStats.BUCKET_BOUNDS_MS.length));
+    }
+
+    @Test
+    public void whenOnlyFastFramesAreRecorded_reportNoJank() {
+        FrameStats stats = new FrameStats(FRAME_BUDGET_NANOS);
+
+        stats.record(TimeUnit.MILLISECONDS.toNanos(10));
+        assertFalse(stats.hasJankyFrames());
+
+        stats.record(TimeUnit.MILLISECONDS.toNanos(800));
+        assertTrue(stats.hasJankyFrames());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.instrumentation.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ScreenLoadProfilerTest {
+
+    @Test
+    public void whenSamplesAreFolded_groupIdenticalStacksRootFirst() {
+        StackTraceElement[] stack = createStack(3);
+        StackTraceElement[] otherStack = createStack(2);
+
+        String folded = ScreenLoadProfiler.foldSamples(new StackTraceElement[][]{stack, otherStack, stack}, 3);
+
+        assertEquals("Frame.method2;Frame.method1;Frame.method0 2\n" +
+                "Frame.method1;Frame.method0 1\n", folded);
+    }
+
+    @Test
+    public void whenStacksAreTooDeep_keepTheirOutermostFrames() {
+        int depth = ScreenLoadProfiler.MAX_STACK_DEPTH + 10;
+        StackTraceElement[] stack = createStack(depth);
+
+        String folded = ScreenLoadProfiler.foldSamples(new StackTraceElement[][]{stack}, 1);
+
+        assertTrue(folded.startsWith("Frame.method" + (depth - 1) + ";"));
+        assertTrue(folded.endsWith(";Frame.method10 1\n"));
+        assertFalse(folded.contains("Frame.method9;"));
+        assertEquals(ScreenLoadProfiler.MAX_STACK_DEPTH - 1, folded.split(";").length - 1);
+    }
+
+    @Test
+    public void whenOnlySomeSamplesAreAvailable_ignoreTheRest() {
+        StackTraceElement[] stack = createStack(1);
+
+        String folded = ScreenLoadProfiler.foldSamples(new StackTraceElement[][]{stack, null}, 1);
+
+        assertEquals("Frame.method0 1\n", folded);
+    }
+
+    /**
+     * Index 0 is the innermost frame, as returned by {@link Thread#getStackTrace()}.
+     */
+    private static StackTraceElement[] createStack(int depth) {
+        StackTraceElement[] stack = new StackTraceElement[depth];
+        for (int i = 0; i < depth; i++) {
+            stack[i] = new StackTraceElement("Frame", "method" + i, "Frame.java", i);
+        }
+        return stack;
+    }
+}
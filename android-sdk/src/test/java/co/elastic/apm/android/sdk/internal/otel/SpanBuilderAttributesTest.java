@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.otel;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+public class SpanBuilderAttributesTest {
+    private static final AttributeKey<String> STRING_KEY = AttributeKey.stringKey("string");
+    private static final AttributeKey<Long> LONG_KEY = AttributeKey.longKey("long");
+    private static final AttributeKey<Boolean> BOOLEAN_KEY = AttributeKey.booleanKey("boolean");
+
+    @Test
+    public void whenPuttingAttributes_setThemIntoTheSpan() {
+        List<SpanData> exported = new ArrayList<>();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new SpanExporter() {
+                    @Override
+                    public CompletableResultCode export(Collection<SpanData> spans) {
+                        exported.addAll(spans);
+                        return CompletableResultCode.ofSuccess();
+                    }
+
+                    @Override
+                    public CompletableResultCode flush() {
+                        return CompletableResultCode.ofSuccess();
+                    }
+
+                    @Override
+                    public CompletableResultCode shutdown() {
+                        return CompletableResultCode.ofSuccess();
+                    }
+                }))
+                .build();
+        SpanBuilder spanBuilder = tracerProvider.get("test").spanBuilder("span");
+
+        putAll(new SpanBuilderAttributes(spanBuilder));
+        spanBuilder.startSpan().end();
+
+        assertEquals(1, exported.size());
+        assertEquals(getExpectedAttributes(), exported.get(0).getAttributes());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void whenBuilding_throwException() {
+        SpanBuilder spanBuilder = SdkTracerProvider.builder().build().get("test").spanBuilder("span");
+        AttributesBuilder builder = new SpanBuilderAttributes(spanBuilder);
+
+        putAll(builder);
+        builder.build();
+    }
+
+    private static void putAll(AttributesBuilder builder) {
+        builder.put(STRING_KEY, "value")
+                .put(LONG_KEY, 1)
+                .putAll(Attributes.of(BOOLEAN_KEY, true));
+    }
+
+    private static Attributes getExpectedAttributes() {
+        return Attributes.of(STRING_KEY, "value", LONG_KEY, 1L, BOOLEAN_KEY, true);
+    }
+}
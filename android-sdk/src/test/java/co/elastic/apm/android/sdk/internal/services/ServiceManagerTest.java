@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import co.elastic.apm.android.common.internal.logging.ELoggerFactory;
+import co.elastic.apm.android.common.internal.logging.Elog;
+
+public class ServiceManagerTest {
+    private final List<String> startOrder = new CopyOnWriteArrayList<>();
+    private final ServiceManager serviceManager = new ServiceManager();
+
+    @Before
+    public void setUp() {
+        Elog.init(new ELoggerFactory() {
+            @Override
+            protected String getDefaultName() {
+                return "test";
+            }
+
+            @Override
+            public Logger getLogger(String name) {
+                return NOPLogger.NOP_LOGGER;
+            }
+        });
+    }
+
+    @Test
+    public void whenStarting_startDependenciesFirst() {
+        serviceManager.addService(new TestService("c", false, "b"));
+        serviceManager.addService(new TestService("b", false, "a"));
+        serviceManager.addService(new TestService("a", false));
+        serviceManager.addService(new TestService("d", false, "a"));
+
+        serviceManager.start();
+
+        assertEquals(4, startOrder.size());
+        assertEquals("a", startOrder.get(0));
+        assertTrue(startOrder.indexOf("b") < startOrder.indexOf("c"));
+    }
+
+    @Test
+    public void whenLazyServiceIsNotADependency_startItWhenRequested() {
+        serviceManager.addService(new TestService("lazy", true));
+        serviceManager.addService(new TestService("eager", false));
+
+        serviceManager.start();
+        assertEquals(Collections.singletonList("eager"), startOrder);
+
+        serviceManager.getService("lazy");
+        serviceManager.getService("lazy");
+        assertEquals(Arrays.asList("eager", "lazy"), startOrder);
+    }
+
+    @Test
+    public void whenLazyServiceIsADependency_startItBeforeItsDependent() {
+        serviceManager.addService(new TestService("eager", false, "lazy"));
+        serviceManager.addService(new TestService("lazy", true));
+
+        serviceManager.start();
+
+        assertEquals(Arrays.asList("lazy", "eager"), startOrder);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenDependenciesAreCircular_fail() {
+        serviceManager.addService(new TestService("a", false, "b"));
+        serviceManager.addService(new TestService("b", false, "a"));
+
+        serviceManager.start();
+    }
+
+    private class TestService implements Service {
+        private final String name;
+        private final boolean lazy;
+        private final List<String> dependencies;
+
+        private TestService(String name, boolean lazy, String... dependencies) {
+            this.name = name;
+            this.lazy = lazy;
+            this.dependencies = Arrays.asList(dependencies);
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Collection<String> dependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public boolean isLazy() {
+            return lazy;
+        }
+
+        @Override
+        public void start() {
+            startOrder.add(name);
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ComponentCallbacks2;
+import android.os.PowerManager;
+
+import org.junit.Test;
+
+public class ThrottleLevelTest {
+
+    @Test
+    public void whenTheDeviceGetsHot_throttleInSteps() {
+        assertEquals(ThrottleLevel.NONE, ThrottleLevel.forThermalStatus(PowerManager.THERMAL_STATUS_LIGHT));
+        assertEquals(ThrottleLevel.LIGHT, ThrottleLevel.forThermalStatus(PowerManager.THERMAL_STATUS_MODERATE));
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.forThermalStatus(PowerManager.THERMAL_STATUS_SEVERE));
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.forThermalStatus(PowerManager.THERMAL_STATUS_SHUTDOWN));
+    }
+
+    @Test
+    public void whenTheBatteryIsLow_throttleOnlyIfNotCharging() {
+        assertEquals(ThrottleLevel.NONE, ThrottleLevel.forBattery(50, false, false));
+        assertEquals(ThrottleLevel.LIGHT, ThrottleLevel.forBattery(15, false, false));
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.forBattery(5, false, false));
+        assertEquals(ThrottleLevel.NONE, ThrottleLevel.forBattery(5, true, false));
+        assertEquals(ThrottleLevel.NONE, ThrottleLevel.forBattery(-1, false, false));
+    }
+
+    @Test
+    public void whenBatterySaverIsOn_throttleLightly() {
+        assertEquals(ThrottleLevel.LIGHT, ThrottleLevel.forBattery(80, true, true));
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.forBattery(3, false, true));
+    }
+
+    @Test
+    public void whenMemoryIsTrimmed_throttleBasedOnTheTrimLevel() {
+        assertEquals(ThrottleLevel.NONE, ThrottleLevel.forTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(ThrottleLevel.NONE, ThrottleLevel.forTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(ThrottleLevel.LIGHT, ThrottleLevel.forTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.forTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.forTrimMemoryLevel(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+    }
+
+    @Test
+    public void whenCombiningLevels_keepTheHighest() {
+        assertEquals(ThrottleLevel.HEAVY, ThrottleLevel.max(ThrottleLevel.LIGHT, ThrottleLevel.HEAVY));
+        assertEquals(ThrottleLevel.LIGHT, ThrottleLevel.max(ThrottleLevel.LIGHT, ThrottleLevel.NONE));
+    }
+}
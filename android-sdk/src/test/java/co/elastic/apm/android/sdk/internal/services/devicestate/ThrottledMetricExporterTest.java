@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+public class ThrottledMetricExporterTest {
+
+    @After
+    public void tearDown() {
+        Throttling.setLevel(ThrottleLevel.NONE);
+    }
+
+    @Test
+    public void whenNotThrottled_exportEveryCollection() {
+        CountingMetricExporter delegate = new CountingMetricExporter(AggregationTemporality.CUMULATIVE);
+        ThrottledMetricExporter exporter = new ThrottledMetricExporter(delegate);
+
+        exportTimes(exporter, 3);
+
+        assertEquals(3, delegate.exports);
+    }
+
+    @Test
+    public void whenThrottled_skipTheCollectionsInBetween() {
+        Throttling.setLevel(ThrottleLevel.LIGHT);
+        CountingMetricExporter delegate = new CountingMetricExporter(AggregationTemporality.CUMULATIVE);
+        ThrottledMetricExporter exporter = new ThrottledMetricExporter(delegate);
+
+        exportTimes(exporter, ThrottleLevel.LIGHT.exportIntervalMultiplier * 3);
+
+        assertEquals(3, delegate.exports);
+    }
+
+    @Test
+    public void whenTemporalityIsDelta_exportEveryCollection() {
+        Throttling.setLevel(ThrottleLevel.HEAVY);
+        CountingMetricExporter delegate = new CountingMetricExporter(AggregationTemporality.DELTA);
+        ThrottledMetricExporter exporter = new ThrottledMetricExporter(delegate);
+
+        exportTimes(exporter, 3);
+
+        assertEquals(3, delegate.exports);
+    }
+
+    private static void exportTimes(MetricExporter exporter, int times) {
+        for (int i = 0; i < times; i++) {
+            exporter.export(Collections.emptyList());
+        }
+    }
+
+    private static class CountingMetricExporter implements MetricExporter {
+        private final AggregationTemporality temporality;
+        private int exports = 0;
+
+        private CountingMetricExporter(AggregationTemporality temporality) {
+            this.temporality = temporality;
+        }
+
+        @Override
+        public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+            return temporality;
+        }
+
+        @Override
+        public CompletableResultCode export(Collection<MetricData> metrics) {
+            exports++;
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
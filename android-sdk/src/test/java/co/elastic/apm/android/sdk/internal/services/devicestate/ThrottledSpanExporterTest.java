@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+public class ThrottledSpanExporterTest {
+    private final Tracer tracer = SdkTracerProvider.builder().build().get("test");
+    private final CapturingSpanExporter delegate = new CapturingSpanExporter();
+
+    @After
+    public void tearDown() {
+        Throttling.setLevel(ThrottleLevel.NONE);
+    }
+
+    @Test
+    public void whenNotThrottled_exportEveryBatch() {
+        ThrottledSpanExporter exporter = new ThrottledSpanExporter(delegate);
+
+        exporter.export(batch("first"));
+        exporter.export(batch("second"));
+
+        assertEquals(2, delegate.getExportedBatches().size());
+    }
+
+    @Test
+    public void whenThrottled_exportTheHeldBatchesTogether() {
+        Throttling.setLevel(ThrottleLevel.HEAVY);
+        ThrottledSpanExporter exporter = new ThrottledSpanExporter(delegate);
+
+        for (int i = 0; i < ThrottleLevel.HEAVY.exportIntervalMultiplier - 1; i++) {
+            exporter.export(batch("held " + i));
+        }
+        assertTrue(delegate.getExportedBatches().isEmpty());
+
+        exporter.export(batch("last"));
+
+        List<List<SpanData>> batches = delegate.getExportedBatches();
+        assertEquals(1, batches.size());
+        assertEquals(ThrottleLevel.HEAVY.exportIntervalMultiplier, batches.get(0).size());
+    }
+
+    @Test
+    public void whenNoOtherBatchArrives_exportTheHeldOnesAfterAWhile() throws InterruptedException {
+        Throttling.setLevel(ThrottleLevel.LIGHT);
+        ThrottledSpanExporter exporter = new ThrottledSpanExporter(delegate, 50);
+
+        exporter.export(batch("held"));
+        assertTrue(delegate.getExportedBatches().isEmpty());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delegate.getExportedBatches().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, delegate.getExportedBatches().size());
+        exporter.shutdown();
+    }
+
+    @Test
+    public void whenFlushing_exportTheHeldSpans() {
+        Throttling.setLevel(ThrottleLevel.HEAVY);
+        ThrottledSpanExporter exporter = new ThrottledSpanExporter(delegate);
+
+        exporter.export(batch("held"));
+        exporter.flush();
+
+        assertEquals(1, delegate.getExportedBatches().size());
+        assertEquals(1, delegate.flushes);
+    }
+
+    @Test
+    public void whenTheAppGoesToTheBackground_exportTheHeldSpans() throws InterruptedException {
+        Throttling.setLevel(ThrottleLevel.HEAVY);
+        ThrottledSpanExporter exporter = new ThrottledSpanExporter(delegate);
+
+        exporter.export(batch("held"));
+        ThrottledSpanExporter.releaseAllHeldSpans();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delegate.getExportedBatches().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, delegate.getExportedBatches().size());
+        exporter.shutdown();
+    }
+
+    private List<SpanData> batch(String spanName) {
+        ReadableSpan span = (ReadableSpan) tracer.spanBuilder(spanName).startSpan();
+        return Collections.singletonList(span.toSpanData());
+    }
+
+    private static class CapturingSpanExporter implements SpanExporter {
+        private final List<List<SpanData>> exportedBatches = new ArrayList<>();
+        private int flushes = 0;
+
+        @Override
+        public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+            exportedBatches.add(new ArrayList<>(spans));
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public synchronized CompletableResultCode flush() {
+            flushes++;
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        private synchronized List<List<SpanData>> getExportedBatches() {
+            return new ArrayList<>(exportedBatches);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.apm.android.sdk.internal.services.devicestate;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+
+public class ThrottlingSamplerTest {
+    // The ratio based samplers use the lower half of the trace id.
+    private static final String LOW_TRACE_ID = "00000000000000000000000000000001";
+    private static final String HIGH_TRACE_ID = "00000000000000007fffffffffffffff";
+    private final ThrottlingSampler sampler = new ThrottlingSampler();
+
+    @After
+    public void tearDown() {
+        Throttling.setLevel(ThrottleLevel.NONE);
+    }
+
+    @Test
+    public void whenNotThrottled_sampleEveryTrace() {
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(LOW_TRACE_ID));
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(HIGH_TRACE_ID));
+    }
+
+    @Test
+    public void whenThrottled_sampleTracesBasedOnTheirId() {
+        for (ThrottleLevel level : new ThrottleLevel[]{ThrottleLevel.LIGHT, ThrottleLevel.HEAVY}) {
+            Throttling.setLevel(level);
+
+            assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(LOW_TRACE_ID));
+            assertEquals(SamplingDecision.DROP, sample(HIGH_TRACE_ID));
+        }
+    }
+
+    @Test
+    public void whenTheLevelGoesBackToNone_sampleEveryTraceAgain() {
+        Throttling.setLevel(ThrottleLevel.HEAVY);
+        Throttling.setLevel(ThrottleLevel.NONE);
+
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(HIGH_TRACE_ID));
+    }
+
+    private SamplingDecision sample(String traceId) {
+        return sampler.shouldSample(Context.root(), traceId, "span", SpanKind.INTERNAL, Attributes.empty(),
+                Collections.emptyList()).getDecision();
+    }
+}
@@ -0,0 +1,47 @@
+package co.elastic.apm.android.test.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+
+public class MetricExporterCaptor implements MetricExporter {
+    private final List<MetricData> capturedMetrics = new ArrayList<>();
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+        return AggregationTemporality.CUMULATIVE;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<MetricData> metrics) {
+        // Cumulative metrics, the latest collection contains the previous ones.
+        capturedMetrics.clear();
+        capturedMetrics.addAll(metrics);
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    public synchronized MetricData getCapturedMetric(String name) {
+        for (MetricData metric : capturedMetrics) {
+            if (metric.getName().equals(name)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+}
@@ -2,7 +2,6 @@ package co.elastic.apm.android.test.common.spans;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import io.opentelemetry.sdk.common.CompletableResultCode;
@@ -13,7 +12,7 @@ public class SpanExporterCaptor implements SpanExporter {
     private final List<List<SpanData>> capturedSpans = new ArrayList<>();
 
     @Override
-    public CompletableResultCode export(Collection<SpanData> spans) {
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
         capturedSpans.add(new ArrayList<>(spans));
         return CompletableResultCode.ofSuccess();
     }
@@ -28,11 +27,12 @@ public class SpanExporterCaptor implements SpanExporter {
         return CompletableResultCode.ofSuccess();
     }
 
-    public List<List<SpanData>> getCapturedSpans() {
-        return Collections.unmodifiableList(capturedSpans);
+    public synchronized List<List<SpanData>> getCapturedSpans() {
+        // Copied, as some spans are exported from background threads.
+        return new ArrayList<>(capturedSpans);
     }
 
-    public void clearCapturedSpans() {
+    public synchronized void clearCapturedSpans() {
         capturedSpans.clear();
     }
 }
@@ -0,0 +1,26 @@
+package co.elastic.apm.android.test.activities
+
+import android.os.Bundle
+import androidx.appcompat.app.AppCompatActivity
+import androidx.lifecycle.lifecycleScope
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class AsyncCoroutineActivity : AppCompatActivity() {
+    private val done = CountDownLatch(1)
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        lifecycleScope.async(Dispatchers.Default) {
+            ElasticTracer.androidActivity().spanBuilder("My Span Inside Async").startSpan().end()
+            done.countDown()
+        }
+    }
+
+    fun awaitCoroutine() {
+        done.await(5, TimeUnit.SECONDS)
+    }
+}
@@ -0,0 +1,16 @@
+package co.elastic.apm.android.test.activities
+
+import android.os.Bundle
+import androidx.appcompat.app.AppCompatActivity
+import co.elastic.apm.android.test.fragments.FullCreationFragment
+
+class FragmentHostActivity : AppCompatActivity() {
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        // The fragment's lifecycle methods run within the activity's ones.
+        supportFragmentManager.beginTransaction()
+            .add(android.R.id.content, FullCreationFragment())
+            .commitNow()
+    }
+}
@@ -0,0 +1,17 @@
+package co.elastic.apm.android.test.activities
+
+import android.os.Bundle
+import androidx.appcompat.app.AppCompatActivity
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.runBlocking
+
+class RunBlockingCoroutineActivity : AppCompatActivity() {
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        runBlocking(Dispatchers.Default) {
+            ElasticTracer.androidActivity().spanBuilder("My Span Inside RunBlocking").startSpan().end()
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package co.elastic.apm.android.test.activities
+
+import android.os.Bundle
+import androidx.appcompat.app.AppCompatActivity
+import androidx.lifecycle.lifecycleScope
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class WithContextCoroutineActivity : AppCompatActivity() {
+    private val done = CountDownLatch(1)
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        lifecycleScope.launch(Dispatchers.Default) {
+            // The coroutine carries onCreate's context, so the block passed to withContext would
+            // only get this span as its parent if withContext picks up the current one.
+            val span = ElasticTracer.androidActivity().spanBuilder("My Span Inside Coroutine").startSpan()
+            span.makeCurrent().use {
+                withContext(Dispatchers.IO) {
+                    ElasticTracer.androidActivity().spanBuilder("My Span Inside WithContext").startSpan().end()
+                }
+            }
+            span.end()
+            done.countDown()
+        }
+    }
+
+    fun awaitCoroutine() {
+        done.await(5, TimeUnit.SECONDS)
+    }
+}
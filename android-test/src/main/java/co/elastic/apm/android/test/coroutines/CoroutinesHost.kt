@@ -0,0 +1,57 @@
+package co.elastic.apm.android.test.coroutines
+
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.async
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import java.util.concurrent.Executors
+
+class CoroutinesHost {
+
+    fun launchOnDefaultDispatcher() {
+        runBlocking {
+            launch(Dispatchers.Default) {
+                ElasticTracer.androidActivity().spanBuilder("Inner span").startSpan().end()
+            }.join()
+        }
+    }
+
+    fun launchWithoutDispatcher() {
+        runBlocking(Dispatchers.IO) {
+            launch {
+            }.join()
+        }
+    }
+
+    fun asyncOnCustomDispatcher() {
+        Executors.newSingleThreadExecutor().asCoroutineDispatcher().use { dispatcher ->
+            runBlocking {
+                async(dispatcher) {
+                }.await()
+            }
+        }
+    }
+
+    fun switchToIoDispatcher() {
+        runBlocking {
+            withContext(Dispatchers.IO) {
+            }
+        }
+    }
+
+    fun launchFailing(): Throwable? {
+        return try {
+            runBlocking {
+                launch(Dispatchers.Default) {
+                    throw IllegalStateException("Coroutine failure")
+                }.join()
+            }
+            null
+        } catch (e: IllegalStateException) {
+            e
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package co.elastic.apm.android.test.database
+
+import android.content.ContentValues
+import android.database.sqlite.SQLiteDatabase
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+
+class SQLiteCallsHost {
+    private val database = SQLiteDatabase.create(null)
+
+    init {
+        database.execSQL("CREATE TABLE users (id INTEGER PRIMARY KEY, name TEXT)")
+    }
+
+    fun insertUser(name: String): Long {
+        val values = ContentValues()
+        values.put("name", name)
+        return database.insert("users", null, values)
+    }
+
+    fun queryUsers(): Int {
+        database.rawQuery("SELECT * FROM users WHERE name = ?", arrayOf("Alice")).use {
+            return it.count
+        }
+    }
+
+    fun queryUsersWithinSpan() {
+        val span = ElasticTracer.androidActivity().spanBuilder("Parent span").startSpan()
+        try {
+            span.makeCurrent().use {
+                queryUsers()
+            }
+        } finally {
+            span.end()
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package co.elastic.apm.android.test.database
+
+import androidx.room.Dao
+import com.google.common.util.concurrent.ListenableFuture
+
+@Dao
+interface UserDao {
+
+    fun insertUser(name: String)
+
+    fun countUsers(): Int
+
+    fun countUsersFuture(): ListenableFuture<Int>
+}
@@ -0,0 +1,57 @@
+package co.elastic.apm.android.test.database
+
+import android.content.ContentValues
+import android.content.Context
+import android.database.sqlite.SQLiteDatabase
+import androidx.concurrent.futures.ResolvableFuture
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.db.SupportSQLiteOpenHelper
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory
+import com.google.common.util.concurrent.ListenableFuture
+
+/**
+ * Written the way Room generates DAO implementations, which run their statements through the
+ * framework's SupportSQLiteDatabase.
+ */
+@Suppress("ClassName")
+class UserDao_Impl(context: Context) : UserDao {
+    private val database: SupportSQLiteDatabase
+
+    init {
+        val configuration = SupportSQLiteOpenHelper.Configuration.builder(context)
+            .name(null)
+            .callback(object : SupportSQLiteOpenHelper.Callback(1) {
+                override fun onCreate(db: SupportSQLiteDatabase) {
+                    db.execSQL("CREATE TABLE users (id INTEGER PRIMARY KEY, name TEXT)")
+                }
+
+                override fun onUpgrade(db: SupportSQLiteDatabase, oldVersion: Int, newVersion: Int) {
+                }
+            })
+            .build()
+        database = FrameworkSQLiteOpenHelperFactory().create(configuration).writableDatabase
+    }
+
+    override fun insertUser(name: String) {
+        val values = ContentValues()
+        values.put("name", name)
+        database.insert("users", SQLiteDatabase.CONFLICT_NONE, values)
+    }
+
+    override fun countUsers(): Int {
+        return queryUsersCount()
+    }
+
+    override fun countUsersFuture(): ListenableFuture<Int> {
+        // Room runs these queries later on, once the caller subscribes or awaits them.
+        val future = ResolvableFuture.create<Int>()
+        future.set(queryUsersCount())
+        return future
+    }
+
+    private fun queryUsersCount(): Int {
+        database.query("SELECT * FROM users").use {
+            return it.count
+        }
+    }
+}
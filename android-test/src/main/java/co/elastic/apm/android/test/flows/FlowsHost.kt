@@ -0,0 +1,61 @@
+package co.elastic.apm.android.test.flows
+
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeoutOrNull
+
+class FlowsHost {
+
+    fun collectValues(): Int {
+        var sum = 0
+        runBlocking {
+            flowOf(1, 2, 3).collect { sum += it }
+        }
+        return sum
+    }
+
+    fun firstValue(): Int {
+        return runBlocking {
+            flowOf(1, 2, 3).first()
+        }
+    }
+
+    fun mappedValues(): List<Int> {
+        return runBlocking {
+            flowOf(1, 2, 3).map { it * 2 }.doubled().toList()
+        }
+    }
+
+    fun collectStateFlow() {
+        val stateFlow: Flow<Int> = MutableStateFlow(1)
+        runBlocking {
+            withTimeoutOrNull(50) {
+                stateFlow.collect { }
+            }
+        }
+    }
+
+    fun failingCollection(): Throwable? {
+        return try {
+            runBlocking {
+                flow<Int> {
+                    emit(1)
+                    throw IllegalStateException("Flow failure")
+                }.collect { }
+            }
+            null
+        } catch (e: IllegalStateException) {
+            e
+        }
+    }
+
+    private fun Flow<Int>.doubled(): Flow<Int> = flow {
+        this@doubled.collect { emit(it * 2) }
+    }
+}
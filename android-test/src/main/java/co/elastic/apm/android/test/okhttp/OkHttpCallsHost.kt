@@ -0,0 +1,25 @@
+package co.elastic.apm.android.test.okhttp
+
+import okhttp3.HttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+
+class OkHttpCallsHost(interceptorDelayMillis: Long = 0) {
+    private val client = OkHttpClient.Builder()
+        .addInterceptor {
+            Thread.sleep(interceptorDelayMillis)
+            it.proceed(it.request())
+        }.build()
+
+    fun execute(url: HttpUrl): String {
+        client.newCall(createRequest(url)).execute().use {
+            return it.body!!.string()
+        }
+    }
+
+    private fun createRequest(url: HttpUrl): Request {
+        return Request.Builder()
+            .url(url)
+            .build()
+    }
+}
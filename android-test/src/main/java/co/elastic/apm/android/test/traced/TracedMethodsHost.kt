@@ -0,0 +1,25 @@
+package co.elastic.apm.android.test.traced
+
+import co.elastic.apm.android.sdk.traces.annotations.Traced
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer
+
+class TracedMethodsHost {
+
+    @Traced
+    fun tracedWithDefaultName() {
+        ElasticTracer.androidActivity().spanBuilder("Inner span").startSpan().end()
+    }
+
+    @Traced(name = "Custom name")
+    fun tracedWithCustomName() {
+    }
+
+    @Traced(minDurationMs = 10_000)
+    fun tracedWithUnreachedMinDuration() {
+    }
+
+    @Traced(name = "Slow method", minDurationMs = 20)
+    fun tracedWithReachedMinDuration() {
+        Thread.sleep(30)
+    }
+}
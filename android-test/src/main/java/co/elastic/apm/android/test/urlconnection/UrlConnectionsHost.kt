@@ -0,0 +1,31 @@
+package co.elastic.apm.android.test.urlconnection
+
+import java.net.HttpURLConnection
+import java.net.URL
+
+class UrlConnectionsHost(url: URL) {
+    private val constructorConnection = url.openConnection() as HttpURLConnection
+
+    fun readBody(url: URL): String {
+        val connection = url.openConnection() as HttpURLConnection
+        return connection.inputStream.bufferedReader().use { it.readText() }
+    }
+
+    fun readResponseCode(url: URL): Int {
+        val connection = url.openConnection() as HttpURLConnection
+        return connection.responseCode
+    }
+
+    fun readResponseCodeAndDisconnect(url: URL): Int {
+        val connection = url.openConnection() as HttpURLConnection
+        try {
+            return connection.responseCode
+        } finally {
+            connection.disconnect()
+        }
+    }
+
+    fun readBodyFromConstructorConnection(): String {
+        return constructorConnection.inputStream.bufferedReader().use { it.readText() }
+    }
+}
@@ -0,0 +1,132 @@
+package co.elastic.apm.android.test.coroutines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.ElasticApmConfiguration;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTestApplication;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+@Config(application = CoroutineMeasurementTest.CoroutineSpansApp.class)
+public class CoroutineMeasurementTest extends BaseRobolectricTest {
+    private static final AttributeKey<String> DISPATCHER = AttributeKey.stringKey("coroutine.dispatcher");
+    private static final AttributeKey<Long> QUEUE_TIME = AttributeKey.longKey("coroutine.queue_time_ms");
+    private static final String QUEUE_TIME_METRIC = "coroutine.dispatcher.queue_time";
+    private static final String EXECUTION_TIME_METRIC = "coroutine.execution_time";
+
+    @Test
+    public void whenCoroutineIsLaunched_recordItsTimesForItsDispatcher() {
+        new CoroutinesHost().launchOnDefaultDispatcher();
+
+        assertEquals(1, getHistogramPoint(QUEUE_TIME_METRIC, "Dispatchers.Default").getCount());
+        assertEquals(1, getHistogramPoint(EXECUTION_TIME_METRIC, "Dispatchers.Default").getCount());
+    }
+
+    @Test
+    public void whenCoroutineHasNoDispatcher_recordItsTimesForItsScopeDispatcher() {
+        new CoroutinesHost().launchWithoutDispatcher();
+
+        assertEquals(1, getHistogramPoint(QUEUE_TIME_METRIC, "Dispatchers.IO").getCount());
+    }
+
+    @Test
+    public void whenCoroutineRunsOnCustomDispatcher_recordItsTimesForItsClassName() {
+        new CoroutinesHost().asyncOnCustomDispatcher();
+
+        assertEquals(1, getHistogramPoint(QUEUE_TIME_METRIC, "ExecutorCoroutineDispatcherImpl").getCount());
+    }
+
+    @Test
+    public void whenSwitchingContext_recordItsTimesForTheNewDispatcher() {
+        new CoroutinesHost().switchToIoDispatcher();
+
+        assertEquals(1, getHistogramPoint(QUEUE_TIME_METRIC, "Dispatchers.IO").getCount());
+        assertEquals(1, getHistogramPoint(EXECUTION_TIME_METRIC, "Dispatchers.IO").getCount());
+    }
+
+    @Test
+    public void whenSpanIsInProgress_createCoroutineSpanAsParentOfItsSpans() {
+        Span parent = ElasticTracer.androidActivity().spanBuilder("Parent span").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            new CoroutinesHost().launchOnDefaultDispatcher();
+        } finally {
+            parent.end();
+        }
+
+        List<SpanData> spans = getRecordedSpans(3);
+        SpanData parentSpan = spans.get(0);
+        SpanData coroutineSpan = spans.get(1);
+        Spans.verify(coroutineSpan)
+                .isNamed("Coroutine on Dispatchers.Default")
+                .isDirectChildOf(parentSpan)
+                .hasAttributeNamed(QUEUE_TIME.getKey());
+        assertEquals("Dispatchers.Default", coroutineSpan.getAttributes().get(DISPATCHER));
+        Spans.verify(spans.get(2))
+                .isNamed("Inner span")
+                .isDirectChildOf(coroutineSpan);
+    }
+
+    @Test
+    public void whenNoSpanIsInProgress_doNotCreateCoroutineSpan() {
+        new CoroutinesHost().launchOnDefaultDispatcher();
+
+        Spans.verify(getRecordedSpan())
+                .isNamed("Inner span")
+                .hasNoParent();
+    }
+
+    @Test
+    public void whenCoroutineFails_recordTheErrorInItsSpan() {
+        Span parent = ElasticTracer.androidActivity().spanBuilder("Parent span").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            assertNotNull(new CoroutinesHost().launchFailing());
+        } finally {
+            parent.end();
+        }
+
+        Spans.verifyFailed(getRecordedSpans(2).get(1))
+                .isNamed("Coroutine on Dispatchers.Default")
+                .hasAmountOfRecordedExceptions(1);
+    }
+
+    private HistogramPointData getHistogramPoint(String metricName, String dispatcher) {
+        MetricData metric = getRecordedMetric(metricName);
+        assertNotNull(metric);
+        for (HistogramPointData point : metric.getHistogramData().getPoints()) {
+            if (dispatcher.equals(point.getAttributes().get(DISPATCHER))) {
+                assertTrue(point.getSum() >= 0);
+                return point;
+            }
+        }
+        throw new AssertionError("No " + metricName + " point for " + dispatcher);
+    }
+
+    public static class CoroutineSpansApp extends BaseRobolectricTestApplication {
+
+        @Override
+        public void onCreate() {
+            super.onCreate();
+            ElasticApmConfiguration configuration = ElasticApmConfiguration.builder()
+                    .setStartupTracingEnabled(false)
+                    .setMainThreadStallThresholdMillis(0)
+                    .setCoroutineSpansEnabled(true)
+                    .build();
+            ElasticApmAgent.initialize(this, configuration, getConnectivity());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package co.elastic.apm.android.test.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class DatabaseInstrumentationTest extends BaseRobolectricTest {
+    private static final AttributeKey<String> DB_SYSTEM = AttributeKey.stringKey("db.system");
+    private static final AttributeKey<String> DB_STATEMENT = AttributeKey.stringKey("db.statement");
+    private static final AttributeKey<Long> ROWS = AttributeKey.longKey("db.rows");
+    private static final AttributeKey<Boolean> MAIN_THREAD = AttributeKey.booleanKey("db.main_thread");
+
+    @Test
+    public void whenSQLiteDatabaseRunsQuery_createSpanWithItsRows() {
+        SQLiteCallsHost host = new SQLiteCallsHost();
+        host.insertUser("Alice");
+        getSpanExporter().clearCapturedSpans();
+
+        host.queryUsers();
+
+        SpanData span = getRecordedSpan();
+        Spans.verify(span)
+                .isNamed("SELECT users")
+                .hasNoParent();
+        assertEquals(SpanKind.CLIENT, span.getKind());
+        assertEquals("sqlite", span.getAttributes().get(DB_SYSTEM));
+        assertEquals("SELECT * FROM users WHERE name = ?", span.getAttributes().get(DB_STATEMENT));
+        assertEquals(1, (long) span.getAttributes().get(ROWS));
+        assertTrue(span.getAttributes().get(MAIN_THREAD));
+    }
+
+    @Test
+    public void whenSQLiteDatabaseInserts_createSpanForTheTable() {
+        SQLiteCallsHost host = new SQLiteCallsHost();
+        getSpanExporter().clearCapturedSpans();
+
+        host.insertUser("Alice");
+
+        SpanData span = getRecordedSpan();
+        Spans.verify(span)
+                .isNamed("INSERT users");
+        assertEquals("INSERT INTO users", span.getAttributes().get(DB_STATEMENT));
+    }
+
+    @Test
+    public void whenSQLiteDatabaseRunsQueryWithinSpan_createChildSpan() {
+        SQLiteCallsHost host = new SQLiteCallsHost();
+        getSpanExporter().clearCapturedSpans();
+
+        host.queryUsersWithinSpan();
+
+        List<SpanData> spans = getRecordedSpans(2);
+        Spans.verify(spans.get(1))
+                .isNamed("Parent span");
+        Spans.verify(spans.get(0))
+                .isNamed("SELECT users")
+                .isDirectChildOf(spans.get(1));
+    }
+
+    @Test
+    public void whenDaoMethodRunsQuery_createQuerySpanAsChildOfDaoMethodSpan() {
+        UserDao userDao = new UserDao_Impl(RuntimeEnvironment.getApplication());
+        userDao.insertUser("Alice");
+        getSpanExporter().clearCapturedSpans();
+
+        assertEquals(1, userDao.countUsers());
+
+        List<SpanData> spans = getRecordedSpans(2);
+        SpanData daoSpan = spans.get(1);
+        Spans.verify(daoSpan)
+                .isNamed("UserDao.countUsers")
+                .hasNoParent();
+        assertEquals("sqlite", daoSpan.getAttributes().get(DB_SYSTEM));
+        Spans.verify(spans.get(0))
+                .isNamed("SELECT users")
+                .isDirectChildOf(daoSpan);
+        assertEquals(1, (long) spans.get(0).getAttributes().get(ROWS));
+    }
+
+    @Test
+    public void whenSupportSQLiteDatabaseInserts_createSpanForTheTable() {
+        UserDao userDao = new UserDao_Impl(RuntimeEnvironment.getApplication());
+        getSpanExporter().clearCapturedSpans();
+
+        userDao.insertUser("Alice");
+
+        List<SpanData> spans = getRecordedSpans(2);
+        Spans.verify(spans.get(0))
+                .isNamed("INSERT users")
+                .isDirectChildOf(spans.get(1));
+        assertEquals("INSERT INTO users", spans.get(0).getAttributes().get(DB_STATEMENT));
+        Spans.verify(spans.get(1))
+                .isNamed("UserDao.insertUser");
+    }
+
+    @Test
+    public void whenDaoMethodReturnsDeferredResult_doNotCreateDaoMethodSpan() {
+        UserDao userDao = new UserDao_Impl(RuntimeEnvironment.getApplication());
+        getSpanExporter().clearCapturedSpans();
+
+        userDao.countUsersFuture();
+
+        Spans.verify(getRecordedSpan())
+                .isNamed("SELECT users")
+                .hasNoParent();
+    }
+}
@@ -0,0 +1,96 @@
+package co.elastic.apm.android.test.flows;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.ElasticApmConfiguration;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTestApplication;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+@Config(application = FlowTracingTest.FlowTracingApp.class)
+public class FlowTracingTest extends BaseRobolectricTest {
+    private static final AttributeKey<Long> EMISSIONS = AttributeKey.longKey("flow.emissions");
+    private static final String TIME_TO_FIRST_EMISSION = "flow.time_to_first_emission_ms";
+
+    @Test
+    public void whenFlowIsCollected_createSpanWithItsEmissions() {
+        assertEquals(6, new FlowsHost().collectValues());
+
+        SpanData span = getRecordedSpan();
+        Spans.verify(span)
+                .isNamed("Flow.collect")
+                .hasNoParent()
+                .hasAttributeNamed(TIME_TO_FIRST_EMISSION);
+        assertEquals(3, (long) span.getAttributes().get(EMISSIONS));
+    }
+
+    @Test
+    public void whenFlowIsCollectedWithinSpan_createChildSpan() {
+        Span parent = ElasticTracer.androidActivity().spanBuilder("Parent span").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            new FlowsHost().firstValue();
+        } finally {
+            parent.end();
+        }
+
+        List<SpanData> spans = getRecordedSpans(2);
+        Spans.verify(spans.get(1))
+                .isNamed("Flow.first")
+                .isDirectChildOf(spans.get(0));
+    }
+
+    @Test
+    public void whenFlowHasIntermediateOperators_createSpanOnlyForTheTerminalOne() {
+        assertEquals(Arrays.asList(4, 8, 12), new FlowsHost().mappedValues());
+
+        SpanData span = getRecordedSpan();
+        Spans.verify(span)
+                .isNamed("Flow.toList");
+        assertEquals(3, (long) span.getAttributes().get(EMISSIONS));
+    }
+
+    @Test
+    public void whenStateFlowIsCollected_doNotCreateSpan() {
+        new FlowsHost().collectStateFlow();
+
+        getRecordedSpans(0);
+    }
+
+    @Test
+    public void whenFlowFails_recordTheErrorInItsSpan() {
+        assertNotNull(new FlowsHost().failingCollection());
+
+        SpanData span = getRecordedSpan();
+        Spans.verifyFailed(span)
+                .isNamed("Flow.collect")
+                .hasAmountOfRecordedExceptions(1);
+        assertEquals(1, (long) span.getAttributes().get(EMISSIONS));
+    }
+
+    public static class FlowTracingApp extends BaseRobolectricTestApplication {
+
+        @Override
+        public void onCreate() {
+            super.onCreate();
+            ElasticApmConfiguration configuration = ElasticApmConfiguration.builder()
+                    .setStartupTracingEnabled(false)
+                    .setMainThreadStallThresholdMillis(0)
+                    .setFlowTracingEnabled(true)
+                    .build();
+            ElasticApmAgent.initialize(this, configuration, getConnectivity());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package co.elastic.apm.android.test.http;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.traces.http.HttpTraceConfiguration;
+import co.elastic.apm.android.sdk.traces.http.data.HttpRequest;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Pins the amount of memory allocated per HTTP request while setting the span attributes into the
+ * agent's SDK span builders, so that the precompiled attributes pipeline doesn't regress into
+ * per-request collections and builders. The span builders' own allocations are measured
+ * separately and left out.
+ */
+public class HttpAttributesAllocationTest extends BaseRobolectricTest {
+    private static final int WARM_UP_ITERATIONS = 10_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+    private static final long MAX_ALLOCATED_BYTES_PER_REQUEST = 512;
+
+    @Test
+    public void whenVisitingHttpAttributes_allocatedBytesPerRequestStayWithinBudget() throws MalformedURLException {
+        HttpTraceConfiguration configuration = ElasticApmAgent.get().configuration.httpTraceConfiguration;
+        HttpRequest request = new HttpRequest("GET", new URL("https://example.com/some/path"));
+        Tracer tracer = GlobalOpenTelemetry.getTracer("test");
+        assertTrue(tracer.spanBuilder("GET example.com").startSpan().getSpanContext().isValid());
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            configuration.visitHttpAttributes(tracer.spanBuilder("GET example.com"), request);
+        }
+
+        long before = getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            tracer.spanBuilder("GET example.com");
+        }
+        long spanBuildersBytes = getCurrentThreadAllocatedBytes() - before;
+
+        before = getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            configuration.visitHttpAttributes(tracer.spanBuilder("GET example.com"), request);
+        }
+        long bytesPerRequest = (getCurrentThreadAllocatedBytes() - before - spanBuildersBytes) / MEASURED_ITERATIONS;
+
+        assertTrue("Allocated " + bytesPerRequest + " bytes per request",
+                bytesPerRequest <= MAX_ALLOCATED_BYTES_PER_REQUEST);
+    }
+
+    private static long getCurrentThreadAllocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
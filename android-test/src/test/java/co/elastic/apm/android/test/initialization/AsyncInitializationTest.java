@@ -0,0 +1,132 @@
+package co.elastic.apm.android.test.initialization;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.ElasticApmConfiguration;
+import co.elastic.apm.android.sdk.traces.common.tools.ElasticTracer;
+import co.elastic.apm.android.sdk.traces.connectivity.Connectivity;
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTestApplication;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+@Config(application = AsyncInitializationTest.AsyncInitializationApp.class)
+public class AsyncInitializationTest extends BaseRobolectricTest {
+    private static final long SDK_SETUP_TIMEOUT_MILLIS = 5000;
+
+    @Test
+    public void whenInitializingAsync_doNotWaitForTheSdkOnTheMainThread() {
+        AsyncInitializationApp app = getApp();
+
+        assertTrue(ElasticApmAgent.isInitialized());
+        assertFalse(ElasticApmAgent.isReady());
+        // The SDK setup is blocked until it times out, so initialize would take at least that long
+        // if it waited for it.
+        assertTrue("Spent " + app.mainThreadInitializationMillis + "ms initializing on the main thread",
+                app.mainThreadInitializationMillis < SDK_SETUP_TIMEOUT_MILLIS);
+
+        app.sdkSetup.countDown();
+        awaitReady();
+    }
+
+    @Test
+    public void whenSpansStartBeforeTheSdkIsReady_replayThemKeepingTheirParents() {
+        ElasticTracer tracer = ElasticTracer.create("Test");
+        Span parent = tracer.spanBuilder("Pre-init parent").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            tracer.spanBuilder("Pre-init child").startSpan().end();
+        }
+
+        getApp().sdkSetup.countDown();
+        awaitReady();
+        tracer.spanBuilder("Post-init child").setParent(Context.root().with(parent)).startSpan().end();
+        parent.end();
+
+        List<SpanData> spans = getRecordedSpans(3);
+        SpanData parentData = findSpan(spans, "Pre-init parent");
+        Spans.verify(parentData)
+                .hasNoParent();
+        Spans.verify(findSpan(spans, "Pre-init child"))
+                .isDirectChildOf(parentData);
+        Spans.verify(findSpan(spans, "Post-init child"))
+                .isDirectChildOf(parentData);
+    }
+
+    private static SpanData findSpan(List<SpanData> spans, String name) {
+        for (SpanData span : spans) {
+            if (span.getName().equals(name)) {
+                return span;
+            }
+        }
+        throw new AssertionError("No span named " + name);
+    }
+
+    private static void awaitReady() {
+        long deadline = System.currentTimeMillis() + SDK_SETUP_TIMEOUT_MILLIS;
+        while (!ElasticApmAgent.isReady()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("The agent didn't get ready");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static AsyncInitializationApp getApp() {
+        AsyncInitializationApp app = (AsyncInitializationApp) RuntimeEnvironment.getApplication();
+        assertNotNull(app);
+        return app;
+    }
+
+    public static class AsyncInitializationApp extends BaseRobolectricTestApplication {
+        private final CountDownLatch sdkSetup = new CountDownLatch(1);
+        private long mainThreadInitializationMillis;
+
+        @Override
+        public void onCreate() {
+            super.onCreate();
+            ElasticApmConfiguration configuration = ElasticApmConfiguration.builder()
+                    .setStartupTracingEnabled(false)
+                    .setMainThreadStallThresholdMillis(0)
+                    .setAsyncInitializationEnabled(true)
+                    .build();
+            long start = System.nanoTime();
+            ElasticApmAgent.initialize(this, configuration, getConnectivity());
+            mainThreadInitializationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        @Override
+        protected Connectivity getConnectivity() {
+            Connectivity connectivity = super.getConnectivity();
+            return () -> {
+                awaitSdkSetup();
+                return connectivity.getSpanProcessor();
+            };
+        }
+
+        private void awaitSdkSetup() {
+            try {
+                sdkSetup.await(SDK_SETUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
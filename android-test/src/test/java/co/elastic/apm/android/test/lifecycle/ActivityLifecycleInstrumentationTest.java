@@ -1,5 +1,6 @@
 package co.elastic.apm.android.test.lifecycle;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
@@ -8,6 +9,8 @@ import org.robolectric.android.controller.ActivityController;
 
 import java.util.List;
 
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.test.activities.AsyncCoroutineActivity;
 import co.elastic.apm.android.test.activities.EmptyTitleActivity;
 import co.elastic.apm.android.test.activities.ErrorActivity;
 import co.elastic.apm.android.test.activities.ErrorHalfWayActivity;
@@ -16,9 +19,14 @@ import co.elastic.apm.android.test.activities.Hilt_InstrumentedActivity;
 import co.elastic.apm.android.test.activities.MissingOnResumeActivity;
 import co.elastic.apm.android.test.activities.MissingOnStartAndOnResumeActivity;
 import co.elastic.apm.android.test.activities.NoLifecycleMethodsActivity;
+import co.elastic.apm.android.test.activities.RunBlockingCoroutineActivity;
 import co.elastic.apm.android.test.activities.SimpleCoroutineActivity;
 import co.elastic.apm.android.test.activities.TitleActivity;
+import co.elastic.apm.android.test.activities.WithContextCoroutineActivity;
 import co.elastic.apm.android.test.common.spans.Spans;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
 import io.opentelemetry.sdk.trace.data.SpanData;
 
 public class ActivityLifecycleInstrumentationTest extends BaseLifecycleInstrumentationTest {
@@ -57,6 +65,56 @@ public class ActivityLifecycleInstrumentationTest extends BaseLifecycleInstrumen
         }
     }
 
+    @Test
+    public void onReportFullyDrawn_createFullDisplaySpan() {
+        try (ActivityController<FullCreationActivity> controller = Robolectric.buildActivity(FullCreationActivity.class)) {
+            controller.setup();
+            FullCreationActivity activity = controller.get();
+
+            SpanData rootSpan = getRecordedSpans(4).get(0);
+
+            ElasticApmAgent.reportFullyDrawn(activity);
+
+            SpanData fullDisplaySpan = getRecordedSpan();
+            Spans.verify(fullDisplaySpan)
+                    .isNamed(getClassSpanName(FullCreationActivity.class, " - Full display"))
+                    .isDirectChildOf(rootSpan);
+            assertEquals(rootSpan.getStartEpochNanos(), fullDisplaySpan.getStartEpochNanos());
+        }
+    }
+
+    @Test
+    public void onCreation_whenNoFrameIsDrawnBeforeStopping_endRootSpanOnStop() {
+        try (ActivityController<FullCreationActivity> controller = Robolectric.buildActivity(FullCreationActivity.class)) {
+            // Not made visible, so it never draws a frame.
+            controller.create().start().postCreate(null).resume();
+            List<SpanData> methodSpans = getRecordedSpans(3);
+
+            controller.pause().stop();
+
+            SpanData rootSpan = getRecordedSpan();
+            Spans.verify(rootSpan)
+                    .hasNoParent()
+                    .isNamed(getRootLifecycleSpanName(FullCreationActivity.class));
+            for (SpanData methodSpan : methodSpans) {
+                Spans.verify(methodSpan)
+                        .isDirectChildOf(rootSpan);
+            }
+        }
+    }
+
+    @Test
+    public void onCreation_keepCallerContext() {
+        ContextKey<String> key = ContextKey.named("caller-key");
+        try (Scope ignored = Context.current().with(key, "caller-value").makeCurrent();
+             ActivityController<FullCreationActivity> controller = Robolectric.buildActivity(FullCreationActivity.class)) {
+            controller.setup();
+
+            getRecordedSpans(4);
+            assertEquals("caller-value", Context.current().get(key));
+        }
+    }
+
     @Test
     public void onBringingBackToForeground_wrapWithSpan_onlyMethodsCalled() {
         try (ActivityController<FullCreationActivity> controller = Robolectric.buildActivity(FullCreationActivity.class)) {
@@ -244,6 +302,60 @@ public class ActivityLifecycleInstrumentationTest extends BaseLifecycleInstrumen
         }
     }
 
+    @Test
+    public void onCreation_whenAsyncIsCalled_preserveContext() {
+        try (ActivityController<AsyncCoroutineActivity> controller = Robolectric.buildActivity(AsyncCoroutineActivity.class)) {
+            controller.setup();
+            controller.get().awaitCoroutine();
+
+            List<SpanData> spans = getRecordedSpans(3);
+
+            SpanData onCreateSpan = spans.get(1);
+            SpanData mySpan = spans.get(2);
+
+            Spans.verify(mySpan)
+                    .isDirectChildOf(onCreateSpan)
+                    .isNamed("My Span Inside Async");
+        }
+    }
+
+    @Test
+    public void onCreation_whenWithContextIsCalled_preserveContext() {
+        try (ActivityController<WithContextCoroutineActivity> controller = Robolectric.buildActivity(WithContextCoroutineActivity.class)) {
+            controller.setup();
+            controller.get().awaitCoroutine();
+
+            List<SpanData> spans = getRecordedSpans(4);
+
+            SpanData onCreateSpan = spans.get(1);
+            SpanData coroutineSpan = spans.get(2);
+            SpanData mySpan = spans.get(3);
+
+            Spans.verify(coroutineSpan)
+                    .isDirectChildOf(onCreateSpan)
+                    .isNamed("My Span Inside Coroutine");
+            Spans.verify(mySpan)
+                    .isDirectChildOf(coroutineSpan)
+                    .isNamed("My Span Inside WithContext");
+        }
+    }
+
+    @Test
+    public void onCreation_whenRunBlockingIsCalled_preserveContext() {
+        try (ActivityController<RunBlockingCoroutineActivity> controller = Robolectric.buildActivity(RunBlockingCoroutineActivity.class)) {
+            controller.setup();
+
+            List<SpanData> spans = getRecordedSpans(3);
+
+            SpanData onCreateSpan = spans.get(1);
+            SpanData mySpan = spans.get(2);
+
+            Spans.verify(mySpan)
+                    .isDirectChildOf(onCreateSpan)
+                    .isNamed("My Span Inside RunBlocking");
+        }
+    }
+
     @Test
     public void onCreation_whenTitleIsAvailable_useItForRootSpanName() {
         try (ActivityController<TitleActivity> controller = Robolectric.buildActivity(TitleActivity.class)) {
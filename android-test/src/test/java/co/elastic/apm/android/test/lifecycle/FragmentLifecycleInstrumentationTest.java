@@ -1,14 +1,20 @@
 package co.elastic.apm.android.test.lifecycle;
 
 
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import androidx.fragment.app.testing.FragmentScenario;
 
 import org.junit.Test;
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
 
 import java.util.List;
 
+import co.elastic.apm.android.test.activities.FragmentHostActivity;
 import co.elastic.apm.android.test.common.spans.Spans;
 import co.elastic.apm.android.test.fragments.ErrorFragment;
 import co.elastic.apm.android.test.fragments.FullCreationFragment;
@@ -158,5 +164,42 @@ public class FragmentLifecycleInstrumentationTest extends BaseLifecycleInstrumen
                     .isNamed(getSpanMethodName(FragmentMethod.ON_CREATE_VIEW));
         }
     }
-}
 
+    @Test
+    public void onCreation_whenAddedWithinActivityLifecycle_createSeparateRootSpans() {
+        try (ActivityController<FragmentHostActivity> controller = Robolectric.buildActivity(FragmentHostActivity.class)) {
+            controller.setup();
+
+            // Activity root and method spans, plus the fragment ones.
+            List<SpanData> spans = getRecordedSpans(8);
+            SpanData activityRootSpan = findSpan(spans, getRootLifecycleSpanName(FragmentHostActivity.class));
+            SpanData fragmentRootSpan = findSpan(spans, getRootLifecycleSpanName(FullCreationFragment.class));
+
+            Spans.verify(activityRootSpan)
+                    .hasNoParent();
+            Spans.verify(fragmentRootSpan)
+                    .hasNoParent();
+            assertNotEquals(activityRootSpan.getTraceId(), fragmentRootSpan.getTraceId());
+            for (SpanData span : spans) {
+                if (span != activityRootSpan && span != fragmentRootSpan) {
+                    String parentSpanId = span.getParentSpanId();
+                    assertTrue(parentSpanId.equals(activityRootSpan.getSpanId()) || parentSpanId.equals(fragmentRootSpan.getSpanId()));
+                }
+            }
+            Spans.verify(findSpan(spans, getSpanMethodName(FragmentMethod.ON_CREATE_VIEW)))
+                    .isDirectChildOf(fragmentRootSpan);
+        }
+    }
+
+    private static SpanData findSpan(List<SpanData> spans, String name) {
+        SpanData found = null;
+        for (SpanData span : spans) {
+            if (span.getName().equals(name)) {
+                assertNull("More than one span named " + name, found);
+                found = span;
+            }
+        }
+        assertNotNull("No span named " + name, found);
+        return found;
+    }
+}
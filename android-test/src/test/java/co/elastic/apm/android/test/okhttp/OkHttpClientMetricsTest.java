@@ -0,0 +1,88 @@
+package co.elastic.apm.android.test.okhttp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import co.elastic.apm.android.sdk.traces.http.impl.okhttp.OkHttpClientMetrics;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class OkHttpClientMetricsTest extends BaseRobolectricTest {
+    private static final AttributeKey<Boolean> CONNECTION_REUSED = AttributeKey.booleanKey("okhttp.connection.reused");
+    private MockWebServer webServer;
+
+    @Before
+    public void setUp() throws IOException {
+        webServer = new MockWebServer();
+        webServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        webServer.shutdown();
+    }
+
+    @Test
+    public void whenCallsShareAConnection_recordNewAndReusedAcquisitions() {
+        OkHttpCallsHost host = new OkHttpCallsHost();
+        webServer.enqueue(new MockResponse().setBody("first"));
+        webServer.enqueue(new MockResponse().setBody("second"));
+
+        host.execute(webServer.url("/"));
+        host.execute(webServer.url("/"));
+
+        List<LongPointData> acquired = getLongPoints("okhttp.connection.acquired");
+        assertEquals(2, acquired.size());
+        for (LongPointData point : acquired) {
+            assertEquals(1, point.getValue());
+        }
+        List<HistogramPointData> acquireDurations = getHistogramPoints("okhttp.connection.acquire.duration");
+        assertEquals(2, acquireDurations.size());
+        assertEquals(1, getHistogramPoints("okhttp.connect.duration").get(0).getCount());
+        assertEquals(0, getLongPoints("okhttp.connection.in_use").get(0).getValue());
+    }
+
+    @Test
+    public void whenInterceptorsAreSlow_excludeThemFromTheAcquireWait() {
+        OkHttpCallsHost host = new OkHttpCallsHost(300);
+        webServer.enqueue(new MockResponse().setBody("body"));
+
+        host.execute(webServer.url("/"));
+
+        List<HistogramPointData> acquireDurations = getHistogramPoints("okhttp.connection.acquire.duration");
+        assertEquals(1, acquireDurations.size());
+        HistogramPointData point = acquireDurations.get(0);
+        assertEquals(Boolean.FALSE, point.getAttributes().get(CONNECTION_REUSED));
+        assertEquals(1, point.getCount());
+        assertTrue(point.getSum() < 300);
+    }
+
+    @Test
+    public void whenTheAgentIsReady_reuseTheSameInstruments() {
+        assertSame(OkHttpClientMetrics.get(), OkHttpClientMetrics.get());
+    }
+
+    private List<LongPointData> getLongPoints(String name) {
+        MetricData metric = getRecordedMetric(name);
+        return new ArrayList<>(metric.getLongSumData().getPoints());
+    }
+
+    private List<HistogramPointData> getHistogramPoints(String name) {
+        MetricData metric = getRecordedMetric(name);
+        return new ArrayList<>(metric.getHistogramData().getPoints());
+    }
+}
@@ -0,0 +1,67 @@
+package co.elastic.apm.android.test.okhttp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class OkHttpResponseThroughputTest extends BaseRobolectricTest {
+    private static final AttributeKey<Double> RESPONSE_THROUGHPUT = AttributeKey.doubleKey("http.response_throughput");
+    private static final AttributeKey<String> NET_PEER_NAME = AttributeKey.stringKey("net.peer.name");
+    private static final String THROUGHPUT_METRIC = "okhttp.response.throughput";
+    private MockWebServer webServer;
+
+    @Before
+    public void setUp() throws IOException {
+        webServer = new MockWebServer();
+        webServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        webServer.shutdown();
+    }
+
+    @Test
+    public void whenTheBodyIsRead_recordItsThroughputPerHost() {
+        webServer.enqueue(new MockResponse().setBody("Some body"));
+
+        new OkHttpCallsHost().execute(webServer.url("/"));
+
+        SpanData span = getRecordedSpan();
+        assertTrue(span.getAttributes().get(RESPONSE_THROUGHPUT) > 0);
+        List<HistogramPointData> points = getThroughputPoints();
+        assertEquals(1, points.size());
+        assertEquals(1, points.get(0).getCount());
+        assertEquals(webServer.getHostName(), points.get(0).getAttributes().get(NET_PEER_NAME));
+    }
+
+    @Test
+    public void whenTheRequestIsExcluded_doNotRecordItsThroughput() {
+        webServer.enqueue(new MockResponse().setBody("Some body"));
+
+        new OkHttpCallsHost().execute(webServer.url("/opentelemetry.proto.collector.trace.v1.TraceService/Export"));
+
+        assertNull(getRecordedMetric(THROUGHPUT_METRIC));
+    }
+
+    private List<HistogramPointData> getThroughputPoints() {
+        MetricData metric = getRecordedMetric(THROUGHPUT_METRIC);
+        return new ArrayList<>(metric.getHistogramData().getPoints());
+    }
+}
@@ -0,0 +1,112 @@
+package co.elastic.apm.android.test.profiler;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.profiler.ScreenLoadProfiler;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class ScreenLoadProfilerTest extends BaseRobolectricTest {
+    private static final AttributeKey<Long> SAMPLES = AttributeKey.longKey("profiler.samples");
+    private static final AttributeKey<String> COLLAPSED_STACKS = AttributeKey.stringKey("profiler.collapsed_stacks");
+    private static final long INTERVAL_MILLIS = 5;
+    private ScreenLoadProfiler profiler;
+
+    @Before
+    public void setUp() {
+        ScreenLoadProfiler.install(INTERVAL_MILLIS, 0);
+        profiler = ScreenLoadProfiler.get();
+    }
+
+    @After
+    public void tearDown() {
+        ScreenLoadProfiler.uninstall();
+    }
+
+    @Test
+    public void whenStopped_attachTheMainThreadSamples() throws InterruptedException {
+        Span span = startSpan();
+
+        profiler.start(span);
+        Thread.sleep(INTERVAL_MILLIS * 20);
+        profiler.stop(span);
+        span.end();
+
+        SpanData spanData = getRecordedSpan();
+        assertTrue(spanData.getAttributes().get(SAMPLES) > 0);
+        // The main thread is the one running the test.
+        assertTrue(spanData.getAttributes().get(COLLAPSED_STACKS).contains(getClass().getName()));
+    }
+
+    @Test
+    public void whenRestarted_doNotKeepThePreviousSamples() throws InterruptedException {
+        Span first = startSpan();
+        profiler.start(first);
+        Thread.sleep(INTERVAL_MILLIS * 20);
+        profiler.stop(first);
+        first.end();
+        assertNotNull(getRecordedSpan().getAttributes().get(SAMPLES));
+
+        Span second = startSpan();
+        profiler.start(second);
+        profiler.stop(second);
+        second.end();
+
+        SpanData spanData = getRecordedSpan();
+        assertNull(spanData.getAttributes().get(SAMPLES));
+        assertNull(spanData.getAttributes().get(COLLAPSED_STACKS));
+    }
+
+    @Test
+    public void whenRootsOverlap_doNotAttachThePreviousSamplesToTheInnerOne() throws InterruptedException {
+        Span outer = startSpan();
+        profiler.start(outer);
+        Thread.sleep(INTERVAL_MILLIS * 20);
+
+        Span inner = startSpan();
+        profiler.start(inner);
+        profiler.stop(inner);
+        inner.end();
+        Long innerSamples = getRecordedSpan().getAttributes().get(SAMPLES);
+
+        profiler.stop(outer);
+        outer.end();
+
+        long outerSamples = getRecordedSpan().getAttributes().get(SAMPLES);
+        // The inner root was open for a tiny fraction of the outer one's time.
+        assertTrue(innerSamples == null || innerSamples * 2 < outerSamples);
+    }
+
+    @Test
+    public void whenAnOverlappingRootEndsFirst_keepSamplingForTheOtherOne() throws InterruptedException {
+        Span outer = startSpan();
+        profiler.start(outer);
+        Span inner = startSpan();
+        profiler.start(inner);
+        Thread.sleep(INTERVAL_MILLIS * 20);
+        profiler.stop(inner);
+        inner.end();
+        long innerSamples = getRecordedSpan().getAttributes().get(SAMPLES);
+
+        Thread.sleep(INTERVAL_MILLIS * 20);
+        profiler.stop(outer);
+        outer.end();
+
+        long outerSamples = getRecordedSpan().getAttributes().get(SAMPLES);
+        assertTrue(innerSamples > 0);
+        assertTrue("Outer samples were " + outerSamples + ", inner ones " + innerSamples, outerSamples > innerSamples);
+    }
+
+    private static Span startSpan() {
+        return GlobalOpenTelemetry.getTracer("test").spanBuilder("Screen load").startSpan();
+    }
+}
@@ -0,0 +1,99 @@
+package co.elastic.apm.android.test.propagation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.ContextPropagation;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+
+public class HandlerContextPropagationTest extends BaseRobolectricTest {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Span> runSpans = new ArrayList<>();
+    private final Runnable task = () -> runSpans.add(Span.current());
+    private Span span;
+
+    @Before
+    public void setUp() {
+        span = GlobalOpenTelemetry.getTracer("test").spanBuilder("Caller").startSpan();
+    }
+
+    @After
+    public void tearDown() {
+        span.end();
+    }
+
+    @Test
+    public void whenPosted_runWithinTheCallerContext() {
+        try (Scope ignored = span.makeCurrent()) {
+            ContextPropagation.post(handler, task);
+        }
+
+        idleMainLooper();
+
+        assertEquals(1, runSpans.size());
+        assertEquals(span.getSpanContext(), runSpans.get(0).getSpanContext());
+    }
+
+    @Test
+    public void whenPostedSeveralTimes_removeEveryPost() {
+        try (Scope ignored = span.makeCurrent()) {
+            ContextPropagation.post(handler, task);
+            ContextPropagation.postDelayed(handler, task, 100);
+            ContextPropagation.postAtFrontOfQueue(handler, task);
+        }
+
+        ContextPropagation.removeCallbacks(handler, task);
+        idleMainLooper();
+
+        assertTrue(runSpans.isEmpty());
+    }
+
+    @Test
+    public void whenPostedWithToken_removeOnlyThePostsWithThatToken() {
+        Object token = new Object();
+        try (Scope ignored = span.makeCurrent()) {
+            ContextPropagation.postAtTime(handler, task, token, SystemClock.uptimeMillis() + 100);
+            ContextPropagation.postDelayed(handler, task, token, 100);
+            ContextPropagation.post(handler, task);
+        }
+
+        ContextPropagation.removeCallbacks(handler, task, token);
+        idleMainLooper();
+
+        assertEquals(1, runSpans.size());
+    }
+
+    @Test
+    public void whenPosted_reportPendingCallbacks() {
+        assertFalse(ContextPropagation.hasCallbacks(handler, task));
+
+        try (Scope ignored = span.makeCurrent()) {
+            ContextPropagation.postDelayed(handler, task, 100);
+        }
+        assertTrue(ContextPropagation.hasCallbacks(handler, task));
+
+        idleMainLooper();
+        assertFalse(ContextPropagation.hasCallbacks(handler, task));
+    }
+
+    private static void idleMainLooper() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(200));
+    }
+}
@@ -0,0 +1,133 @@
+package co.elastic.apm.android.test.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.net.NetworkCapabilities;
+import android.os.Looper;
+import android.telephony.TelephonyManager;
+
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowNetwork;
+import org.robolectric.shadows.ShadowNetworkCapabilities;
+import org.robolectric.shadows.ShadowTelephonyManager;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.internal.services.Service;
+import co.elastic.apm.android.sdk.internal.services.network.NetworkService;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+public class NetworkServiceTest extends BaseRobolectricTest {
+    private static final AttributeKey<String> CONNECTION_TYPE = AttributeKey.stringKey("net.host.connection.type");
+    private static final AttributeKey<String> CONNECTION_SUBTYPE = AttributeKey.stringKey("net.host.connection.subtype");
+    private static final AttributeKey<String> CARRIER_NAME = AttributeKey.stringKey("net.host.carrier.name");
+    private static final AttributeKey<String> CARRIER_MCC = AttributeKey.stringKey("net.host.carrier.mcc");
+    private static final AttributeKey<String> CARRIER_MNC = AttributeKey.stringKey("net.host.carrier.mnc");
+    private static final AttributeKey<String> CARRIER_ICC = AttributeKey.stringKey("net.host.carrier.icc");
+
+    @Test
+    public void whenNoNetworkIsAvailable_publishNoneConnectionType() {
+        NetworkService service = getNetworkService();
+
+        assertEquals("unavailable", service.getConnectionAttributes().get(CONNECTION_TYPE));
+    }
+
+    @Test
+    public void whenConnectedToWifi_publishWifiSnapshot() {
+        NetworkService service = getNetworkService();
+
+        service.onCapabilitiesChanged(ShadowNetwork.newInstance(1), createCapabilities(NetworkCapabilities.TRANSPORT_WIFI));
+
+        Attributes attributes = service.getConnectionAttributes();
+        assertEquals("wifi", attributes.get(CONNECTION_TYPE));
+        assertNull(attributes.get(CONNECTION_SUBTYPE));
+    }
+
+    @Test
+    public void whenConnectedToCell_publishSubtypeOnlyIfPermissionIsGranted() {
+        NetworkService service = getNetworkService();
+        shadowOf(getTelephonyManager()).setDataNetworkType(TelephonyManager.NETWORK_TYPE_LTE);
+
+        service.onCapabilitiesChanged(ShadowNetwork.newInstance(1), createCapabilities(NetworkCapabilities.TRANSPORT_CELLULAR));
+        assertEquals("cell", service.getConnectionAttributes().get(CONNECTION_TYPE));
+        assertNull(service.getConnectionAttributes().get(CONNECTION_SUBTYPE));
+
+        shadowOf((Application) RuntimeEnvironment.getApplication()).grantPermissions(Manifest.permission.READ_PHONE_STATE);
+        service.onCapabilitiesChanged(ShadowNetwork.newInstance(1), createCapabilities(NetworkCapabilities.TRANSPORT_CELLULAR));
+        assertEquals("LTE", service.getConnectionAttributes().get(CONNECTION_SUBTYPE));
+    }
+
+    @Test
+    public void whenTheNetworkIsLost_publishNoneConnectionType() {
+        NetworkService service = getNetworkService();
+        service.onCapabilitiesChanged(ShadowNetwork.newInstance(1), createCapabilities(NetworkCapabilities.TRANSPORT_WIFI));
+
+        service.onLost(ShadowNetwork.newInstance(1));
+
+        assertEquals("unavailable", service.getConnectionAttributes().get(CONNECTION_TYPE));
+    }
+
+    @Test
+    public void whenTheSnapshotDoesNotChange_keepReturningTheSameInstance() {
+        NetworkService service = getNetworkService();
+
+        assertSame(service.getConnectionAttributes(), service.getConnectionAttributes());
+        assertSame(service.getCarrierAttributes(), service.getCarrierAttributes());
+    }
+
+    @Test
+    public void whenTheSimIsNotReady_publishEmptyCarrierAttributes() {
+        NetworkService service = getNetworkService();
+
+        assertTrue(service.getCarrierAttributes().isEmpty());
+    }
+
+    @Test
+    public void whenTheSimStateChanges_refreshCarrierAttributes() {
+        NetworkService service = getNetworkService();
+        ShadowTelephonyManager telephonyManager = shadowOf(getTelephonyManager());
+        telephonyManager.setSimState(TelephonyManager.SIM_STATE_READY);
+        telephonyManager.setSimOperator("310260");
+        telephonyManager.setSimOperatorName("Some carrier");
+        telephonyManager.setSimCountryIso("us");
+
+        RuntimeEnvironment.getApplication().sendBroadcast(new Intent("android.intent.action.SIM_STATE_CHANGED"));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        Attributes attributes = service.getCarrierAttributes();
+        assertEquals("Some carrier", attributes.get(CARRIER_NAME));
+        assertEquals("310", attributes.get(CARRIER_MCC));
+        assertEquals("260", attributes.get(CARRIER_MNC));
+        assertEquals("us", attributes.get(CARRIER_ICC));
+
+        telephonyManager.setSimState(TelephonyManager.SIM_STATE_ABSENT);
+        RuntimeEnvironment.getApplication().sendBroadcast(new Intent("android.intent.action.SIM_STATE_CHANGED"));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertTrue(service.getCarrierAttributes().isEmpty());
+    }
+
+    private static NetworkCapabilities createCapabilities(int transportType) {
+        NetworkCapabilities capabilities = ShadowNetworkCapabilities.newInstance();
+        shadowOf(capabilities).addTransportType(transportType);
+        return capabilities;
+    }
+
+    private static TelephonyManager getTelephonyManager() {
+        return (TelephonyManager) RuntimeEnvironment.getApplication().getSystemService(Context.TELEPHONY_SERVICE);
+    }
+
+    private static NetworkService getNetworkService() {
+        return ElasticApmAgent.get().getService(Service.Names.NETWORK);
+    }
+}
@@ -0,0 +1,116 @@
+package co.elastic.apm.android.test.stall;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.List;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.stall.MainThreadWatchdog;
+import co.elastic.apm.android.test.activities.NoLifecycleMethodsActivity;
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class MainThreadWatchdogTest extends BaseRobolectricTest {
+    private static final long THRESHOLD_MILLIS = 50;
+    private static final String SPAN_NAME = "Main thread stall";
+    private MainThreadWatchdog watchdog;
+
+    @Before
+    public void setUp() {
+        // The test runs on the main thread, so its looper only processes messages when idled here.
+        shadowOf(Looper.getMainLooper()).idle();
+        watchdog = new MainThreadWatchdog(THRESHOLD_MILLIS);
+        watchdog.start((Application) RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        watchdog.stop();
+    }
+
+    @Test
+    public void whenTheMainThreadStalls_createSpanWithItsSamples() throws InterruptedException {
+        try (ActivityController<NoLifecycleMethodsActivity> controller = Robolectric.buildActivity(NoLifecycleMethodsActivity.class)) {
+            controller.setup();
+            getSpanExporter().clearCapturedSpans();
+
+            Thread.sleep(THRESHOLD_MILLIS * 10);
+            shadowOf(Looper.getMainLooper()).idle();
+
+            SpanData stall = awaitStallSpan();
+            Spans.verify(stall)
+                    .hasNoParent()
+                    .hasAttributeNamed("stall.anr");
+            assertTrue(stall.getAttributes().get(AttributeKey.longKey("stall.samples")) > 0);
+            assertTrue(stall.getAttributes().get(AttributeKey.stringKey("stall.stacktrace")).contains(getClass().getName()));
+        }
+    }
+
+    @Test
+    public void whenNoActivityIsStarted_doNotPostHeartbeats() throws InterruptedException {
+        Thread.sleep(THRESHOLD_MILLIS * 5);
+
+        assertTrue(shadowOf(Looper.getMainLooper()).isIdle());
+        assertFalse(hasStallSpan());
+    }
+
+    @Test
+    public void whenAllActivitiesStop_stopPostingHeartbeats() throws InterruptedException {
+        try (ActivityController<NoLifecycleMethodsActivity> controller = Robolectric.buildActivity(NoLifecycleMethodsActivity.class)) {
+            controller.setup();
+            controller.pause().stop();
+
+            // Lets the heartbeat that might have been in flight go through.
+            Thread.sleep(THRESHOLD_MILLIS * 3);
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(THRESHOLD_MILLIS * 3);
+            shadowOf(Looper.getMainLooper()).idle();
+            getSpanExporter().clearCapturedSpans();
+
+            Thread.sleep(THRESHOLD_MILLIS * 5);
+
+            assertTrue(shadowOf(Looper.getMainLooper()).isIdle());
+            assertFalse(hasStallSpan());
+        }
+    }
+
+    private SpanData awaitStallSpan() throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            SpanData found = findStallSpan();
+            if (found != null) {
+                return found;
+            }
+            Thread.sleep(THRESHOLD_MILLIS);
+        }
+        throw new AssertionError("No stall span was created");
+    }
+
+    private boolean hasStallSpan() {
+        return findStallSpan() != null;
+    }
+
+    private SpanData findStallSpan() {
+        // Setting up the activity might take long enough to be reported as a stall too.
+        for (List<SpanData> spans : getSpanExporter().getCapturedSpans()) {
+            for (SpanData span : spans) {
+                if (span.getName().equals(SPAN_NAME)) {
+                    return span;
+                }
+            }
+        }
+        return null;
+    }
+}
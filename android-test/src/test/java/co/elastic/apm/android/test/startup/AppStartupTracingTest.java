@@ -0,0 +1,98 @@
+package co.elastic.apm.android.test.startup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import org.junit.Test;
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.ElasticApmConfiguration;
+import co.elastic.apm.android.test.activities.FullCreationActivity;
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTestApplication;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+@Config(application = AppStartupTracingTest.StartupTracingApp.class)
+public class AppStartupTracingTest extends BaseRobolectricTest {
+
+    @Test
+    public void whenAnActivityIsLaunched_traceTheStartupUntilItsFirstFrame() {
+        try (ActivityController<FullCreationActivity> controller = Robolectric.buildActivity(FullCreationActivity.class)) {
+            controller.setup();
+
+            // Along with the activity's lifecycle spans and, depending on the start type, phase spans.
+            List<SpanData> spans = getAllRecordedSpans();
+            SpanData rootSpan = findSpan(spans, "Application startup");
+            SpanData activityLaunchSpan = findSpan(spans, "Activity launch");
+
+            Spans.verify(rootSpan)
+                    .hasNoParent()
+                    .hasAttributeNamed("app.start.type");
+            Spans.verify(activityLaunchSpan)
+                    .isDirectChildOf(rootSpan);
+            assertTrue(activityLaunchSpan.getEndEpochNanos() <= rootSpan.getEndEpochNanos());
+        }
+    }
+
+    @Test
+    public void whenTheActivityStopsBeforeItsFirstFrame_endTheStartupTrace() {
+        try (ActivityController<FullCreationActivity> controller = Robolectric.buildActivity(FullCreationActivity.class)) {
+            // Not made visible, so it never draws a frame.
+            controller.create().start().postCreate(null).resume();
+            getAllRecordedSpans();
+
+            controller.pause().stop();
+
+            List<SpanData> spans = getAllRecordedSpans();
+            SpanData rootSpan = findSpan(spans, "Application startup");
+            Spans.verify(findSpan(spans, "Activity launch"))
+                    .isDirectChildOf(rootSpan);
+        }
+    }
+
+    private List<SpanData> getAllRecordedSpans() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(100));
+        List<SpanData> spans = new ArrayList<>();
+        for (List<SpanData> exported : getSpanExporter().getCapturedSpans()) {
+            spans.addAll(exported);
+        }
+        getSpanExporter().clearCapturedSpans();
+        return spans;
+    }
+
+    private static SpanData findSpan(List<SpanData> spans, String name) {
+        SpanData found = null;
+        for (SpanData span : spans) {
+            if (span.getName().equals(name)) {
+                assertEquals("More than one span named " + name, null, found);
+                found = span;
+            }
+        }
+        assertNotNull("No span named " + name, found);
+        return found;
+    }
+
+    public static class StartupTracingApp extends BaseRobolectricTestApplication {
+
+        @Override
+        public void onCreate() {
+            super.onCreate();
+            ElasticApmConfiguration configuration = ElasticApmConfiguration.builder()
+                    .setMainThreadStallThresholdMillis(0)
+                    .build();
+            ElasticApmAgent.initialize(this, configuration, getConnectivity());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package co.elastic.apm.android.test.testutils;
 
 import co.elastic.apm.android.sdk.ElasticApmAgent;
+import co.elastic.apm.android.sdk.ElasticApmConfiguration;
 import co.elastic.apm.android.test.testutils.base.BaseRobolectricTestApplication;
 
 public class MainApp extends BaseRobolectricTestApplication {
@@ -8,6 +9,12 @@ public class MainApp extends BaseRobolectricTestApplication {
     @Override
     public void onCreate() {
         super.onCreate();
-        ElasticApmAgent.initialize(this, getConnectivity());
+        // Startup traces and stalls of the paused main looper would get mixed with the spans
+        // verified by each test.
+        ElasticApmConfiguration configuration = ElasticApmConfiguration.builder()
+                .setStartupTracingEnabled(false)
+                .setMainThreadStallThresholdMillis(0)
+                .build();
+        ElasticApmAgent.initialize(this, configuration, getConnectivity());
     }
 }
\ No newline at end of file
@@ -1,19 +1,40 @@
 package co.elastic.apm.android.test.testutils.base;
 
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.time.Duration;
+import java.util.List;
+
 import co.elastic.apm.android.test.common.BaseTest;
 import co.elastic.apm.android.test.common.spans.SpanExporterCaptor;
 import co.elastic.apm.android.test.testutils.MainApp;
 import co.elastic.apm.android.test.utilities.SpanExporterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.trace.data.SpanData;
 
 @Config(application = MainApp.class)
 @RunWith(RobolectricTestRunner.class)
 public abstract class BaseRobolectricTest extends BaseTest {
 
+    @Override
+    protected List<SpanData> getRecordedSpans(int amountExpected) {
+        // Lifecycle root spans end once the next frame gets drawn.
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(100));
+        return super.getRecordedSpans(amountExpected);
+    }
+
+    protected MetricData getRecordedMetric(String name) {
+        BaseRobolectricTestApplication application = (BaseRobolectricTestApplication) RuntimeEnvironment.getApplication();
+        return application.getMetricExporter().getCapturedMetric(name);
+    }
+
     @Override
     protected SpanExporterCaptor getSpanExporter() {
         SpanExporterProvider spanExporterProvider = (SpanExporterProvider) RuntimeEnvironment.getApplication();
@@ -5,19 +5,28 @@ import android.app.Application;
 import org.robolectric.TestLifecycleApplication;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
 
 import co.elastic.apm.android.sdk.ElasticApmAgent;
 import co.elastic.apm.android.sdk.traces.connectivity.Connectivity;
+import co.elastic.apm.android.test.common.metrics.MetricExporterCaptor;
 import co.elastic.apm.android.test.common.spans.SpanExporterCaptor;
 import co.elastic.apm.android.test.utilities.SpanExporterProvider;
 import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 
 public class BaseRobolectricTestApplication extends Application implements SpanExporterProvider, TestLifecycleApplication {
     private final SpanExporterCaptor exporter;
+    private final MetricExporterCaptor metricExporter;
+    private final MetricReader metricReader;
 
     public BaseRobolectricTestApplication() {
         exporter = new SpanExporterCaptor();
+        metricExporter = new MetricExporterCaptor();
+        metricReader = PeriodicMetricReader.builder(metricExporter).build();
     }
 
     @Override
@@ -25,8 +34,24 @@ public class BaseRobolectricTestApplication extends Application implements SpanE
         return exporter;
     }
 
+    public MetricExporterCaptor getMetricExporter() {
+        metricReader.flush().join(5, TimeUnit.SECONDS);
+        return metricExporter;
+    }
+
     protected Connectivity getConnectivity() {
-        return Connectivity.custom(SimpleSpanProcessor.create(exporter));
+        SpanProcessor spanProcessor = SimpleSpanProcessor.create(exporter);
+        return new Connectivity() {
+            @Override
+            public SpanProcessor getSpanProcessor() {
+                return spanProcessor;
+            }
+
+            @Override
+            public MetricReader getMetricReader() {
+                return metricReader;
+            }
+        };
     }
 
     @Override
@@ -42,6 +67,7 @@ public class BaseRobolectricTestApplication extends Application implements SpanE
     @Override
     public void afterTest(Method method) {
         ElasticApmAgent.get().destroy();
+        metricReader.shutdown();
         GlobalOpenTelemetry.resetForTest();
     }
 }
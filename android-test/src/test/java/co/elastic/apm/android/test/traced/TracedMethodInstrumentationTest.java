@@ -0,0 +1,53 @@
+package co.elastic.apm.android.test.traced;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class TracedMethodInstrumentationTest extends BaseRobolectricTest {
+
+    @Test
+    public void whenTracedMethodIsCalled_wrapWithCurrentSpan() {
+        new TracedMethodsHost().tracedWithDefaultName();
+
+        List<SpanData> spans = getRecordedSpans(2);
+        SpanData methodSpan = spans.get(0);
+        Spans.verify(methodSpan)
+                .isNamed("TracedMethodsHost.tracedWithDefaultName");
+        Spans.verify(spans.get(1))
+                .isNamed("Inner span")
+                .isDirectChildOf(methodSpan);
+    }
+
+    @Test
+    public void whenTracedMethodHasName_useItAsSpanName() {
+        new TracedMethodsHost().tracedWithCustomName();
+
+        Spans.verify(getRecordedSpan())
+                .isNamed("Custom name");
+    }
+
+    @Test
+    public void whenTracedMethodIsFasterThanMinDuration_doNotCreateSpan() {
+        new TracedMethodsHost().tracedWithUnreachedMinDuration();
+
+        getRecordedSpans(0);
+    }
+
+    @Test
+    public void whenTracedMethodReachesMinDuration_createSpanCoveringTheCall() {
+        new TracedMethodsHost().tracedWithReachedMinDuration();
+
+        SpanData span = getRecordedSpan();
+        Spans.verify(span)
+                .isNamed("Slow method");
+        assertTrue(span.getEndEpochNanos() - span.getStartEpochNanos() >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+}
@@ -0,0 +1,92 @@
+package co.elastic.apm.android.test.urlconnection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class UrlConnectionInstrumentationTest extends BaseRobolectricTest {
+    private static final AttributeKey<Long> HTTP_STATUS_CODE = AttributeKey.longKey("http.status_code");
+    private MockWebServer webServer;
+    private URL url;
+
+    @Before
+    public void setUp() throws IOException {
+        webServer = new MockWebServer();
+        webServer.start();
+        url = webServer.url("/").url();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        webServer.shutdown();
+    }
+
+    @Test
+    public void whenTheBodyIsRead_endTheSpanWithTheResponse() {
+        webServer.enqueue(new MockResponse().setBody("Some body")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+        String body = new UrlConnectionsHost(url).readBody(url);
+
+        assertEquals("Some body", body);
+        SpanData span = getRecordedSpan();
+        Spans.verify(span)
+                .isNamed("GET " + webServer.getHostName());
+        assertEquals(SpanKind.CLIENT, span.getKind());
+        assertEquals(200, (long) span.getAttributes().get(HTTP_STATUS_CODE));
+        assertTrue(span.getEndEpochNanos() - span.getStartEpochNanos() >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    public void whenTheBodyIsNeverRead_endTheSpanWithTheResponse() {
+        webServer.enqueue(new MockResponse().setBody("Some body"));
+
+        new UrlConnectionsHost(url).readResponseCode(url);
+
+        assertEquals(200, (long) getRecordedSpan().getAttributes().get(HTTP_STATUS_CODE));
+    }
+
+    @Test
+    public void whenTheConnectionIsDisconnected_endTheSpan() {
+        webServer.enqueue(new MockResponse().setBody("Some body"));
+
+        new UrlConnectionsHost(url).readResponseCodeAndDisconnect(url);
+
+        assertEquals(200, (long) getRecordedSpan().getAttributes().get(HTTP_STATUS_CODE));
+    }
+
+    @Test
+    public void whenTheResponseHasNoBody_endTheSpanWithItsHeaders() {
+        webServer.enqueue(new MockResponse().setResponseCode(204));
+
+        new UrlConnectionsHost(url).readResponseCode(url);
+
+        assertEquals(204, (long) getRecordedSpan().getAttributes().get(HTTP_STATUS_CODE));
+    }
+
+    @Test
+    public void whenTheConnectionIsOpenedFromAConstructor_traceIt() {
+        webServer.enqueue(new MockResponse().setBody("Some body"));
+
+        String body = new UrlConnectionsHost(url).readBodyFromConstructorConnection();
+
+        assertEquals("Some body", body);
+        Spans.verify(getRecordedSpan())
+                .isNamed("GET " + webServer.getHostName());
+    }
+}
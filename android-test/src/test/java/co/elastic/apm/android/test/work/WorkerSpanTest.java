@@ -0,0 +1,104 @@
+package co.elastic.apm.android.test.work;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.ListenableWorker;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import androidx.work.testing.TestWorkerBuilder;
+
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.Executor;
+
+import co.elastic.apm.android.sdk.internal.instrumentation.SpanWithScope;
+import co.elastic.apm.android.sdk.internal.instrumentation.work.WorkerSpan;
+import co.elastic.apm.android.test.common.spans.Spans;
+import co.elastic.apm.android.test.testutils.base.BaseRobolectricTest;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+public class WorkerSpanTest extends BaseRobolectricTest {
+    private static final AttributeKey<Long> QUEUE_DELAY = AttributeKey.longKey("worker.queue_delay_ms");
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("worker.outcome");
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    @Test
+    public void whenARequestIsBuilt_doNotChangeIt() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SimpleWorker.class).build();
+
+        WorkerSpan.onWorkRequestBuilt(request);
+
+        assertTrue(request.getTags().contains(SimpleWorker.class.getName()));
+        assertEquals(1, request.getTags().size());
+    }
+
+    @Test
+    public void whenTheFirstAttemptRuns_setItsQueueDelay() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SimpleWorker.class).build();
+        WorkerSpan.onWorkRequestBuilt(request);
+
+        SpanData span = runWorker(createWorker(request), ListenableWorker.Result.success());
+
+        assertNotNull(span.getAttributes().get(QUEUE_DELAY));
+    }
+
+    @Test
+    public void whenTheRequestWasNotBuiltInThisProcess_skipTheQueueDelay() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SimpleWorker.class).build();
+
+        SpanData span = runWorker(createWorker(request), ListenableWorker.Result.success());
+
+        assertNull(span.getAttributes().get(QUEUE_DELAY));
+    }
+
+    @Test
+    public void whenTheWorkerReturns_setItsOutcome() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SimpleWorker.class).build();
+
+        SpanData success = runWorker(createWorker(request), ListenableWorker.Result.success());
+        SpanData failure = runWorker(createWorker(request), ListenableWorker.Result.failure());
+        SpanData retry = runWorker(createWorker(request), ListenableWorker.Result.retry());
+
+        Spans.verify(success).isNamed(SimpleWorker.class.getSimpleName());
+        assertEquals("success", success.getAttributes().get(OUTCOME));
+        assertEquals(StatusCode.UNSET, success.getStatus().getStatusCode());
+        assertEquals("failure", failure.getAttributes().get(OUTCOME));
+        assertEquals(StatusCode.ERROR, failure.getStatus().getStatusCode());
+        assertEquals("retry", retry.getAttributes().get(OUTCOME));
+        assertEquals(StatusCode.ERROR, retry.getStatus().getStatusCode());
+    }
+
+    private SpanData runWorker(Worker worker, ListenableWorker.Result result) {
+        SpanWithScope spanWithScope = WorkerSpan.onDoWorkEnter(worker);
+        WorkerSpan.onDoWorkExit(spanWithScope, result, null);
+        return getRecordedSpan();
+    }
+
+    private static SimpleWorker createWorker(OneTimeWorkRequest request) {
+        Context context = RuntimeEnvironment.getApplication();
+        return (SimpleWorker) TestWorkerBuilder.from(context, request, DIRECT_EXECUTOR).build();
+    }
+
+    public static class SimpleWorker extends Worker {
+
+        public SimpleWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+            super(context, workerParams);
+        }
+
+        @NonNull
+        @Override
+        public Result doWork() {
+            return Result.success();
+        }
+    }
+}